@@ -0,0 +1,218 @@
+package org.amalzen.app.build;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Packs the small and medium images (buttons, icons, card art) into texture atlas pages, so the
+ * client uploads one texture where it used to upload one per image and cards drawn from the
+ * same page batch together. Runs in the process-resources phase of the app build as a
+ * single-file program:
+ *
+ * <pre>
+ * java AtlasPacker.java &lt;images dir&gt; &lt;output dir&gt; [&lt;bundled images dir&gt;]
+ * </pre>
+ *
+ * Writes atlas-&lt;n&gt;.png pages and atlas.properties, the index TextureAtlas reads, mapping
+ * each packed file name to "page,x,y,width,height" and each page.&lt;n&gt; to its size. The packed
+ * images are then deleted from the bundled images dir, the copy of the images going into the
+ * jar, unless -Datlas.keepOriginals=true keeps them there. Backgrounds and other large images are
+ * left out; a page holding one of them would cost more memory than it saves. Each image is
+ * surrounded by a copy of its edge pixels, so filtering at the edge of a region never picks up
+ * its neighbour.
+ */
+public final class AtlasPacker {
+    private static final int MAX_PAGE_WIDTH = 2048;
+    private static final int MAX_PAGE_HEIGHT = 2048;
+    private static final int MAX_SIDE = 1024;
+    private static final int MAX_PIXELS = 256 * 1024;
+    private static final int PADDING = 2;
+
+    private record Sprite(String name, BufferedImage image) {
+        int paddedWidth() {
+            return image.getWidth() + 2 * PADDING;
+        }
+
+        int paddedHeight() {
+            return image.getHeight() + 2 * PADDING;
+        }
+    }
+
+    private record Placement(Sprite sprite, int page, int x, int y) {
+    }
+
+    private record Layout(int width, List<Integer> pageHeights, List<Placement> placements) {
+        long bytes() {
+            return 4L * width * pageHeights.stream().mapToInt(Integer::intValue).sum();
+        }
+    }
+
+    private AtlasPacker() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2 && args.length != 3) {
+            System.err.println("Usage: AtlasPacker <images dir> <output dir> [<bundled images dir>]");
+            System.exit(2);
+        }
+        Path images = Path.of(args[0]);
+        Path output = Path.of(args[1]);
+        Files.createDirectories(output);
+
+        List<Path> files;
+        try (Stream<Path> list = Files.list(images)) {
+            files = list.filter(file -> file.toString().endsWith(".png")).sorted().toList();
+        }
+        List<Sprite> sprites = new ArrayList<>();
+        long separateBytes = 0;
+        for (Path file : files) {
+            BufferedImage image = ImageIO.read(file.toFile());
+            String name = file.getFileName().toString();
+            if (image != null && packs(name, image)) {
+                sprites.add(new Sprite(name, image));
+                separateBytes += 4L * image.getWidth() * image.getHeight();
+            }
+        }
+
+        sprites.sort(Comparator.comparing(Sprite::name));
+        int widest = sprites.stream().mapToInt(Sprite::paddedWidth).max().orElse(1);
+        List<Comparator<Sprite>> orders = List.of(
+                Comparator.comparingInt(Sprite::paddedHeight).reversed(),
+                Comparator.comparingInt(Sprite::paddedWidth).reversed(),
+                Comparator.comparingInt((Sprite sprite) -> sprite.paddedWidth() * sprite.paddedHeight()).reversed());
+        Layout layout = null;
+        // The page width and placing order leaving the least unused area
+        for (Comparator<Sprite> order : orders) {
+            List<Sprite> ordered = new ArrayList<>(sprites);
+            ordered.sort(order);
+            for (int width = (widest + 63) / 64 * 64; width <= MAX_PAGE_WIDTH; width += 64) {
+                Layout candidate = pack(ordered, width);
+                if (layout == null || candidate.bytes() < layout.bytes()) {
+                    layout = candidate;
+                }
+            }
+        }
+
+        List<Placement> placements = new ArrayList<>(layout.placements());
+        for (int p = 0; p < layout.pageHeights().size(); p++) {
+            BufferedImage pageImage = new BufferedImage(layout.width(), layout.pageHeights().get(p),
+                    BufferedImage.TYPE_INT_ARGB);
+            for (Placement placement : placements) {
+                if (placement.page() == p) {
+                    draw(pageImage, placement);
+                }
+            }
+            ImageIO.write(pageImage, "png", output.resolve("atlas-" + p + ".png").toFile());
+        }
+
+        placements.sort(Comparator.comparing(placement -> placement.sprite().name()));
+        try (Writer index = Files.newBufferedWriter(output.resolve("atlas.properties"))) {
+            index.write("# Generated by AtlasPacker, do not edit\n");
+            index.write("# file = page,x,y,width,height\n");
+            index.write("# page.<n> = width,height\n");
+            for (int p = 0; p < layout.pageHeights().size(); p++) {
+                index.write("page." + p + "=" + layout.width() + "," + layout.pageHeights().get(p) + "\n");
+            }
+            for (Placement placement : placements) {
+                BufferedImage image = placement.sprite().image();
+                index.write(placement.sprite().name() + "=" + placement.page() + ","
+                        + (placement.x() + PADDING) + "," + (placement.y() + PADDING) + ","
+                        + image.getWidth() + "," + image.getHeight() + "\n");
+            }
+        }
+        System.out.printf("[INFO] Packed %d of %d images into %d atlas page(s) %d px wide: %d textures become %d,"
+                        + " decoded %d KB separately, %d KB packed%n", sprites.size(), files.size(),
+                layout.pageHeights().size(), layout.width(), sprites.size(), layout.pageHeights().size(),
+                separateBytes >> 10, layout.bytes() >> 10);
+
+        if (args.length == 3 && !Boolean.getBoolean("atlas.keepOriginals")) {
+            // The pages stand in for them; -Dcache.atlas=false needs a build that keeps them
+            Path bundled = Path.of(args[2]);
+            for (Sprite sprite : sprites) {
+                Files.deleteIfExists(bundled.resolve(sprite.name()));
+            }
+            System.out.printf("[INFO] Left %d packed images out of the bundle%n", sprites.size());
+        }
+    }
+
+    /**
+     * Skyline packing: each sprite goes where its top edge ends up lowest, resting on the
+     * outline left by the sprites placed before it, which fills the gaps a plain row-by-row
+     * layout leaves above short sprites.
+     */
+    private static Layout pack(List<Sprite> sprites, int width) {
+        List<Placement> placements = new ArrayList<>();
+        List<Integer> pageHeights = new ArrayList<>();
+        // Heights of the outline, one per column of pixels
+        int[] skyline = new int[width];
+        int page = 0;
+        int pageHeight = 0;
+        for (Sprite sprite : sprites) {
+            int bestX = -1;
+            int bestY = Integer.MAX_VALUE;
+            for (int x = 0; x + sprite.paddedWidth() <= width; x++) {
+                int y = 0;
+                for (int i = x; i < x + sprite.paddedWidth(); i++) {
+                    y = Math.max(y, skyline[i]);
+                }
+                if (y < bestY) {
+                    bestY = y;
+                    bestX = x;
+                }
+            }
+            if (bestX < 0) {
+                throw new IllegalArgumentException(sprite.name() + " is wider than a page");
+            }
+            if (bestY + sprite.paddedHeight() > MAX_PAGE_HEIGHT) {
+                pageHeights.add(roundUp(pageHeight));
+                page++;
+                pageHeight = 0;
+                skyline = new int[width];
+                bestX = 0;
+                bestY = 0;
+            }
+            placements.add(new Placement(sprite, page, bestX, bestY));
+            for (int i = bestX; i < bestX + sprite.paddedWidth(); i++) {
+                skyline[i] = bestY + sprite.paddedHeight();
+            }
+            pageHeight = Math.max(pageHeight, bestY + sprite.paddedHeight());
+        }
+        pageHeights.add(roundUp(pageHeight));
+        return new Layout(width, pageHeights, placements);
+    }
+
+    // Pages only as tall as their content, rounded to a multiple of four
+    private static int roundUp(int height) {
+        return (height + 3) / 4 * 4;
+    }
+
+    private static boolean packs(String name, BufferedImage image) {
+        boolean background = name.endsWith("-bg.png") || name.endsWith("-background.png");
+        return !background && image.getWidth() <= MAX_SIDE && image.getHeight() <= MAX_SIDE
+                && (long) image.getWidth() * image.getHeight() <= MAX_PIXELS;
+    }
+
+    // Copies the image into its place and extends its edge pixels into the padding around it
+    private static void draw(BufferedImage page, Placement placement) {
+        BufferedImage image = placement.sprite().image();
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int left = placement.x() + PADDING;
+        int top = placement.y() + PADDING;
+        for (int y = -PADDING; y < height + PADDING; y++) {
+            int sourceY = Math.min(height - 1, Math.max(0, y));
+            for (int x = -PADDING; x < width + PADDING; x++) {
+                int sourceX = Math.min(width - 1, Math.max(0, x));
+                page.setRGB(left + x, top + y, image.getRGB(sourceX, sourceY));
+            }
+        }
+    }
+}
@@ -0,0 +1,647 @@
+package org.amalzen.app.build;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.ProcessingInstruction;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Compiles the FXML views into Java classes that build the same scene graph with plain
+ * constructor and setter calls, so views no longer go through FXMLLoader's XML parsing and
+ * reflection at runtime. Runs in the generate-sources phase of the app build as a single-file
+ * program, with the JavaFX jars on the class path for looking up setter types:
+ *
+ * <pre>
+ * java -cp &lt;javafx jars&gt; ViewCompiler.java &lt;resources dir&gt; &lt;view dir&gt; &lt;output dir&gt;
+ * </pre>
+ *
+ * Each view becomes org.amalzen.app.views.&lt;Name&gt;View with a static build() method, and
+ * CompiledViews maps resource paths to them for ViewLoader. Controller fields, event handlers
+ * and initialize() are found when a generated class is first used, as the controllers are not
+ * compiled yet when this runs.
+ *
+ * <p>Only the FXML the views use is supported: instance and property elements, attributes,
+ * static properties, fx:id, fx:controller, fx:value, "@" locations and "#" handlers. A view
+ * using anything else is skipped with a warning and keeps loading through FXMLLoader.
+ */
+public final class ViewCompiler {
+    private static final String PACKAGE = "org.amalzen.app.views";
+    private static final String FX_NAMESPACE = "http://javafx.com/fxml";
+    private static final String XMLNS_NAMESPACE = "http://www.w3.org/2000/xmlns/";
+    private static final String IMAGE = "javafx.scene.image.Image";
+
+    // A construct the compiler does not handle; the view is left to FXMLLoader
+    static final class UnsupportedException extends Exception {
+        UnsupportedException(String message) {
+            super(message);
+        }
+    }
+
+    private final String resourcePath;
+    private final List<String> imports = new ArrayList<>();
+    private final StringBuilder body = new StringBuilder();
+    private final Map<String, String> constants = new LinkedHashMap<>();
+    private String controllerClass;
+    private int variables = 0;
+
+    private ViewCompiler(String resourcePath) {
+        this.resourcePath = resourcePath;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 3) {
+            System.err.println("Usage: ViewCompiler <resources dir> <view dir> <output dir>");
+            System.exit(2);
+        }
+        Path resources = Path.of(args[0]);
+        Path output = Path.of(args[2]).resolve(PACKAGE.replace('.', '/'));
+        Files.createDirectories(output);
+
+        List<Path> views;
+        try (Stream<Path> files = Files.list(resources.resolve(args[1]))) {
+            views = files.filter(file -> file.toString().endsWith(".fxml")).sorted().toList();
+        }
+
+        Map<String, String> compiled = new LinkedHashMap<>();
+        for (Path view : views) {
+            String resourcePath = "/" + resources.relativize(view).toString().replace('\\', '/');
+            String className = className(view.getFileName().toString());
+            try {
+                String source = new ViewCompiler(resourcePath).compile(view, className);
+                Files.writeString(output.resolve(className + ".java"), source);
+                compiled.put(resourcePath, className);
+            } catch (UnsupportedException e) {
+                System.out.println("[WARNING] " + resourcePath + " left to FXMLLoader: " + e.getMessage());
+            }
+        }
+        Files.writeString(output.resolve("CompiledViews.java"), registry(compiled));
+        System.out.println("[INFO] Compiled " + compiled.size() + " of " + views.size() + " views to " + output);
+    }
+
+    // card.fxml -> CardView, game-room.fxml -> GameRoomView
+    static String className(String fileName) {
+        StringBuilder name = new StringBuilder();
+        boolean upper = true;
+        for (char c : fileName.substring(0, fileName.length() - ".fxml".length()).toCharArray()) {
+            if (!Character.isLetterOrDigit(c)) {
+                upper = true;
+            } else {
+                name.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+        return name.append("View").toString();
+    }
+
+    private String compile(Path view, String className) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        Document document = factory.newDocumentBuilder().parse(view.toFile());
+        for (Node node = document.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof ProcessingInstruction instruction && instruction.getTarget().equals("import")) {
+                imports.add(instruction.getData().trim());
+            }
+        }
+
+        Element root = document.getDocumentElement();
+        String controller = fxAttribute(root, "controller");
+        if (controller != null) {
+            controllerClass = controller;
+            line("%s controller = new %s();", controller, controller);
+        }
+        String rootVariable = instance(root);
+        if (controllerClass != null) {
+            line("ViewLoader.initialize(%s, controller);", constant("INITIALIZE",
+                    "ViewLoader.initializer(" + controllerClass + ".class)", "MethodHandle"));
+        }
+        line("return new ViewLoader.View<>(%s, %s);", rootVariable, controllerClass != null ? "controller" : "null");
+        return source(className, controllerClass != null ? controllerClass : "Void");
+    }
+
+    // Emits the statements creating element and everything under it, returning its variable
+    private String instance(Element element) throws Exception {
+        Class<?> type = resolve(element.getTagName());
+        String variable = "n" + variables++;
+        String typeName = type.getCanonicalName();
+
+        String value = fxAttribute(element, "value");
+        if (value != null) {
+            line("%s %s = %s;", typeName, variable, type == String.class ? literal(value)
+                    : typeName + ".valueOf(" + literal(value) + ")");
+            return variable;
+        }
+        if (type.getName().equals(IMAGE)) {
+            line("%s %s = %s;", typeName, variable, image(element));
+            return variable;
+        }
+        line("%s%s %s = %s;", typeName, typeArguments(type), variable, construct(type, element));
+
+        String id = fxAttribute(element, "id");
+        boolean explicitId = element.hasAttribute("id");
+        for (Attr attribute : attributes(element)) {
+            if (!constructorArguments(type, element).contains(attribute.getName())) {
+                property(type, variable, attribute.getName(), attribute.getValue());
+            }
+        }
+        if (id != null) {
+            if (!explicitId && setter(type, "id") != null) {
+                line("%s.setId(%s);", variable, literal(id));
+            }
+            if (controllerClass != null) {
+                String field = constant("FIELD_" + constantName(id),
+                        "ViewLoader.field(" + controllerClass + ".class, " + literal(id) + ")", "VarHandle");
+                line("if (%s != null) %s.set(controller, %s);", field, field, variable);
+            }
+        }
+
+        List<String> defaults = new ArrayList<>();
+        for (Element child : children(element)) {
+            if (isInstance(child)) {
+                defaults.add(instance(child));
+            } else {
+                propertyElement(type, variable, child);
+            }
+        }
+        if (!defaults.isEmpty()) {
+            String property = defaultProperty(type);
+            if (property == null) {
+                throw new UnsupportedException(type.getSimpleName() + " has no default property for its children");
+            }
+            addAll(type, variable, property, defaults);
+        }
+        return variable;
+    }
+
+    // <graphic><ImageView/></graphic>, <children>...</children>
+    private void propertyElement(Class<?> type, String variable, Element element) throws Exception {
+        String name = element.getTagName();
+        if (name.contains(".")) {
+            throw new UnsupportedException("static property element <" + name + ">");
+        }
+        List<String> values = new ArrayList<>();
+        for (Element child : children(element)) {
+            values.add(instance(child));
+        }
+        if (values.isEmpty() && !element.getTextContent().isBlank()) {
+            throw new UnsupportedException("text content in <" + name + ">");
+        }
+        Method setter = setter(type, name);
+        if (setter != null && values.size() == 1) {
+            line("%s.%s(%s);", variable, setter.getName(), values.get(0));
+        } else {
+            addAll(type, variable, name, values);
+        }
+    }
+
+    private void addAll(Class<?> type, String variable, String property, List<String> values) throws Exception {
+        Method getter = getter(type, property);
+        if (getter == null || !Collection.class.isAssignableFrom(getter.getReturnType())) {
+            throw new UnsupportedException(type.getSimpleName() + "." + property + " is not a list");
+        }
+        for (String value : values) {
+            line("%s.%s().add(%s);", variable, getter.getName(), value);
+        }
+    }
+
+    private void property(Class<?> type, String variable, String name, String value) throws Exception {
+        int dot = name.lastIndexOf('.');
+        if (dot > 0 && Character.isUpperCase(name.charAt(0))) {
+            // AnchorPane.topAnchor="23.0"
+            Class<?> owner = resolve(name.substring(0, dot));
+            String setterName = "set" + capitalize(name.substring(dot + 1));
+            for (Method method : owner.getMethods()) {
+                if (method.getName().equals(setterName) && Modifier.isStatic(method.getModifiers())
+                        && method.getParameterCount() == 2 && method.getParameterTypes()[0].isAssignableFrom(type)) {
+                    line("%s.%s(%s, %s);", owner.getCanonicalName(), setterName, variable,
+                            convert(method.getParameterTypes()[1], value));
+                    return;
+                }
+            }
+            throw new UnsupportedException("static property " + name + " on " + type.getSimpleName());
+        }
+
+        // onAction="#showPage"; elsewhere a leading # is just part of the value, as in textFill="#5b3a29"
+        if (value.startsWith("#") && name.startsWith("on")) {
+            Method setter = setter(type, name);
+            if (controllerClass == null || setter == null) {
+                throw new UnsupportedException("handler " + name + "=\"" + value + "\"");
+            }
+            String handler = constant("HANDLER_" + constantName(value.substring(1)),
+                    "ViewLoader.eventHandler(" + controllerClass + ".class, " + literal(value.substring(1)) + ")",
+                    "MethodHandle");
+            line("%s.%s(ViewLoader.handler(%s, controller));", variable, setter.getName(), handler);
+            return;
+        }
+
+        Method setter = setter(type, name);
+        if (setter != null) {
+            line("%s.%s(%s);", variable, setter.getName(), convert(setter.getParameterTypes()[0], value));
+            return;
+        }
+        // Read-only lists such as styleClass and stylesheets take comma separated values
+        Method getter = getter(type, name);
+        if (getter != null && List.class.isAssignableFrom(getter.getReturnType())) {
+            for (String item : value.split(",")) {
+                line("%s.%s().add(%s);", variable, getter.getName(), convert(String.class, item.trim()));
+            }
+            return;
+        }
+        throw new UnsupportedException("property " + name + " on " + type.getSimpleName());
+    }
+
+    // Images go through the same TextureAtlas call as ViewImageBuilder
+    private String image(Element element) throws Exception {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (Attr attribute : attributes(element)) {
+            values.put(attribute.getName(), attribute.getValue());
+        }
+        for (String name : values.keySet()) {
+            if (!List.of("url", "requestedWidth", "requestedHeight", "preserveRatio", "smooth", "backgroundLoading")
+                    .contains(name)) {
+                throw new UnsupportedException("Image attribute " + name);
+            }
+        }
+        return String.format("TextureAtlas.image(%s, %s, %s, %s, %s, %s)",
+                convert(String.class, values.getOrDefault("url", "")),
+                convert(double.class, values.getOrDefault("requestedWidth", "0")),
+                convert(double.class, values.getOrDefault("requestedHeight", "0")),
+                convert(boolean.class, values.getOrDefault("preserveRatio", "false")),
+                convert(boolean.class, values.getOrDefault("smooth", "false")),
+                convert(boolean.class, values.getOrDefault("backgroundLoading", "false")));
+    }
+
+    // The no-argument constructor, or the smallest @NamedArg constructor taking all the attributes it needs
+    private String construct(Class<?> type, Element element) throws Exception {
+        String diamond = type.getTypeParameters().length > 0 ? "<>" : "";
+        if (hasDefaultConstructor(type)) {
+            return "new " + type.getCanonicalName() + diamond + "()";
+        }
+        Constructor<?> constructor = namedArgConstructor(type, element);
+        List<String> arguments = new ArrayList<>();
+        for (Parameter parameter : constructor.getParameters()) {
+            String name = namedArg(parameter, "value");
+            String value = element.hasAttribute(name) ? element.getAttribute(name) : namedArg(parameter, "defaultValue");
+            arguments.add(value == null || value.isEmpty() ? defaultValue(parameter.getType())
+                    : convert(parameter.getType(), value));
+        }
+        return "new " + type.getCanonicalName() + diamond + "(" + String.join(", ", arguments) + ")";
+    }
+
+    // Each type parameter's bound, such as ListView<Object>, so the declaration is not a raw type
+    // and setters or items typed by the parameter still take the values FXML gives them
+    private static String typeArguments(Class<?> type) {
+        TypeVariable<?>[] parameters = type.getTypeParameters();
+        if (parameters.length == 0) {
+            return "";
+        }
+        List<String> arguments = new ArrayList<>();
+        for (TypeVariable<?> parameter : parameters) {
+            Type bound = parameter.getBounds()[0];
+            arguments.add(bound instanceof Class<?> boundClass ? boundClass.getCanonicalName() : "?");
+        }
+        return "<" + String.join(", ", arguments) + ">";
+    }
+
+    private List<String> constructorArguments(Class<?> type, Element element) throws Exception {
+        if (hasDefaultConstructor(type)) {
+            return List.of();
+        }
+        List<String> names = new ArrayList<>();
+        for (Parameter parameter : namedArgConstructor(type, element).getParameters()) {
+            names.add(namedArg(parameter, "value"));
+        }
+        return names;
+    }
+
+    private static boolean hasDefaultConstructor(Class<?> type) {
+        for (Constructor<?> constructor : type.getConstructors()) {
+            if (constructor.getParameterCount() == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Constructor<?> namedArgConstructor(Class<?> type, Element element) throws Exception {
+        Constructor<?> best = null;
+        for (Constructor<?> constructor : type.getConstructors()) {
+            List<String> names = new ArrayList<>();
+            for (Parameter parameter : constructor.getParameters()) {
+                names.add(namedArg(parameter, "value"));
+            }
+            if (names.contains(null)) {
+                continue;
+            }
+            boolean covers = true;
+            for (Attr attribute : attributes(element)) {
+                covers &= names.contains(attribute.getName()) || setter(type, attribute.getName()) != null;
+            }
+            if (covers && (best == null || constructor.getParameterCount() < best.getParameterCount())) {
+                best = constructor;
+            }
+        }
+        if (best == null) {
+            throw new UnsupportedException("no constructor for " + type.getSimpleName());
+        }
+        return best;
+    }
+
+    // The value or defaultValue of the @NamedArg on parameter, or null without one
+    private static String namedArg(Parameter parameter, String member) throws Exception {
+        for (Annotation annotation : parameter.getAnnotations()) {
+            if (annotation.annotationType().getName().equals("javafx.beans.NamedArg")) {
+                return (String) annotation.annotationType().getMethod(member).invoke(annotation);
+            }
+        }
+        return null;
+    }
+
+    private static String defaultProperty(Class<?> type) throws Exception {
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for (Annotation annotation : c.getDeclaredAnnotations()) {
+                if (annotation.annotationType().getName().equals("javafx.beans.DefaultProperty")) {
+                    return (String) annotation.annotationType().getMethod("value").invoke(annotation);
+                }
+            }
+        }
+        return null;
+    }
+
+    // A Java expression for an attribute value, following FXMLLoader's coercion rules
+    private String convert(Class<?> type, String value) throws Exception {
+        if (value.startsWith("$") || value.startsWith("%")) {
+            throw new UnsupportedException("expression or resource " + value);
+        }
+        if (value.startsWith("@")) {
+            return "ViewLoader.url(" + literal(location(value.substring(1))) + ")";
+        }
+        if (value.startsWith("\\")) {
+            value = value.substring(1);
+        }
+
+        if (type == String.class || type == Object.class) {
+            return literal(value);
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return String.valueOf(Boolean.parseBoolean(value));
+        }
+        if (type == double.class || type == Double.class) {
+            return doubleLiteral(Double.parseDouble(value));
+        }
+        if (type == float.class || type == Float.class) {
+            return "(float) " + doubleLiteral(Double.parseDouble(value));
+        }
+        if (type == int.class || type == Integer.class) {
+            return String.valueOf((int) Double.parseDouble(value));
+        }
+        if (type == long.class || type == Long.class) {
+            return (long) Double.parseDouble(value) + "L";
+        }
+        if (type.isEnum()) {
+            for (Object constant : type.getEnumConstants()) {
+                String name = ((Enum<?>) constant).name();
+                if (name.equals(value) || name.equals(value.toUpperCase(Locale.ROOT).replace('-', '_'))) {
+                    return type.getCanonicalName() + "." + name;
+                }
+            }
+            throw new UnsupportedException(value + " is not a " + type.getSimpleName());
+        }
+        try {
+            Method valueOf = type.getMethod("valueOf", String.class);
+            if (Modifier.isStatic(valueOf.getModifiers())) {
+                return type.getCanonicalName() + ".valueOf(" + literal(value) + ")";
+            }
+        } catch (NoSuchMethodException e) {
+            // Falls through
+        }
+        throw new UnsupportedException("cannot convert \"" + value + "\" to " + type.getSimpleName());
+    }
+
+    private static String doubleLiteral(double value) {
+        if (value == Double.POSITIVE_INFINITY) {
+            return "Double.POSITIVE_INFINITY";
+        }
+        if (value == Double.NEGATIVE_INFINITY) {
+            return "Double.NEGATIVE_INFINITY";
+        }
+        if (Double.isNaN(value)) {
+            return "Double.NaN";
+        }
+        return Double.toString(value);
+    }
+
+    private static String defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return "false";
+        }
+        return type.isPrimitive() ? "0" : "null";
+    }
+
+    // "../images/a.png" relative to this view -> "/org/amalzen/app/images/a.png"
+    private String location(String relative) {
+        if (relative.startsWith("/")) {
+            return relative;
+        }
+        Path base = Path.of(resourcePath).getParent();
+        return base.resolve(relative).normalize().toString().replace('\\', '/');
+    }
+
+    private Class<?> resolve(String name) throws UnsupportedException {
+        ClassLoader loader = ViewCompiler.class.getClassLoader();
+        for (String imported : imports) {
+            String candidate = null;
+            if (imported.endsWith(".*")) {
+                candidate = imported.substring(0, imported.length() - 1) + name;
+            } else if (imported.endsWith("." + name) || imported.endsWith("." + name.split("\\.")[0])) {
+                candidate = imported.substring(0, imported.lastIndexOf('.') + 1) + name;
+            }
+            if (candidate != null) {
+                try {
+                    // Not initialized, so no JavaFX toolkit is needed
+                    return Class.forName(candidate, false, loader);
+                } catch (ClassNotFoundException e) {
+                    // Try the next import
+                }
+            }
+        }
+        try {
+            return Class.forName("java.lang." + name, false, loader);
+        } catch (ClassNotFoundException e) {
+            throw new UnsupportedException("unknown class " + name);
+        }
+    }
+
+    private static Method setter(Class<?> type, String property) {
+        String name = "set" + capitalize(property);
+        Method found = null;
+        for (Method method : type.getMethods()) {
+            if (method.getName().equals(name) && method.getParameterCount() == 1
+                    && !Modifier.isStatic(method.getModifiers())) {
+                // Prefer the most specific overload, e.g. String over Object
+                if (found == null || found.getParameterTypes()[0].isAssignableFrom(method.getParameterTypes()[0])) {
+                    found = method;
+                }
+            }
+        }
+        return found;
+    }
+
+    private static Method getter(Class<?> type, String property) {
+        try {
+            return type.getMethod("get" + capitalize(property));
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static boolean isInstance(Element element) {
+        String name = element.getTagName();
+        return Character.isUpperCase(name.charAt(name.lastIndexOf('.') + 1));
+    }
+
+    private static List<Element> children(Element element) {
+        List<Element> children = new ArrayList<>();
+        for (Node node = element.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof Element child) {
+                children.add(child);
+            }
+        }
+        return children;
+    }
+
+    // The attributes that set properties, in document order
+    private static List<Attr> attributes(Element element) throws UnsupportedException {
+        List<Attr> attributes = new ArrayList<>();
+        NamedNodeMap map = element.getAttributes();
+        for (int i = 0; i < map.getLength(); i++) {
+            Attr attribute = (Attr) map.item(i);
+            String namespace = attribute.getNamespaceURI();
+            if (XMLNS_NAMESPACE.equals(namespace) || attribute.getName().startsWith("xmlns")) {
+                continue;
+            }
+            if (namespace != null && namespace.startsWith(FX_NAMESPACE)) {
+                String local = attribute.getLocalName();
+                if (!local.equals("id") && !local.equals("controller") && !local.equals("value")) {
+                    throw new UnsupportedException("fx:" + local);
+                }
+                continue;
+            }
+            attributes.add(attribute);
+        }
+        return attributes;
+    }
+
+    private static String fxAttribute(Element element, String name) {
+        NamedNodeMap map = element.getAttributes();
+        for (int i = 0; i < map.getLength(); i++) {
+            Attr attribute = (Attr) map.item(i);
+            String namespace = attribute.getNamespaceURI();
+            if (namespace != null && namespace.startsWith(FX_NAMESPACE) && name.equals(attribute.getLocalName())) {
+                return attribute.getValue();
+            }
+        }
+        return null;
+    }
+
+    // Declares a static final constant once, returning its name
+    private String constant(String name, String initializer, String type) {
+        constants.putIfAbsent(name, "private static final " + type + " " + name + " = " + initializer + ";");
+        return name;
+    }
+
+    // cardButton -> CARD_BUTTON, HBox1 -> H_BOX1
+    static String constantName(String name) {
+        StringBuilder constant = new StringBuilder();
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (i > 0 && Character.isUpperCase(c) && Character.isLowerCase(name.charAt(i - 1))) {
+                constant.append('_');
+            } else if (i > 0 && i + 1 < name.length() && Character.isUpperCase(c)
+                    && Character.isUpperCase(name.charAt(i - 1)) && Character.isLowerCase(name.charAt(i + 1))) {
+                constant.append('_');
+            }
+            constant.append(Character.isLetterOrDigit(c) ? Character.toUpperCase(c) : '_');
+        }
+        return constant.toString();
+    }
+
+    private void line(String format, Object... args) {
+        body.append("        ").append(String.format(format, args)).append('\n');
+    }
+
+    private String source(String className, String controllerType) {
+        StringBuilder out = new StringBuilder();
+        out.append("package ").append(PACKAGE).append(";\n\n");
+        out.append("import org.amalzen.app.ViewLoader;\n");
+        out.append("import org.amalzen.app.rendering.TextureAtlas;\n\n");
+        out.append("import java.lang.invoke.MethodHandle;\n");
+        out.append("import java.lang.invoke.VarHandle;\n\n");
+        out.append("// Generated by ViewCompiler from ").append(resourcePath).append(", do not edit\n");
+        out.append("@SuppressWarnings(\"unused\")\n");
+        out.append("public final class ").append(className).append(" {\n");
+        for (String constant : constants.values()) {
+            out.append("    ").append(constant).append('\n');
+        }
+        out.append("\n    private ").append(className).append("() {\n    }\n\n");
+        out.append("    public static ViewLoader.View<").append(controllerType).append("> build() {\n");
+        out.append(body);
+        out.append("    }\n}\n");
+        return out.toString();
+    }
+
+    private static String registry(Map<String, String> compiled) {
+        StringBuilder out = new StringBuilder();
+        out.append("package ").append(PACKAGE).append(";\n\n");
+        out.append("import org.amalzen.app.ViewLoader;\n\n");
+        out.append("// Generated by ViewCompiler, do not edit\n");
+        out.append("public final class CompiledViews {\n");
+        out.append("    private CompiledViews() {\n    }\n\n");
+        out.append("    // The view at the resource path, or null if it was not compiled\n");
+        out.append("    public static ViewLoader.View<?> build(String path) {\n");
+        out.append("        return switch (path) {\n");
+        compiled.forEach((path, className) -> out.append("            case ").append(literal(path))
+                .append(" -> ").append(className).append(".build();\n"));
+        out.append("            default -> null;\n");
+        out.append("        };\n    }\n}\n");
+        return out.toString();
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    static String literal(String value) {
+        StringBuilder out = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> out.append(c);
+            }
+        }
+        return out.append('"').toString();
+    }
+}
@@ -1,21 +1,21 @@
 module org.amalzen.app {
     requires javafx.controls;
     requires javafx.fxml;
-    requires javafx.web;
 
-    requires org.controlsfx.controls;
-    requires com.dlsc.formsfx;
-    requires net.synedra.validatorfx;
-    requires eu.hansolo.tilesfx;
     requires java.net.http;
     requires org.json;
     requires java.logging;
+    requires java.prefs;
     requires javafx.media;
     requires java.desktop;
+    requires java.management;
+    requires jdk.httpserver;
 
     opens org.amalzen.app to javafx.fxml;
     exports org.amalzen.app;
 
+    exports org.amalzen.app.preload to javafx.graphics;
+
     opens org.amalzen.app.game_room to javafx.fxml;
     exports org.amalzen.app.game_room to javafx.graphics, javafx.fxml;
 
@@ -28,6 +28,9 @@ module org.amalzen.app {
     exports org.amalzen.app.match_making;
     opens org.amalzen.app.match_making to javafx.fxml;
 
+    exports org.amalzen.app.match_history;
+    opens org.amalzen.app.match_history to javafx.fxml;
+
     exports org.amalzen.app.log_in;
     opens org.amalzen.app.log_in to javafx.fxml;
 
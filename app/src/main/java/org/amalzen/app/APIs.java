@@ -3,6 +3,8 @@ package org.amalzen.app;
 public enum APIs {
     AUTH_URL("http://%s/api/auth"),
     USER_URL("http://%s/api/users"),
+    HISTORY_URL("http://%s/api/gameHistory"),
+    TELEMETRY_URL("http://%s/api/telemetry"),
     MM_URL("ws://%s/websoc/mm"),
     GR_URL("ws://%s:/game/ws");
 
@@ -0,0 +1,204 @@
+package org.amalzen.app;
+
+import org.amalzen.app.metrics.Metrics;
+import org.amalzen.app.tracing.Span;
+import org.amalzen.app.tracing.Tracing;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The HTTP client shared by all REST calls, so they reuse pooled connections. Connections can
+ * be opened ahead of time with warm(), and GETs can be started early with prefetch() and
+ * picked up later by get().
+ */
+public class ApiClient {
+    private static final Logger LOGGER = Logger.getLogger(ApiClient.class.getName());
+    // Idle pooled connections are dropped after a while, so warming is repeated at most this often
+    private static final long WARM_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(20);
+    private static final long PREFETCH_MAX_AGE_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    private static final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private static final APIs[] REST_APIS = {APIs.AUTH_URL, APIs.USER_URL, APIs.HISTORY_URL};
+    private static final String[] REST_PREFIXES = new String[REST_APIS.length];
+
+    static {
+        for (int i = 0; i < REST_APIS.length; i++) {
+            REST_PREFIXES[i] = REST_APIS[i].getValue();
+        }
+    }
+
+    private static final AtomicLong lastWarm = new AtomicLong(System.nanoTime() - WARM_INTERVAL_NANOS);
+    private static final Map<String, Prefetched> prefetched = new ConcurrentHashMap<>();
+
+    private record Prefetched(String sessionId, long startedAt, CompletableFuture<HttpResponse<String>> response) {
+    }
+
+    public static HttpClient client() {
+        return client;
+    }
+
+    // Resolves and connects to the auth and REST hosts so the next request skips the handshake
+    public static void warm() {
+        long now = System.nanoTime();
+        long last = lastWarm.get();
+        if (now - last < WARM_INTERVAL_NANOS || !lastWarm.compareAndSet(last, now)) {
+            return;
+        }
+
+        Set<URI> origins = new LinkedHashSet<>();
+        for (APIs api : REST_APIS) {
+            URI uri = URI.create(api.getValue());
+            origins.add(URI.create(uri.getScheme() + "://" + uri.getRawAuthority() + "/"));
+        }
+        for (URI origin : origins) {
+            HttpRequest request = HttpRequest.newBuilder(origin)
+                    .timeout(REQUEST_TIMEOUT)
+                    .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                    .build();
+            // Any response will do, only the open connection matters
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .exceptionally(ex -> {
+                        LOGGER.log(Level.FINE, "Connection warm-up to " + origin + " failed", ex);
+                        return null;
+                    });
+        }
+    }
+
+    // Starts an authorized GET for the current session, to be picked up by get() soon after
+    public static void prefetch(String url) {
+        String sessionId = Main.sessionId;
+        prefetched.put(url, new Prefetched(sessionId, System.nanoTime(),
+                sendAsync(endpointOf(url), authorizedGet(url, sessionId), HttpResponse.BodyHandlers.ofString())));
+    }
+
+    /**
+     * Sends an authorized GET, reusing a recent prefetch of the same URL if there is one.
+     */
+    public static HttpResponse<String> get(String url) throws IOException, InterruptedException {
+        String sessionId = Main.sessionId;
+        Prefetched early = prefetched.remove(url);
+        if (early != null && sessionId != null && sessionId.equals(early.sessionId())
+                && System.nanoTime() - early.startedAt() < PREFETCH_MAX_AGE_NANOS) {
+            try {
+                return early.response().get();
+            } catch (ExecutionException e) {
+                LOGGER.log(Level.FINE, "Prefetch of " + url + " failed, sending again", e.getCause());
+            }
+        }
+        return send(endpointOf(url), authorizedGet(url, sessionId), HttpResponse.BodyHandlers.ofString());
+    }
+
+    // Sends a request on the shared client, recording its latency under the given endpoint
+    public static <T> HttpResponse<T> send(APIs endpoint, HttpRequest request, HttpResponse.BodyHandler<T> handler)
+            throws IOException, InterruptedException {
+        return send(endpoint, request, handler, null);
+    }
+
+    // As send, with the request traced as part of the parent span's trace
+    public static <T> HttpResponse<T> send(APIs endpoint, HttpRequest request, HttpResponse.BodyHandler<T> handler,
+                                           Span parent) throws IOException, InterruptedException {
+        Span span = startSpan(request, parent);
+        long start = System.nanoTime();
+        try {
+            HttpResponse<T> response = client.send(traced(request, span), handler);
+            record(endpoint, start, response, span);
+            return response;
+        } catch (IOException e) {
+            span.fail(e.toString());
+            record(endpoint, start, null, span);
+            throw e;
+        }
+    }
+
+    public static <T> CompletableFuture<HttpResponse<T>> sendAsync(APIs endpoint, HttpRequest request,
+                                                                  HttpResponse.BodyHandler<T> handler) {
+        return sendAsync(endpoint, request, handler, null);
+    }
+
+    public static <T> CompletableFuture<HttpResponse<T>> sendAsync(APIs endpoint, HttpRequest request,
+                                                                  HttpResponse.BodyHandler<T> handler, Span parent) {
+        Span span = startSpan(request, parent);
+        long start = System.nanoTime();
+        return client.sendAsync(traced(request, span), handler)
+                .whenComplete((response, error) -> {
+                    if (error != null) {
+                        span.fail(error.toString());
+                    }
+                    record(endpoint, start, response, span);
+                });
+    }
+
+    private static Span startSpan(HttpRequest request, Span parent) {
+        return Tracing.start(request.method() + " " + request.uri().getPath(), Span.Kind.CLIENT, parent)
+                .attribute("http.request.method", request.method())
+                .attribute("url.path", request.uri().getPath());
+    }
+
+    // The same request with the span's traceparent header in place of any earlier one
+    private static HttpRequest traced(HttpRequest request, Span span) {
+        return HttpRequest.newBuilder(request, (name, value) -> !name.equalsIgnoreCase(Tracing.HEADER))
+                .header(Tracing.HEADER, span.traceparent())
+                .build();
+    }
+
+    private static void record(APIs endpoint, long start, HttpResponse<?> response, Span span) {
+        if (response != null) {
+            span.attribute("http.response.status_code", response.statusCode());
+            if (response.statusCode() >= 500) {
+                span.fail("HTTP " + response.statusCode());
+            }
+        }
+        span.end();
+        if (endpoint == null) {
+            return;
+        }
+        Metrics.restLatency(endpoint, System.nanoTime() - start);
+        if (response == null || response.statusCode() >= 500) {
+            Metrics.restFailure(endpoint);
+        }
+    }
+
+    // The REST API a URL belongs to, or null for any other URL
+    private static APIs endpointOf(String url) {
+        for (int i = 0; i < REST_APIS.length; i++) {
+            if (url.startsWith(REST_PREFIXES[i])) {
+                return REST_APIS[i];
+            }
+        }
+        return null;
+    }
+
+    public static void clearPrefetched() {
+        prefetched.clear();
+    }
+
+    private static HttpRequest authorizedGet(String url, String sessionId) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .header("Authorization", sessionId)
+                .GET()
+                .build();
+    }
+}
@@ -1,24 +1,46 @@
 package org.amalzen.app;
 
 import javafx.application.Application;
+import javafx.application.Preloader;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.image.Image;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.media.Media;
 import javafx.scene.media.MediaPlayer;
 import javafx.stage.Stage;
+import org.amalzen.app.game_room.GameRoomController;
+import org.amalzen.app.log_in.SessionRefresher;
+import org.amalzen.app.logging.Log;
+import org.amalzen.app.metrics.FxStallWatchdog;
+import org.amalzen.app.metrics.Metrics;
+import org.amalzen.app.metrics.MetricsServer;
+import org.amalzen.app.modals.ModalManager;
+import org.amalzen.app.preload.SplashPreloader;
+import org.amalzen.app.preload.WarmUp;
+import org.amalzen.app.rendering.MemoryManager;
+import org.amalzen.app.rendering.PowerManager;
+import org.amalzen.app.rendering.RenderSettings;
+import org.amalzen.app.telemetry.Telemetry;
 
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import java.io.File;
 
 public class Main extends Application {
+    private static final Logger LOGGER = Logger.getLogger(Main.class.getName());
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+
     @FXML
     public static Scene scene;
-    public static FXMLLoader fxmlLoader;
+    // Controller of the view on the stage
+    public static Object controller;
     public static Stage primaryStage;
 
     // NOTE THESE WILL BE CHANGED TO A HASHMAP
@@ -33,10 +55,28 @@ public class Main extends Application {
 
 
 
+    // Runs on the launcher thread while the splash is shown; the rest of the warm-up
+    // carries on in the background after the login screen appears
+    @Override
+    public void init() {
+        StartupTimeline.mark("Main.init");
+        RenderSettings.init();
+        WarmUp.start(progress -> notifyPreloader(new Preloader.ProgressNotification(progress))).awaitLogin();
+        StartupTimeline.mark("login warm-up done");
+    }
+
     @Override
     public void start(Stage primaryStage) {
+        StartupTimeline.mark("Main.start");
         Main.primaryStage = primaryStage;
-        ChangeScene(ResourcePath.LOGIN.getPath());
+        PowerManager.init(primaryStage);
+        MemoryManager.start();
+        MetricsServer.monitorPulses();
+        FxStallWatchdog.start();
+        // Returning players go straight to the main menu, the stored session is checked in the background
+        ChangeScene(SessionRefresher.resumeStoredSession()
+                ? ResourcePath.MAIN_MENU.getPath()
+                : ResourcePath.LOGIN.getPath());
 
         primaryStage.setTitle("CACHE");
         primaryStage.setResizable(false);
@@ -44,29 +84,98 @@ public class Main extends Application {
         // Set the application icon
         primaryStage.getIcons().add(new Image(Objects.requireNonNull(Main.class.getResourceAsStream(ResourcePath.GAME_ICON.getPath()))));
         primaryStage.show();
+        StartupTimeline.mark("first scene shown");
+        if (scene != null) {
+            StartupTimeline.markFirstFrame(scene);
+        }
     }
 
+    /**
+     * Replaces the current scene with the view at path. The outgoing controller gets onHide
+     * before the swap; after it, the outgoing view's scope is disposed and its controller gets
+     * onDispose, then the new controller gets onShow. Call on the JavaFX thread.
+     */
     public static void ChangeScene(String path) {
-        fxmlLoader = new FXMLLoader(Main.class.getResource(path));
+        long start = System.nanoTime();
+        ViewScope previousScope = ViewScope.open(path.substring(path.lastIndexOf('/') + 1));
+        ViewLoader.View<Object> view;
         try {
-            scene = new Scene(fxmlLoader.load());
-            primaryStage.setScene(scene);
+            view = ViewLoader.load(path);
         } catch (Exception e) {
+            ViewScope.current().dispose();
+            ViewScope.restore(previousScope);
             System.err.println("Scene Error: " + e.getMessage());
+            return;
+        }
+
+        Object previousController = controller;
+        if (previousController instanceof ViewLifecycle previous) {
+            previous.onHide();
+        }
+        controller = view.controller();
+        scene = new Scene(view.root());
+        primaryStage.setScene(scene);
+        disposeView(previousController, previousScope);
+        if (controller instanceof ViewLifecycle shown) {
+            shown.onShow();
+        }
+        Metrics.SCENE_SWITCH.observeSince(start);
+    }
+
+    private static void disposeView(Object controller, ViewScope scope) {
+        try {
+            if (controller instanceof ViewLifecycle view) {
+                view.onDispose();
+            }
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "View failed to dispose: " + controller.getClass().getSimpleName(), e);
         }
+        scope.dispose();
     }
 
+    // Modals are loaded once and shown again on the view's overlay layer, see ModalManager
     public static void showModals(String path, AnchorPane rootPane) {
         try {
-            FXMLLoader loader = new FXMLLoader(Main.class.getResource(path));
-            Parent exitModalRoot = loader.load();
-            rootPane.getChildren().add(exitModalRoot);
+            ModalManager.show(path, rootPane);
         } catch (Exception e) {
             System.err.println("Modal Error: " + e.getMessage());
         }
     }
 
+    // Closes the connections of whatever view is showing when the window is closed
+    @Override
+    public void stop() {
+        if (controller != null) {
+            if (controller instanceof ViewLifecycle view) {
+                view.onHide();
+            }
+            // The game room leaves the game in the background; the quit message should go out before exit
+            if (controller instanceof GameRoomController gameRoom) {
+                awaitShutdown(gameRoom.shutdown());
+            }
+            disposeView(controller, ViewScope.current());
+        }
+    }
+
+    private static void awaitShutdown(CompletableFuture<Void> shutdown) {
+        try {
+            shutdown.get(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            LOGGER.warning("Game room did not close within " + SHUTDOWN_TIMEOUT_SECONDS + "s, exiting anyway");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOGGER.log(Level.WARNING, "Game room failed to close", e.getCause());
+        }
+    }
+
     public static void main(String[] args) {
+        StartupTimeline.mark("Main.main");
+        Log.install();
+        MetricsServer.start();
+        Telemetry.start();
+        RenderSettings.applyStartupOptions();
+        System.setProperty("javafx.preloader", SplashPreloader.class.getName());
         launch(args);
     }
 }
\ No newline at end of file
@@ -21,6 +21,12 @@ public enum ResourcePath {
 
     SOUND_ON_ICON("images/volume-on.png"),
     SOUND_OFF_ICON("images/volume-off.png"),
+    MATCH_VICTORY_ICON("images/match-victory.png"),
+    MATCH_DEFEAT_ICON("images/match-defeat.png"),
+    CARD_FACE("images/cardFront.png"),
+    CARD_BACK_EASY("images/card-easy.png"),
+    CARD_BACK_MEDIUM("images/card-medium.png"),
+    CARD_BACK_HARD("images/card-hard.png"),
 
     FLIP_CARD_EFFECT("audio/effects/flip-card-effect.mp3"),
     CORRECT_PAIR_EFFECT("audio/effects/correct-pair-effect.mp3"),
@@ -30,7 +36,9 @@ public enum ResourcePath {
 
     MATCHMAKING_MUSIC("audio/music/matchmaking-music.wav"),
     GAME_ROOM_MUSIC("audio/music/game-room-music.wav"),
-    MAIN_MENU_MUSIC("audio/music/main-menu-music.wav");
+    MAIN_MENU_MUSIC("audio/music/main-menu-music.wav"),
+
+    PRACTICE_DECK("data/cards.json");
 
 
 
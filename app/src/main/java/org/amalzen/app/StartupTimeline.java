@@ -0,0 +1,57 @@
+package org.amalzen.app;
+
+import javafx.application.Platform;
+import javafx.scene.Scene;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Records how long the client takes to become usable, measured from JVM start.
+ * The timeline is logged with -Dcache.startup.report=true. With -Dcache.training=true the
+ * client exits right after its first interactive frame, which is the training run used to
+ * record a class-data-sharing archive (see doc/dist.md).
+ */
+public class StartupTimeline {
+    private static final Logger LOGGER = Logger.getLogger(StartupTimeline.class.getName());
+    private static final boolean REPORT = Boolean.getBoolean("cache.startup.report");
+    private static final boolean TRAINING = Boolean.getBoolean("cache.training");
+
+    private static final long JVM_START = ProcessHandle.current().info().startInstant()
+            .map(Instant::toEpochMilli)
+            .orElse(System.currentTimeMillis());
+    private static final Map<String, Long> marks = new LinkedHashMap<>();
+
+    public static synchronized void mark(String phase) {
+        marks.putIfAbsent(phase, System.currentTimeMillis() - JVM_START);
+    }
+
+    // Marks the first pulse after the scene is shown, then reports
+    public static void markFirstFrame(Scene scene) {
+        Runnable[] listener = new Runnable[1];
+        listener[0] = () -> {
+            mark("first interactive frame");
+            Platform.runLater(() -> scene.removePostLayoutPulseListener(listener[0]));
+            report();
+
+            if (TRAINING) {
+                LOGGER.info("Training run finished, exiting");
+                Platform.exit();
+            }
+        };
+        scene.addPostLayoutPulseListener(listener[0]);
+    }
+
+    private static synchronized void report() {
+        if (!REPORT && !TRAINING) {
+            return;
+        }
+
+        StringBuilder timeline = new StringBuilder("Startup timeline (ms since JVM start):");
+        timeline.append(String.format("%n  %-26s %6d", "JVM start", 0));
+        marks.forEach((phase, elapsed) -> timeline.append(String.format("%n  %-26s %6d", phase, elapsed)));
+        LOGGER.info(timeline.toString());
+    }
+}
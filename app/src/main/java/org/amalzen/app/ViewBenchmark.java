@@ -0,0 +1,98 @@
+package org.amalzen.app;
+
+import javafx.application.Platform;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Measures how long views take to build through FXMLLoader or through the compiled view
+ * classes. Run it once per mode, each in a fresh JVM, so the first-use times include class
+ * loading the way they do when the app starts:
+ *
+ * <pre>
+ * ViewBenchmark fxml [iterations]          200 by default
+ * ViewBenchmark compiled [iterations]
+ * </pre>
+ *
+ * Only views whose controllers do nothing outside the view when created are built, so no
+ * music starts and no server is needed.
+ */
+public class ViewBenchmark {
+    private static final List<ResourcePath> VIEWS = List.of(ResourcePath.CARD, ResourcePath.LEADERBOARD_COMPONENT,
+            ResourcePath.EXIT_MODAL, ResourcePath.LOGOUT_MODAL, ResourcePath.SETTINGS_MODAL,
+            ResourcePath.GAME_OVER_MODAL, ResourcePath.INSTRUCTION);
+
+    private interface Builder {
+        ViewLoader.View<Object> build(String path) throws IOException;
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean compiled = args.length > 0 && args[0].equals("compiled");
+        if (args.length == 0 || !compiled && !args[0].equals("fxml")) {
+            System.err.println("Usage: ViewBenchmark fxml|compiled [iterations]");
+            System.exit(2);
+        }
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        if (compiled && !ViewLoader.isCompiled()) {
+            System.err.println("No compiled views on the class path, build with mvn compile first");
+            System.exit(1);
+        }
+        Logger.getLogger("org.amalzen.app").setLevel(Level.WARNING);
+        Builder builder = compiled ? ViewLoader::loadCompiled : ViewLoader::loadFxml;
+
+        CompletableFuture<Void> started = new CompletableFuture<>();
+        Platform.startup(() -> started.complete(null));
+        started.join();
+
+        System.out.printf("%-40s %12s %12s%n", (compiled ? "compiled" : "fxml") + ", " + iterations + " builds",
+                "first ms", "average us");
+        try {
+            for (ResourcePath view : VIEWS) {
+                long[] times = onFxThread(() -> time(builder, view.getPath(), iterations));
+                System.out.printf("%-40s %12.2f %12.1f%n", view.name(), times[0] / 1e6, times[1] / 1e3);
+            }
+        } finally {
+            // The JavaFX thread would keep the JVM running after a view fails to build
+            Platform.exit();
+        }
+    }
+
+    // Nanoseconds for the first build and the average of the ones after it
+    private static long[] time(Builder builder, String path, int iterations) throws IOException {
+        long start = System.nanoTime();
+        check(builder.build(path), path);
+        long first = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            check(builder.build(path), path);
+        }
+        return new long[]{first, (System.nanoTime() - start) / Math.max(1, iterations)};
+    }
+
+    private static void check(ViewLoader.View<Object> view, String path) {
+        if (view == null || view.root() == null) {
+            throw new IllegalStateException("Nothing built for " + path);
+        }
+    }
+
+    private interface Work<T> {
+        T run() throws Exception;
+    }
+
+    private static <T> T onFxThread(Work<T> work) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                result.complete(work.run());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result.join();
+    }
+}
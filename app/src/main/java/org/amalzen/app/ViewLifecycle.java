@@ -0,0 +1,18 @@
+package org.amalzen.app;
+
+/**
+ * Implemented by view controllers that want to hear about their scene coming and going.
+ * {@link Main#ChangeScene} calls onShow once the scene is on the stage, onHide just before it
+ * is replaced and onDispose once it is gone for good, which is the place to close sockets and
+ * stop anything not tracked in the view's {@link ViewScope}. All three run on the JavaFX thread.
+ */
+public interface ViewLifecycle {
+    default void onShow() {
+    }
+
+    default void onHide() {
+    }
+
+    default void onDispose() {
+    }
+}
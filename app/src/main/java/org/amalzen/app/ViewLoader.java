@@ -0,0 +1,232 @@
+package org.amalzen.app;
+
+import javafx.event.Event;
+import javafx.event.EventHandler;
+import javafx.fxml.FXML;
+import javafx.fxml.FXMLLoader;
+import javafx.fxml.Initializable;
+import javafx.fxml.JavaFXBuilderFactory;
+import javafx.fxml.LoadException;
+import javafx.scene.Parent;
+import javafx.scene.image.Image;
+import javafx.util.BuilderFactory;
+import org.amalzen.app.rendering.TextureAtlas;
+import org.amalzen.app.rendering.ViewImageBuilder;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ResourceBundle;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Builds views. The FXML views are compiled to Java at build time (see ViewCompiler under
+ * src/build) and built by the generated classes in org.amalzen.app.views; views that were not
+ * compiled, or all of them when started with -Dcache.views.compiled=false, are loaded by
+ * FXMLLoader as before. The helpers at the bottom are used by the generated classes to reach
+ * controller fields and methods the way FXMLLoader would.
+ */
+public class ViewLoader {
+    private static final Logger LOGGER = Logger.getLogger(ViewLoader.class.getName());
+    private static final BuilderFactory DEFAULT_BUILDERS = new JavaFXBuilderFactory();
+    private static final BuilderFactory BUILDERS = type ->
+            type == Image.class ? new ViewImageBuilder() : DEFAULT_BUILDERS.getBuilder(type);
+    private static final MethodHandle COMPILED = compiledViews();
+
+    public record View<T>(Parent root, T controller) {
+    }
+
+    /**
+     * Builds the view at path with its controller.
+     *
+     * @param path resource path of the FXML view, see ResourcePath
+     */
+    public static <T> View<T> load(String path) throws IOException {
+        View<T> view = loadCompiled(path);
+        return view != null ? view : loadFxml(path);
+    }
+
+    // All FXML views are loaded through here so image decoding follows the render settings
+    public static FXMLLoader loader(String path) {
+        FXMLLoader loader = new FXMLLoader(Main.class.getResource(path));
+        loader.setBuilderFactory(BUILDERS);
+        return loader;
+    }
+
+    static <T> View<T> loadFxml(String path) throws IOException {
+        FXMLLoader loader = loader(path);
+        Parent root = loader.load();
+        TextureAtlas.resolve(root);
+        return new View<>(root, loader.getController());
+    }
+
+    // The compiled view, or null if there is none
+    @SuppressWarnings("unchecked")
+    static <T> View<T> loadCompiled(String path) throws IOException {
+        if (COMPILED == null) {
+            return null;
+        }
+        try {
+            View<T> view = (View<T>) (View<?>) COMPILED.invokeExact(path);
+            if (view != null) {
+                TextureAtlas.resolve(view.root());
+            }
+            return view;
+        } catch (Error | IOException e) {
+            throw e;
+        } catch (Throwable e) {
+            // Thrown the same way FXMLLoader reports a failing controller
+            throw new LoadException(path, e);
+        }
+    }
+
+    static boolean isCompiled() {
+        return COMPILED != null;
+    }
+
+    private static MethodHandle compiledViews() {
+        if (!Boolean.parseBoolean(System.getProperty("cache.views.compiled", "true"))) {
+            LOGGER.info("Compiled views turned off, loading FXML");
+            return null;
+        }
+        try {
+            Class<?> views = Class.forName("org.amalzen.app.views.CompiledViews");
+            return MethodHandles.lookup().findStatic(views, "build", MethodType.methodType(View.class, String.class));
+        } catch (ClassNotFoundException e) {
+            // Built without the generate-sources step, for instance by an IDE
+            LOGGER.info("No compiled views, loading FXML");
+            return null;
+        } catch (ReflectiveOperationException e) {
+            LOGGER.log(Level.WARNING, "Compiled views unusable, loading FXML", e);
+            return null;
+        }
+    }
+
+    // Absolute URL of a resource, as FXMLLoader resolves "@" locations
+    public static String url(String path) {
+        URL resource = Main.class.getResource(path);
+        if (resource != null) {
+            return resource.toExternalForm();
+        }
+        // Like FXMLLoader, the file need not exist; packed images are only in the texture atlas
+        String base = "/" + Main.class.getPackageName().replace('.', '/') + "/";
+        if (!path.startsWith(base)) {
+            throw new IllegalArgumentException("No resource " + path);
+        }
+        String relative = path.substring(base.length());
+        try {
+            URI main = Main.class.getResource("Main.class").toURI();
+            if (main.isOpaque()) {
+                // A jar: URI does not resolve relative paths, so the entry name is resolved on its own
+                String entry = main.toString();
+                return entry.substring(0, entry.lastIndexOf('/') + 1) + relative;
+            }
+            return main.resolve(relative).toString();
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("No resource " + path, e);
+        }
+    }
+
+    // The controller field an fx:id is injected into, or null if FXMLLoader would not inject it
+    public static VarHandle field(Class<?> controller, String name) {
+        for (Class<?> type = controller; type != null && type != Object.class; type = type.getSuperclass()) {
+            try {
+                Field field = type.getDeclaredField(name);
+                if (Modifier.isStatic(field.getModifiers()) || !isFxml(field.getModifiers(), field.isAnnotationPresent(FXML.class))) {
+                    return null;
+                }
+                return MethodHandles.privateLookupIn(type, MethodHandles.lookup()).unreflectVarHandle(field);
+            } catch (NoSuchFieldException e) {
+                // Look in the superclass
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot inject " + controller.getName() + "." + name, e);
+            }
+        }
+        return null;
+    }
+
+    // The controller's initialize(), or null if it has none FXMLLoader would call
+    public static MethodHandle initializer(Class<?> controller) {
+        MethodHandle initialize;
+        if (Initializable.class.isAssignableFrom(controller)) {
+            try {
+                initialize = MethodHandles.insertArguments(MethodHandles.publicLookup().findVirtual(Initializable.class,
+                        "initialize", MethodType.methodType(void.class, URL.class, ResourceBundle.class)), 1, null, null);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        } else {
+            initialize = method(controller, "initialize", false);
+        }
+        return initialize != null ? initialize.asType(MethodType.methodType(void.class, Object.class)) : null;
+    }
+
+    // A "#name" event handler method, taking the event or nothing
+    public static MethodHandle eventHandler(Class<?> controller, String name) {
+        MethodHandle handler = method(controller, name, true);
+        if (handler == null) {
+            throw new IllegalStateException("No event handler " + controller.getName() + "." + name);
+        }
+        if (handler.type().parameterCount() == 1) {
+            handler = MethodHandles.dropArguments(handler, 1, Event.class);
+        }
+        return handler.asType(MethodType.methodType(void.class, Object.class, Event.class));
+    }
+
+    public static <E extends Event> EventHandler<E> handler(MethodHandle handler, Object controller) {
+        return event -> {
+            try {
+                handler.invokeExact(controller, (Event) event);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new RuntimeException(e);
+            }
+        };
+    }
+
+    public static void initialize(MethodHandle initializer, Object controller) {
+        if (initializer == null) {
+            return;
+        }
+        try {
+            initializer.invokeExact(controller);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static MethodHandle method(Class<?> controller, String name, boolean takesEvent) {
+        for (Class<?> type = controller; type != null && type != Object.class; type = type.getSuperclass()) {
+            for (Method method : type.getDeclaredMethods()) {
+                boolean parameters = method.getParameterCount() == 0 || takesEvent && method.getParameterCount() == 1
+                        && Event.class.isAssignableFrom(method.getParameterTypes()[0]);
+                if (method.getName().equals(name) && parameters && !Modifier.isStatic(method.getModifiers())
+                        && isFxml(method.getModifiers(), method.isAnnotationPresent(FXML.class))) {
+                    try {
+                        return MethodHandles.privateLookupIn(type, MethodHandles.lookup()).unreflect(method);
+                    } catch (IllegalAccessException e) {
+                        throw new IllegalStateException("Cannot call " + controller.getName() + "." + name, e);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    // FXMLLoader only touches members that are public or annotated with @FXML
+    private static boolean isFxml(int modifiers, boolean annotated) {
+        return annotated || Modifier.isPublic(modifiers);
+    }
+}
@@ -0,0 +1,101 @@
+package org.amalzen.app;
+
+import javafx.animation.Animation;
+import javafx.animation.AnimationTimer;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import org.amalzen.app.logging.Log;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Everything a scene started that would outlive it: running animations and timers, listeners
+ * on objects that are not part of the scene, and open connections. {@link Main#ChangeScene}
+ * opens a scope before loading a view, so controllers register with {@link #current()} while
+ * they initialize, and disposes it once the scene has been replaced. Disposal runs in reverse
+ * order of registration. Only used on the JavaFX thread.
+ */
+public final class ViewScope {
+    private static final Logger LOGGER = Logger.getLogger(ViewScope.class.getName());
+
+    // Views loaded outside ChangeScene, such as by the dev tools, share this one; it is never disposed
+    private static ViewScope current = new ViewScope("app");
+
+    private final String name;
+    private final Deque<Runnable> disposers = new ArrayDeque<>();
+    private boolean disposed = false;
+
+    private ViewScope(String name) {
+        this.name = name;
+    }
+
+    public static ViewScope current() {
+        return current;
+    }
+
+    // Makes a new scope current and returns the one it replaces
+    static ViewScope open(String name) {
+        ViewScope previous = current;
+        current = new ViewScope(name);
+        return previous;
+    }
+
+    static void restore(ViewScope scope) {
+        current = scope;
+    }
+
+    public <T extends Animation> T track(T animation) {
+        onDispose(animation::stop);
+        return animation;
+    }
+
+    public <T extends AnimationTimer> T track(T timer) {
+        onDispose(timer::stop);
+        return timer;
+    }
+
+    public <T extends AutoCloseable> T track(T resource) {
+        onDispose(() -> {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Failed to close " + resource + " with view " + name, e);
+            }
+        });
+        return resource;
+    }
+
+    // Adds a listener to something that outlives the view and removes it again on disposal
+    public <T> void listen(ObservableValue<T> value, ChangeListener<? super T> listener) {
+        value.addListener(listener);
+        onDispose(() -> value.removeListener(listener));
+    }
+
+    public void onDispose(Runnable disposer) {
+        if (disposed) {
+            // Registered by a callback that arrived after the view was gone
+            disposer.run();
+            return;
+        }
+        disposers.push(disposer);
+    }
+
+    void dispose() {
+        if (disposed) {
+            return;
+        }
+        disposed = true;
+        int count = disposers.size();
+        while (!disposers.isEmpty()) {
+            try {
+                disposers.pop().run();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Failed to dispose part of view " + name, e);
+            }
+        }
+        Log.fine(LOGGER, "View disposed", "view", name, "disposed", count);
+    }
+}
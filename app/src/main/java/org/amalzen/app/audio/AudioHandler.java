@@ -5,6 +5,7 @@ import javafx.scene.media.Media;
 import javafx.scene.media.MediaException;
 import javafx.scene.media.MediaPlayer;
 import org.amalzen.app.Main;
+import org.amalzen.app.metrics.Metrics;
 
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.Mixer;
@@ -14,8 +15,11 @@ public class AudioHandler {
     private static MediaPlayer musicPlayer, effectPlayer;
     private static String currentMusic, currentEffect;
     private static boolean audioOutputAlerted = false;
+    private static volatile Boolean audioOutputAvailable;
     private static boolean musicMuted = false;
     private static boolean effectsMuted = false;
+    private static boolean musicSuspended = false;
+    private static boolean musicReleased = false;
     private static double musicVolume = 0.1;
     private static double effectsVolume = 0.3;
 
@@ -78,11 +82,22 @@ public class AudioHandler {
                 System.err.println("Unknown audio type for path: " + path);
             }
         } catch (Exception e) {
+            Metrics.AUDIO_FAILURES.inc();
             System.err.println("Failed to play music: " + e.getMessage());
         }
     }
 
-    private static boolean isAudioOutputAvailable() {
+    // Enumerating mixers is slow, so it is done once (normally during start-up warm-up)
+    public static boolean isAudioOutputAvailable() {
+        Boolean available = audioOutputAvailable;
+        if (available == null) {
+            available = detectAudioOutput();
+            audioOutputAvailable = available;
+        }
+        return available;
+    }
+
+    private static boolean detectAudioOutput() {
         Mixer.Info[] mixers = AudioSystem.getMixerInfo();
         for (Mixer.Info mixerInfo : mixers) {
             Mixer mixer = AudioSystem.getMixer(mixerInfo);
@@ -112,6 +127,7 @@ public class AudioHandler {
 
         player.setOnError(() -> {
             MediaException error = player.getError();
+            Metrics.AUDIO_FAILURES.inc();
             System.err.println("Error playing audio: " + error.getMessage());
             handleAudioError(error);
         });
@@ -137,6 +153,51 @@ public class AudioHandler {
         }
     }
 
+    // Pauses looping music while the window is hidden, see PowerManager
+    public static void pauseMusic() {
+        if (musicPlayer != null && musicPlayer.getStatus() == MediaPlayer.Status.PLAYING) {
+            musicPlayer.pause();
+            musicSuspended = true;
+        }
+    }
+
+    public static void resumeMusic() {
+        if (musicReleased) {
+            // Disposed under memory pressure while paused, start it again from the top
+            musicReleased = false;
+            String music = currentMusic;
+            currentMusic = null;
+            playSound(music);
+        } else if (musicSuspended && musicPlayer != null && musicPlayer.getStatus() == MediaPlayer.Status.PAUSED) {
+            musicPlayer.play();
+        }
+        musicSuspended = false;
+    }
+
+    /**
+     * Disposes players that are not making a sound, releasing their native decoders and
+     * buffers: an effect that has finished and music paused while the window is hidden,
+     * which resumeMusic() then reloads. Called under memory pressure, on the JavaFX thread.
+     *
+     * @return the number of players disposed
+     */
+    public static int releaseIdlePlayers() {
+        int released = 0;
+        if (effectPlayer != null && !isSounding(effectPlayer)) {
+            stopAudio(effectPlayer);
+            effectPlayer = null;
+            currentEffect = null;
+            released++;
+        }
+        if (musicSuspended && musicPlayer != null && currentMusic != null) {
+            stopAudio(musicPlayer);
+            musicPlayer = null;
+            musicReleased = true;
+            released++;
+        }
+        return released;
+    }
+
     public static void stopMusic() {
         stopAudio(musicPlayer);
         currentMusic = null;
@@ -163,4 +224,14 @@ public class AudioHandler {
     public static boolean isEffectPlaying() {
         return effectPlayer != null && effectPlayer.getStatus() == MediaPlayer.Status.PLAYING;
     }
+
+    // Playing or about to; a player stays PLAYING at the end of its last cycle, so the position is checked too
+    private static boolean isSounding(MediaPlayer player) {
+        return switch (player.getStatus()) {
+            case UNKNOWN, READY, STALLED -> true;
+            case PLAYING -> player.getStopTime().isUnknown()
+                    || player.getCurrentTime().lessThan(player.getStopTime());
+            default -> false;
+        };
+    }
 }
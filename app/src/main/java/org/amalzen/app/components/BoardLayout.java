@@ -0,0 +1,62 @@
+package org.amalzen.app.components;
+
+import org.amalzen.app.ResourcePath;
+
+/**
+ * Grid and card art of a board with a given number of cards. The difficulty tier follows the
+ * card count and picks the card back; the grid is the one giving the largest cards in the
+ * board area.
+ */
+public record BoardLayout(int cards, int rows, int columns, Tier tier) {
+    // Width over height of the card artwork
+    static final double CARD_ASPECT = 243.0 / 338.0;
+
+    public enum Tier {
+        EASY(16, ResourcePath.CARD_BACK_EASY),
+        MEDIUM(36, ResourcePath.CARD_BACK_MEDIUM),
+        HARD(Integer.MAX_VALUE, ResourcePath.CARD_BACK_HARD);
+
+        private final int maxCards;
+        private final ResourcePath back;
+
+        Tier(int maxCards, ResourcePath back) {
+            this.maxCards = maxCards;
+            this.back = back;
+        }
+
+        public static Tier of(int cards) {
+            for (Tier tier : values()) {
+                if (cards <= tier.maxCards) {
+                    return tier;
+                }
+            }
+            return HARD;
+        }
+
+        // The art on the face-down side
+        public ResourcePath back() {
+            return back;
+        }
+    }
+
+    /**
+     * Lays out cards in an area of the given size. Sixteen cards in the game room's board area
+     * come out as the original two rows of eight.
+     */
+    public static BoardLayout of(int cards, double width, double height) {
+        if (cards <= 0) {
+            throw new IllegalArgumentException("A board needs cards, got " + cards);
+        }
+        int bestColumns = 1;
+        double bestWidth = 0;
+        for (int columns = 1; columns <= cards; columns++) {
+            int rows = (cards + columns - 1) / columns;
+            double cardWidth = Math.min(width / columns, height / rows * CARD_ASPECT);
+            if (cardWidth > bestWidth) {
+                bestWidth = cardWidth;
+                bestColumns = columns;
+            }
+        }
+        return new BoardLayout(cards, (cards + bestColumns - 1) / bestColumns, bestColumns, Tier.of(cards));
+    }
+}
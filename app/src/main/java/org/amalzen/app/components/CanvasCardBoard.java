@@ -0,0 +1,322 @@
+package org.amalzen.app.components;
+
+import javafx.animation.AnimationTimer;
+import javafx.animation.Interpolator;
+import javafx.geometry.Rectangle2D;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextAlignment;
+import org.amalzen.app.Main;
+import org.amalzen.app.ResourcePath;
+import org.amalzen.app.ViewScope;
+import org.amalzen.app.rendering.RenderSettings;
+import org.amalzen.app.rendering.TextureAtlas;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Draws every card of a board on one Canvas, for boards too large to keep a node subtree per
+ * card. The canvas keeps what was drawn on it, so only cards that changed are painted again:
+ * a flipping card's cell is cleared and redrawn each frame until it comes to rest, and the
+ * frame timer stops once nothing moves. The work per frame follows the cards in motion, not
+ * the size of the board. A click is mapped to its card from the grid position.
+ *
+ * <p>The flip is the horizontal squash the node cards use in low-power mode, with the face
+ * swapped while the card is edge-on.
+ */
+public final class CanvasCardBoard implements CardBoard {
+    private static final long HALF_FLIP_NANOS = 300_000_000L;
+    // Space kept free around each card, as a fraction of its cell
+    private static final double MARGIN = 0.04;
+    private static final String FONT_FAMILY = "Girassol Regular";
+    // Share of the card's width the text may use
+    private static final double TEXT_WIDTH = 0.7;
+
+    private final BoardLayout layout;
+    private final Canvas canvas;
+    private final GraphicsContext graphics;
+    // Regions of the atlas page the cards are on, or whole images when they were not packed
+    private final TextureAtlas.Region back;
+    private final TextureAtlas.Region face;
+    private final double cellWidth;
+    private final double cellHeight;
+    private final double cardWidth;
+    private final double cardHeight;
+
+    private final boolean[] flipped;
+    private final boolean[] swapped;
+    // Frame time a flip started at, 0 until its first frame
+    private final long[] flipStart;
+    private final String[][] lines;
+    private final Font[] fonts;
+    private final BitSet turning = new BitSet();
+    private final BitSet dirty = new BitSet();
+    private AnimationTimer timer;
+    private boolean timerRunning = false;
+    private long lastDrawNanos = 0;
+    private IntConsumer onCardClicked = index -> {
+    };
+
+    /**
+     * @param width  width of the board area
+     * @param height height of the board area
+     * @param scope  the view the board belongs to, which stops the frame timer when it closes
+     */
+    public static CanvasCardBoard create(BoardLayout layout, double width, double height, ViewScope scope) {
+        CanvasCardBoard board = new CanvasCardBoard(layout, width, height);
+        board.attach(scope);
+        return board;
+    }
+
+    private CanvasCardBoard(BoardLayout layout, double width, double height) {
+        this.layout = layout;
+        canvas = new Canvas(width, height);
+        graphics = canvas.getGraphicsContext2D();
+        back = region(layout.tier().back().getPath());
+        face = region(ResourcePath.CARD_FACE.getPath());
+
+        cellWidth = width / layout.columns();
+        cellHeight = height / layout.rows();
+        double fitWidth = cellWidth * (1 - 2 * MARGIN);
+        double fitHeight = cellHeight * (1 - 2 * MARGIN);
+        cardWidth = Math.min(fitWidth, fitHeight * BoardLayout.CARD_ASPECT);
+        cardHeight = cardWidth / BoardLayout.CARD_ASPECT;
+
+        int cards = layout.cards();
+        flipped = new boolean[cards];
+        swapped = new boolean[cards];
+        flipStart = new long[cards];
+        lines = new String[cards][];
+        fonts = new Font[cards];
+    }
+
+    // Hooks up the frame timer and clicks once the board is built, and draws every card
+    private void attach(ViewScope scope) {
+        timer = scope.track(new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                frame(now);
+            }
+        });
+        canvas.setOnMouseClicked(event -> {
+            int index = cardAt(event.getX(), event.getY());
+            if (index >= 0) {
+                onCardClicked.accept(index);
+            }
+        });
+        dirty.set(0, layout.cards());
+        schedule();
+    }
+
+    public Canvas canvas() {
+        return canvas;
+    }
+
+    public BoardLayout layout() {
+        return layout;
+    }
+
+    // How long the last frame's drawing took, for measuring
+    public long lastDrawNanos() {
+        return lastDrawNanos;
+    }
+
+    @Override
+    public CanvasCardBoard onCardClicked(IntConsumer handler) {
+        this.onCardClicked = handler;
+        return this;
+    }
+
+    @Override
+    public void setLabel(int index, String text) {
+        String value = text != null ? text : "";
+        // Longer texts get smaller type, as on the node cards
+        double size = cardHeight * (value.length() <= 15 ? 0.085 : value.length() <= 40 ? 0.075 : 0.065);
+        fonts[index] = Font.font(FONT_FAMILY, size);
+        lines[index] = wrap(value, fonts[index], cardWidth * TEXT_WIDTH);
+        if (flipped[index]) {
+            invalidate(index);
+        }
+    }
+
+    @Override
+    public void flip(int index) {
+        if (turning.get(index)) {
+            return;
+        }
+        turning.set(index);
+        swapped[index] = false;
+        flipStart[index] = 0;
+        invalidate(index);
+    }
+
+    @Override
+    public boolean isFlipped(int index) {
+        return flipped[index];
+    }
+
+    @Override
+    public int size() {
+        return layout.cards();
+    }
+
+    /**
+     * The card at a point on the canvas, or -1 for the space between cards and for a card that
+     * is turning over, which does not take clicks.
+     */
+    int cardAt(double x, double y) {
+        int column = (int) Math.floor(x / cellWidth);
+        int row = (int) Math.floor(y / cellHeight);
+        if (column < 0 || column >= layout.columns() || row < 0 || row >= layout.rows()) {
+            return -1;
+        }
+        int index = row * layout.columns() + column;
+        if (index >= layout.cards() || turning.get(index)) {
+            return -1;
+        }
+        double centerX = (column + 0.5) * cellWidth;
+        double centerY = (row + 0.5) * cellHeight;
+        return Math.abs(x - centerX) <= cardWidth / 2 && Math.abs(y - centerY) <= cardHeight / 2 ? index : -1;
+    }
+
+    private void invalidate(int index) {
+        dirty.set(index);
+        schedule();
+    }
+
+    private void schedule() {
+        if (!timerRunning) {
+            timerRunning = true;
+            timer.start();
+        }
+    }
+
+    private void frame(long now) {
+        long start = System.nanoTime();
+        for (int i = turning.nextSetBit(0); i >= 0; i = turning.nextSetBit(i + 1)) {
+            if (flipStart[i] == 0) {
+                flipStart[i] = now;
+            }
+            long elapsed = now - flipStart[i];
+            if (elapsed >= HALF_FLIP_NANOS && !swapped[i]) {
+                swapped[i] = true;
+                flipped[i] = !flipped[i];
+                CardComponent.playFlipSound();
+            }
+            if (elapsed >= 2 * HALF_FLIP_NANOS) {
+                turning.clear(i);
+            }
+            dirty.set(i);
+        }
+        for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+            draw(i, now);
+        }
+        dirty.clear();
+        lastDrawNanos = System.nanoTime() - start;
+
+        if (turning.isEmpty()) {
+            timer.stop();
+            timerRunning = false;
+        }
+    }
+
+    private void draw(int index, long now) {
+        int column = index % layout.columns();
+        int row = index / layout.columns();
+        double x = column * cellWidth;
+        double y = row * cellHeight;
+        graphics.clearRect(x, y, cellWidth, cellHeight);
+
+        double squash = squash(index, now);
+        if (squash <= 0.01) {
+            return;
+        }
+        graphics.save();
+        graphics.translate(x + cellWidth / 2, y + cellHeight / 2);
+        graphics.scale(squash, 1);
+        if (flipped[index]) {
+            draw(face);
+            drawText(index);
+        } else {
+            draw(back);
+        }
+        graphics.restore();
+    }
+
+    // Horizontal scale of the card: narrowing to edge-on over the first half of a flip, then widening
+    private double squash(int index, long now) {
+        if (!turning.get(index)) {
+            return 1;
+        }
+        double t = Math.min(2, (double) (now - flipStart[index]) / HALF_FLIP_NANOS);
+        return t < 1 ? Interpolator.EASE_IN.interpolate(1.0, 0.0, t) : Interpolator.EASE_OUT.interpolate(0.0, 1.0, t - 1);
+    }
+
+    private void drawText(int index) {
+        String[] text = lines[index];
+        if (text == null || text.length == 0) {
+            return;
+        }
+        Font font = fonts[index];
+        double lineHeight = font.getSize() * 1.2;
+        graphics.setFont(font);
+        graphics.setFill(Color.BLACK);
+        graphics.setTextAlign(TextAlignment.CENTER);
+        graphics.setTextBaseline(VPos.CENTER);
+        double top = -lineHeight * (text.length - 1) / 2;
+        for (int i = 0; i < text.length; i++) {
+            graphics.fillText(text[i], 0, top + i * lineHeight);
+        }
+    }
+
+    // Breaks text into lines no wider than width, measured once when the label is set
+    private static String[] wrap(String text, Font font, double width) {
+        Text measure = new Text();
+        measure.setFont(font);
+        List<String> result = new ArrayList<>();
+        StringBuilder line = new StringBuilder();
+        for (String word : text.trim().split("\\s+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            String candidate = line.isEmpty() ? word : line + " " + word;
+            measure.setText(candidate);
+            if (measure.getLayoutBounds().getWidth() <= width || line.isEmpty()) {
+                line.setLength(0);
+                line.append(candidate);
+            } else {
+                result.add(line.toString());
+                line.setLength(0);
+                line.append(word);
+            }
+        }
+        if (!line.isEmpty()) {
+            result.add(line.toString());
+        }
+        return result.toArray(new String[0]);
+    }
+
+    // Centered on the card being drawn
+    private void draw(TextureAtlas.Region region) {
+        Rectangle2D source = region.viewport();
+        graphics.drawImage(region.page(), source.getMinX(), source.getMinY(), source.getWidth(), source.getHeight(),
+                -cardWidth / 2, -cardHeight / 2, cardWidth, cardHeight);
+    }
+
+    private static TextureAtlas.Region region(String path) {
+        TextureAtlas.Region region = TextureAtlas.region(path);
+        if (region != null) {
+            return region;
+        }
+        Image image = RenderSettings.loadImage(Main.class.getResource(path).toExternalForm(), 0, 0, false, false, false);
+        return new TextureAtlas.Region(image, new Rectangle2D(0, 0, image.getWidth(), image.getHeight()), 1);
+    }
+}
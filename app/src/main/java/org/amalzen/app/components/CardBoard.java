@@ -0,0 +1,23 @@
+package org.amalzen.app.components;
+
+import java.util.function.IntConsumer;
+
+/**
+ * The cards of a game room, addressed by their index on the board. Implemented by a node per
+ * card (NodeCardBoard in the game room) and by {@link CanvasCardBoard}, which draws every card
+ * on one canvas. Only used on the JavaFX thread.
+ */
+public interface CardBoard {
+    // Called with the index of a card the player clicked, unless it is turning over
+    CardBoard onCardClicked(IntConsumer handler);
+
+    void setLabel(int index, String text);
+
+    // Turns the card over, ignored while it is already turning
+    void flip(int index);
+
+    // Whether the card shows its text, which changes halfway through a flip
+    boolean isFlipped(int index);
+
+    int size();
+}
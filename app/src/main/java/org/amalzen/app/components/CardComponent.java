@@ -1,7 +1,6 @@
 package org.amalzen.app.components;
 
 import javafx.animation.ParallelTransition;
-import javafx.animation.RotateTransition;
 import javafx.animation.ScaleTransition;
 import javafx.animation.TranslateTransition;
 import javafx.fxml.FXML;
@@ -13,7 +12,6 @@ import javafx.scene.image.ImageView;
 import javafx.scene.layout.StackPane;
 import javafx.scene.media.AudioClip;
 import javafx.scene.text.Font;
-import javafx.scene.transform.Rotate;
 import javafx.util.Duration;
 import org.amalzen.app.ResourcePath;
 
@@ -39,8 +37,10 @@ public class CardComponent {
     private boolean isFlipping = false;
     private boolean isZoomed = false;
     private int cardId = 0;
+    private CardFlipAnimator flipAnimator;
 
     private static int flippedCardCount = 0;
+    private static AudioClip flipSound;
     private static final int MAX_FLIPPED_CARDS = 2;
 
     // Store original position and scale for reset
@@ -51,6 +51,10 @@ public class CardComponent {
     @FXML
     private void initialize() {
         cardLabel.setVisible(false);
+        flipAnimator = new CardFlipAnimator(cardStackPane, this::showFlippedFace, () -> {
+            isFlipping = false;
+            cardButton.setDisable(false); // Re-enable the button
+        });
     }
 
     public void setCardId(int id) {
@@ -62,64 +66,49 @@ public class CardComponent {
     }
 
     public void flipCard() {
-        cardLabel.setVisible(true);
-
         if (isFlipping) return;
         isFlipping = true;
         cardButton.setDisable(true); // Disable the button
 
-        RotateTransition rotateOut = new RotateTransition(Duration.millis(300), cardFaces);
-        rotateOut.setAxis(Rotate.Y_AXIS);
-        rotateOut.setFromAngle(0);
-        rotateOut.setToAngle(90);
-
-        RotateTransition rotateLabelOut = new RotateTransition(Duration.millis(300), cardLabel);
-        rotateLabelOut.setAxis(Rotate.Y_AXIS);
-        rotateLabelOut.setFromAngle(0);
-        rotateLabelOut.setToAngle(90);
+        flipAnimator.play();
+    }
 
-        AudioClip flipSound = new AudioClip(getClass().getResource(ResourcePath.FLIP_CARD_EFFECT.getPath()).toString());
+    // Swap faces while the card is edge-on
+    private void showFlippedFace() {
+        isFlipped = !isFlipped;
 
-        ParallelTransition parallelOut = new ParallelTransition(rotateOut, rotateLabelOut);
-        parallelOut.setOnFinished(event -> {
-            isFlipped = !isFlipped;
+        cardFront.setVisible(!isFlipped);
+        cardLabel.setVisible(isFlipped);
 
-            cardFront.setVisible(!isFlipped);
-            cardBack.setVisible(isFlipped);
-            cardLabel.setVisible(isFlipped);
+        if (isFlipped) {
+            flippedCardCount++;
+        } else {
+            flippedCardCount--;
+        }
+        playFlipSound();
+    }
 
-            cardFront.setOpacity(!isFlipped ? 1 : 0);
-            cardBack.setOpacity(isFlipped ? 1 : 0);
-            cardLabel.setOpacity(isFlipped ? 1 : 0);
+    // Forgets the cards of a game room that has closed, so they are not kept alive with their scene
+    public static void clearTable() {
+        flippedCards.clear();
+        flippedCardCount = 0;
+    }
 
-            if (isFlipped) {
-                cardBack.toFront();
-                flippedCardCount++;
-            } else {
-                cardFront.toFront();
-                flippedCardCount--;
-            }
+    // Decodes the flip sound ahead of the first game
+    public static void preloadSound() {
+        flipSound();
+    }
 
-            RotateTransition rotateIn = new RotateTransition(Duration.millis(300), cardFaces);
-            rotateIn.setAxis(Rotate.Y_AXIS);
-            rotateIn.setFromAngle(90);
-            rotateIn.setToAngle(0);
-
-            RotateTransition rotateLabelIn = new RotateTransition(Duration.millis(300), cardLabel);
-            rotateLabelIn.setAxis(Rotate.Y_AXIS);
-            rotateLabelIn.setFromAngle(90);
-            rotateLabelIn.setToAngle(0);
-
-            ParallelTransition parallelIn = new ParallelTransition(rotateIn, rotateLabelIn);
-            parallelIn.setOnFinished(e -> {
-                isFlipping = false;
-                cardButton.setDisable(false); // Re-enable the button
-            });
-            parallelIn.play();
-            flipSound.play();
-        });
+    // Played as a card turns edge-on, by this card and by CanvasCardBoard
+    static void playFlipSound() {
+        flipSound().play();
+    }
 
-        parallelOut.play();
+    private static synchronized AudioClip flipSound() {
+        if (flipSound == null) {
+            flipSound = new AudioClip(CardComponent.class.getResource(ResourcePath.FLIP_CARD_EFFECT.getPath()).toString());
+        }
+        return flipSound;
     }
 
     private void zoomToCenter() {
@@ -0,0 +1,69 @@
+package org.amalzen.app.components;
+
+import javafx.animation.Animation;
+import javafx.animation.Interpolator;
+import javafx.animation.KeyFrame;
+import javafx.animation.KeyValue;
+import javafx.animation.Timeline;
+import javafx.scene.CacheHint;
+import javafx.scene.Node;
+import javafx.scene.transform.Rotate;
+import javafx.util.Duration;
+import org.amalzen.app.rendering.RenderSettings;
+
+/**
+ * Flip animation for a single card. The timeline is built once and replayed for every flip,
+ * turning the whole card as one node that is drawn from a cached bitmap while it moves.
+ * In low-power rendering mode the turn is a 2D horizontal squash at a capped frame rate.
+ */
+class CardFlipAnimator {
+    private static final Duration HALF_FLIP = Duration.millis(300);
+
+    private final Node node;
+    private final Timeline flip;
+    private final CacheHint movingHint;
+
+    /**
+     * @param node      the node holding both card faces and the label
+     * @param onHalfway called when the card is edge-on, to swap the visible face
+     * @param onDone    called once the card has turned back to face the player
+     */
+    CardFlipAnimator(Node node, Runnable onHalfway, Runnable onDone) {
+        this.node = node;
+        node.setCache(true);
+        node.setCacheHint(CacheHint.QUALITY);
+
+        if (RenderSettings.isLowPower()) {
+            movingHint = CacheHint.SCALE;
+            flip = new Timeline(RenderSettings.LOW_POWER_FRAMERATE,
+                    new KeyFrame(Duration.ZERO, new KeyValue(node.scaleXProperty(), 1)),
+                    new KeyFrame(HALF_FLIP, event -> onHalfway.run(),
+                            new KeyValue(node.scaleXProperty(), 0, Interpolator.EASE_IN)),
+                    new KeyFrame(HALF_FLIP.multiply(2), new KeyValue(node.scaleXProperty(), 1, Interpolator.EASE_OUT))
+            );
+        } else {
+            movingHint = CacheHint.ROTATE;
+            node.setRotationAxis(Rotate.Y_AXIS);
+            flip = new Timeline(
+                    new KeyFrame(Duration.ZERO, new KeyValue(node.rotateProperty(), 0)),
+                    new KeyFrame(HALF_FLIP, event -> onHalfway.run(),
+                            new KeyValue(node.rotateProperty(), 90, Interpolator.EASE_IN)),
+                    new KeyFrame(HALF_FLIP.multiply(2), new KeyValue(node.rotateProperty(), 0, Interpolator.EASE_OUT))
+            );
+        }
+        flip.setOnFinished(event -> {
+            // Go back to a sharp bitmap once the card is at rest
+            node.setCacheHint(CacheHint.QUALITY);
+            onDone.run();
+        });
+    }
+
+    void play() {
+        node.setCacheHint(movingHint);
+        flip.playFromStart();
+    }
+
+    boolean isRunning() {
+        return flip.getStatus() == Animation.Status.RUNNING;
+    }
+}
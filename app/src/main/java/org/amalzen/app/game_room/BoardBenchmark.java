@@ -0,0 +1,135 @@
+package org.amalzen.app.game_room;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+import org.amalzen.app.ViewScope;
+import org.amalzen.app.components.BoardLayout;
+import org.amalzen.app.components.CanvasCardBoard;
+import org.amalzen.app.components.CardBoard;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Compares the node and canvas boards while two cards keep flipping. For each board it shows
+ * the board in a window for a few seconds and reports frames per second, the JavaFX thread's
+ * CSS and layout time per pulse, the canvas drawing time per frame and the number of nodes.
+ * Work on the render thread is not included, so watch the frame rate as well.
+ *
+ * <pre>
+ * BoardBenchmark [seconds per board]     3 by default
+ * </pre>
+ */
+public class BoardBenchmark {
+    private static final double WIDTH = 1645;
+    private static final double HEIGHT = 727;
+    private static final int[] CANVAS_SIZES = {16, 36, 64, 100};
+
+    private record Result(long frames, long layoutNanos, long drawNanos, int nodes, double seconds) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 3;
+        Logger.getLogger("org.amalzen.app").setLevel(Level.WARNING);
+        CompletableFuture<Void> started = new CompletableFuture<>();
+        Platform.startup(() -> started.complete(null));
+        started.join();
+        // Each board closes its window, which would otherwise end JavaFX before the next one
+        Platform.setImplicitExit(false);
+
+        System.out.printf("%-16s %8s %16s %16s %8s%n", "board", "fps", "css+layout us", "canvas draw us", "nodes");
+        print("nodes 16", run(false, GameRoomHandoff.CARD_COUNT, seconds));
+        for (int cards : CANVAS_SIZES) {
+            print("canvas " + cards, run(true, cards, seconds));
+        }
+        Platform.exit();
+    }
+
+    private static void print(String name, Result result) {
+        long frames = Math.max(1, result.frames());
+        System.out.printf("%-16s %8.1f %16.1f %16.1f %8d%n", name, result.frames() / result.seconds(),
+                result.layoutNanos() / 1e3 / frames, result.drawNanos() / 1e3 / frames, result.nodes());
+    }
+
+    private static Result run(boolean canvas, int cards, double seconds) {
+        CompletableFuture<Result> done = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                start(canvas, cards, seconds, done);
+            } catch (Exception e) {
+                done.completeExceptionally(e);
+            }
+        });
+        return done.join();
+    }
+
+    private static void start(boolean canvas, int cards, double seconds, CompletableFuture<Result> done)
+            throws Exception {
+        BoardLayout layout = BoardLayout.of(cards, WIDTH, HEIGHT);
+        VBox area = new VBox();
+        area.setPrefSize(WIDTH, HEIGHT);
+        CardBoard board;
+        if (canvas) {
+            // The board's frame timer stops by itself once its cards settle
+            CanvasCardBoard canvasBoard = CanvasCardBoard.create(layout, WIDTH, HEIGHT, ViewScope.current());
+            area.getChildren().add(canvasBoard.canvas());
+            board = canvasBoard;
+        } else {
+            HBox first = new HBox();
+            HBox second = new HBox();
+            area.getChildren().addAll(first, second);
+            board = new NodeCardBoard(layout, first, second, null);
+        }
+        for (int i = 0; i < cards; i++) {
+            board.setLabel(i, "Card " + i + " of the benchmark board");
+        }
+
+        Scene scene = new Scene(area, WIDTH, HEIGHT);
+        Stage stage = new Stage();
+        stage.setTitle("Board benchmark, " + (canvas ? "canvas " : "nodes ") + cards);
+        stage.setScene(scene);
+        stage.show();
+
+        long[] layoutStart = new long[1];
+        long[] totals = new long[3];
+        scene.addPreLayoutPulseListener(() -> layoutStart[0] = System.nanoTime());
+        scene.addPostLayoutPulseListener(() -> totals[1] += System.nanoTime() - layoutStart[0]);
+
+        long end = System.nanoTime() + (long) (seconds * 1e9);
+        AnimationTimer driver = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                // Ignored while the card is still turning, so each restarts as soon as it settles
+                board.flip(0);
+                board.flip(cards - 1);
+                totals[0]++;
+                if (board instanceof CanvasCardBoard canvasBoard) {
+                    totals[2] += canvasBoard.lastDrawNanos();
+                }
+                if (System.nanoTime() >= end) {
+                    stop();
+                    stage.close();
+                    done.complete(new Result(totals[0], totals[1], totals[2], count(area), seconds));
+                }
+            }
+        };
+        driver.start();
+    }
+
+    private static int count(Node node) {
+        int nodes = 1;
+        if (node instanceof Parent parent) {
+            for (Node child : parent.getChildrenUnmodifiable()) {
+                nodes += count(child);
+            }
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,76 @@
+package org.amalzen.app.game_room;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Estimates the offset between the game server's clock and the local monotonic clock so
+ * server deadlines can be turned into local ones. Ping round trips give the estimate, using
+ * the sample with the shortest round trip; one-way event timestamps bound it from below.
+ */
+class ClockSync {
+    private static final int MAX_PING_SAMPLES = 8;
+
+    // Each sample is {offsetMs, roundTripMs}
+    private final Deque<long[]> pingSamples = new ArrayDeque<>();
+    private long lowerBoundMs = Long.MIN_VALUE;
+
+    // Every round trip of the game, for the summary sent to telemetry
+    private long roundTrips = 0;
+    private long roundTripTotalMs = 0;
+    private long roundTripMinMs = 0;
+    private long roundTripMaxMs = 0;
+
+    static long monotonicMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    // An event stamped by the server at serverTimeMs arrived locally at receivedNanos
+    synchronized void onServerTimestamp(long serverTimeMs, long receivedNanos) {
+        lowerBoundMs = Math.max(lowerBoundMs, serverTimeMs - TimeUnit.NANOSECONDS.toMillis(receivedNanos));
+    }
+
+    synchronized void onPong(long sentMs, long serverTimeMs, long receivedNanos) {
+        long roundTripMs = TimeUnit.NANOSECONDS.toMillis(receivedNanos) - sentMs;
+        if (roundTripMs < 0) {
+            return;
+        }
+        pingSamples.addLast(new long[]{serverTimeMs - (sentMs + roundTripMs / 2), roundTripMs});
+        roundTripMinMs = roundTrips == 0 ? roundTripMs : Math.min(roundTripMinMs, roundTripMs);
+        roundTripMaxMs = Math.max(roundTripMaxMs, roundTripMs);
+        roundTripTotalMs += roundTripMs;
+        roundTrips++;
+        if (pingSamples.size() > MAX_PING_SAMPLES) {
+            pingSamples.removeFirst();
+        }
+    }
+
+    // {count, minMs, meanMs, maxMs} of the round trips so far, all zero before the first pong
+    synchronized long[] roundTripSummary() {
+        return new long[]{roundTrips, roundTripMinMs, roundTrips == 0 ? 0 : roundTripTotalMs / roundTrips, roundTripMaxMs};
+    }
+
+    synchronized boolean hasEstimate() {
+        return !pingSamples.isEmpty() || lowerBoundMs != Long.MIN_VALUE;
+    }
+
+    // Server clock minus local monotonic clock, in milliseconds
+    synchronized long offsetMillis() {
+        long offset = Long.MIN_VALUE;
+        long bestRoundTrip = Long.MAX_VALUE;
+        for (long[] sample : pingSamples) {
+            if (sample[1] < bestRoundTrip) {
+                bestRoundTrip = sample[1];
+                offset = sample[0];
+            }
+        }
+        // A one-way timestamp proves the offset is at least that large
+        return Math.max(offset, lowerBoundMs);
+    }
+
+    // Converts a server timestamp into the System.nanoTime() timebase
+    long toLocalNanos(long serverTimeMs) {
+        return TimeUnit.MILLISECONDS.toNanos(serverTimeMs - offsetMillis());
+    }
+}
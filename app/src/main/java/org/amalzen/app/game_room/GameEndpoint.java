@@ -0,0 +1,22 @@
+package org.amalzen.app.game_room;
+
+import java.util.function.Consumer;
+
+/**
+ * A game room peer other than the game service, such as a recorded game being replayed.
+ * Messages are the same JSON text the game service exchanges over the WebSocket.
+ */
+public interface GameEndpoint {
+    // Starts delivering server messages; toClient may be called from any thread
+    void open(Consumer<String> toClient);
+
+    // A message the client sent, such as a flip
+    void receive(String message);
+
+    void close();
+
+    // False for endpoints that only play back a game, where the player cannot flip cards
+    default boolean acceptsInput() {
+        return true;
+    }
+}
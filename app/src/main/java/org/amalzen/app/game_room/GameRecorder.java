@@ -0,0 +1,260 @@
+package org.amalzen.app.game_room;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Writes every message of a game, in both directions, to a compact binary log so the game can
+ * be replayed later (see GameReplay). One file per game room under ~/.cache-game/replays.
+ *
+ * <p>Format: magic, version, game id, username and wall-clock start time, then one entry per
+ * message: direction byte, microseconds since the previous entry and the UTF-8 length as
+ * varints, and the message bytes.
+ *
+ * <p>Messages are written on the recorder's own thread, so the socket threads only queue them.
+ * The file is flushed every second and on close, so a crash loses at most the last second.
+ */
+public class GameRecorder {
+    private static final Logger LOGGER = Logger.getLogger(GameRecorder.class.getName());
+    static final Path DIRECTORY = Path.of(System.getProperty("user.home"), ".cache-game", "replays");
+    static final int MAGIC = 0x43524543; // "CREC"
+    static final int VERSION = 1;
+    static final byte INBOUND = 0;
+    static final byte OUTBOUND = 1;
+    private static final String EXTENSION = ".rec";
+    private static final int MAX_RECORDINGS = 50;
+    // Far above any game message; a longer length read back means the file is damaged
+    private static final int MAX_MESSAGE_BYTES = 1 << 20;
+    private static final long FLUSH_INTERVAL_MILLIS = 1000;
+    private static final long CLOSE_TIMEOUT_SECONDS = 2;
+
+    private final DataOutputStream out;
+    private final long startNanos;
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "GameRecorder");
+        t.setDaemon(true);
+        return t;
+    });
+    // Only used on the writer thread
+    private long lastMicros = 0;
+    private boolean failed = false;
+
+    private GameRecorder(OutputStream stream, String gameId, String username) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(stream));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeUTF(gameId);
+        out.writeUTF(username);
+        out.writeLong(System.currentTimeMillis());
+        out.flush();
+        startNanos = System.nanoTime();
+        writer.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    // Starts recording a game, or returns null if the recording cannot be created
+    static GameRecorder open(String gameId, String username) {
+        try {
+            Files.createDirectories(DIRECTORY);
+            pruneOldRecordings();
+            return new GameRecorder(Files.newOutputStream(file(gameId)), gameId, username);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Game " + gameId + " will not be recorded", e);
+            return null;
+        }
+    }
+
+    // The recording of a game room, or null if there is none
+    public static Path find(String gameId) {
+        Path file = file(gameId);
+        return Files.isRegularFile(file) ? file : null;
+    }
+
+    private static Path file(String gameId) {
+        return DIRECTORY.resolve(gameId.replaceAll("[^A-Za-z0-9_-]", "_") + EXTENSION);
+    }
+
+    void inbound(String message, long nanos) {
+        submit(INBOUND, message, nanos);
+    }
+
+    void outbound(String message, long nanos) {
+        submit(OUTBOUND, message, nanos);
+    }
+
+    // Writes what is queued, closes the file and waits briefly for both
+    void close() {
+        try {
+            writer.execute(this::closeStream);
+        } catch (RejectedExecutionException e) {
+            return; // already closed
+        }
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.warning("Game recording still writing after " + CLOSE_TIMEOUT_SECONDS + "s");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void submit(byte direction, String message, long nanos) {
+        try {
+            writer.execute(() -> write(direction, message, nanos));
+        } catch (RejectedExecutionException e) {
+            // Messages that arrive while the game room closes are not recorded
+        }
+    }
+
+    private void flush() {
+        if (failed) {
+            return;
+        }
+        try {
+            out.flush();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Stopped recording game", e);
+            failed = true;
+        }
+    }
+
+    private void closeStream() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Error closing game recording", e);
+        }
+    }
+
+    private void write(byte direction, String message, long nanos) {
+        if (failed) {
+            return;
+        }
+        try {
+            byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > MAX_MESSAGE_BYTES) {
+                throw new IOException("Message of " + bytes.length + " bytes is too long to record");
+            }
+            out.writeByte(direction);
+            // Deltas of absolute times, so rounding to microseconds does not add up over a game
+            long micros = Math.max(lastMicros, TimeUnit.NANOSECONDS.toMicros(nanos - startNanos));
+            writeVarLong(out, micros - lastMicros);
+            writeVarLong(out, bytes.length);
+            out.write(bytes);
+            lastMicros = micros;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Stopped recording game", e);
+            failed = true;
+        }
+    }
+
+    private static void pruneOldRecordings() throws IOException {
+        List<Path> recordings;
+        try (Stream<Path> files = Files.list(DIRECTORY)) {
+            recordings = files.filter(file -> file.toString().endsWith(EXTENSION))
+                    .sorted(Comparator.comparing(GameRecorder::lastModified).reversed())
+                    .toList();
+        }
+        for (Path old : recordings.subList(Math.min(recordings.size(), MAX_RECORDINGS - 1), recordings.size())) {
+            Files.deleteIfExists(old);
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * A recorded game read back into memory.
+     *
+     * @param startedAt wall-clock time the recording started, in epoch milliseconds
+     */
+    record Recording(String gameId, String username, long startedAt, List<Entry> entries) {
+    }
+
+    /**
+     * @param micros microseconds since the recording started
+     */
+    record Entry(boolean inbound, long micros, String message) {
+    }
+
+    static Recording read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                throw new IOException("Not a game recording: " + file);
+            }
+            String gameId = in.readUTF();
+            String username = in.readUTF();
+            long startedAt = in.readLong();
+
+            List<Entry> entries = new ArrayList<>();
+            long micros = 0;
+            while (true) {
+                int direction = in.read();
+                if (direction < 0) {
+                    break;
+                }
+                try {
+                    micros += readVarLong(in);
+                    long length = readVarLong(in);
+                    if (length < 0 || length > MAX_MESSAGE_BYTES) {
+                        throw new IOException("Corrupt game recording, message of " + length + " bytes: " + file);
+                    }
+                    byte[] bytes = new byte[(int) length];
+                    in.readFully(bytes);
+                    entries.add(new Entry(direction == INBOUND, micros, new String(bytes, StandardCharsets.UTF_8)));
+                } catch (EOFException e) {
+                    break; // recording cut short, keep what was complete
+                }
+            }
+            return new Recording(gameId, username, startedAt, entries);
+        }
+    }
+}
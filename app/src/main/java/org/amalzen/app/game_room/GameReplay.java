@@ -0,0 +1,165 @@
+package org.amalzen.app.game_room;
+
+import org.amalzen.app.Main;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Plays a recorded game back into a GameRoomModel, either in the game room at a chosen speed
+ * or headless as fast as possible. Only the server's messages are replayed: the server echoes
+ * every flip to both players, so they rebuild the whole game. The clock fields are shifted so
+ * the turn timer counts down from the time of the replay, scaled by the replay speed.
+ */
+public class GameReplay implements GameEndpoint {
+    private static final Logger LOGGER = Logger.getLogger(GameReplay.class.getName());
+    public static final double AS_FAST_AS_POSSIBLE = 0;
+
+    private final GameRecorder.Recording recording;
+    private final double speed;
+    private final CompletableFuture<Integer> finished = new CompletableFuture<>();
+    private volatile boolean closed = false;
+
+    /**
+     * @param speed playback rate, 1 for real time, or AS_FAST_AS_POSSIBLE
+     */
+    public GameReplay(Path file, double speed) throws IOException {
+        this.recording = GameRecorder.read(file);
+        this.speed = speed;
+    }
+
+    public String gameId() {
+        return recording.gameId();
+    }
+
+    public String username() {
+        return recording.username();
+    }
+
+    // Number of server messages in the recording
+    public int messageCount() {
+        return (int) recording.entries().stream().filter(GameRecorder.Entry::inbound).count();
+    }
+
+    // Completes with the number of messages played once the replay reaches its end
+    public CompletableFuture<Integer> finished() {
+        return finished;
+    }
+
+    @Override
+    public void open(Consumer<String> toClient) {
+        Thread player = new Thread(() -> play(toClient), "GameReplay-" + recording.gameId());
+        player.setDaemon(true);
+        player.start();
+    }
+
+    @Override
+    public void receive(String message) {
+        // Nothing answers the player during a replay
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    @Override
+    public boolean acceptsInput() {
+        return false;
+    }
+
+    private void play(Consumer<String> toClient) {
+        // Skip the wait for the opponent that comes before the first server message
+        long origin = recording.entries().stream()
+                .filter(GameRecorder.Entry::inbound)
+                .mapToLong(GameRecorder.Entry::micros)
+                .findFirst()
+                .orElse(0);
+        long start = System.nanoTime();
+        long wallStart = System.currentTimeMillis();
+        long serverStart = -1;
+        int played = 0;
+
+        try {
+            for (GameRecorder.Entry entry : recording.entries()) {
+                if (closed) {
+                    break;
+                }
+                if (!entry.inbound()) {
+                    continue;
+                }
+
+                if (speed != AS_FAST_AS_POSSIBLE) {
+                    long due = start + (long) (TimeUnit.MICROSECONDS.toNanos(entry.micros() - origin) / speed);
+                    long wait = due - System.nanoTime();
+                    if (wait > 0) {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    }
+                }
+
+                String message = entry.message();
+                if (speed != AS_FAST_AS_POSSIBLE) {
+                    JSONObject event = new JSONObject(message);
+                    if (event.has("serverTime")) {
+                        if (serverStart < 0) {
+                            serverStart = event.getLong("serverTime");
+                        }
+                        message = retime(event, serverStart, wallStart).toString();
+                    }
+                }
+                toClient.accept(message);
+                played++;
+            }
+            finished.complete(played);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finished.completeExceptionally(e);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Replay of " + recording.gameId() + " failed", e);
+            finished.completeExceptionally(e);
+        }
+    }
+
+    // Moves the server timestamps to now, scaled by the replay speed
+    private JSONObject retime(JSONObject event, long serverStart, long wallStart) {
+        long serverTime = event.getLong("serverTime");
+        long replayTime = wallStart + (long) ((serverTime - serverStart) / speed);
+        event.put("serverTime", replayTime);
+        if (event.has("deadline")) {
+            event.put("deadline", replayTime + (long) ((event.getLong("deadline") - serverTime) / speed));
+        }
+        return event;
+    }
+
+    /**
+     * Replays a recording through a fresh model with no view attached, as fast as possible.
+     *
+     * @return the model after the last message, for inspecting the final game state
+     */
+    public static GameRoomModel runHeadless(Path file) throws IOException {
+        GameReplay replay = new GameReplay(file, AS_FAST_AS_POSSIBLE);
+        GameRoomModel model = new GameRoomModel(replay.gameId(), null, replay.username()).useEndpoint(replay);
+        model.connect();
+        replay.finished().join();
+        model.drain().join();
+        return model;
+    }
+
+    // Sets the replay up to be picked up by the game room scene in place of a live game
+    public static GameReplay watch(Path file, double speed) throws IOException {
+        GameReplay replay = new GameReplay(file, speed);
+        GameRoomModel model = new GameRoomModel(replay.gameId(), null, replay.username())
+                .useEndpoint(replay)
+                .deferEvents();
+        model.connect();
+        GameRoomHandoff.prepare(replay.gameId(), model);
+        Main.roomId = replay.gameId();
+        return replay;
+    }
+}
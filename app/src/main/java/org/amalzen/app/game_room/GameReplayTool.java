@@ -0,0 +1,82 @@
+package org.amalzen.app.game_room;
+
+import javafx.application.Application;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+import org.amalzen.app.ResourcePath;
+import org.amalzen.app.ViewLoader;
+
+import java.nio.file.Path;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Replays a game recording from ~/.cache-game/replays, for reproducing bugs and as a
+ * benchmark workload.
+ *
+ * <pre>
+ * GameReplayTool &lt;recording&gt; [speed]            watch in the game room, speed 1 or 10 etc.
+ * GameReplayTool &lt;recording&gt; headless [runs]    replay through the model only, as fast as possible
+ * </pre>
+ */
+public class GameReplayTool extends Application {
+    private static final Logger LOGGER = Logger.getLogger(GameReplayTool.class.getName());
+
+    private static Path recording;
+    private static double speed = 1;
+
+    @Override
+    public void start(Stage primaryStage) throws Exception {
+        GameReplay replay = GameReplay.watch(recording, speed);
+
+        ViewLoader.View<GameRoomController> view = ViewLoader.load(ResourcePath.GAME_ROOM.getPath());
+        GameRoomController controller = view.controller();
+        controller.setGameParameters(replay.gameId(), "replay", replay.username());
+
+        primaryStage.setTitle("CACHE Replay - " + replay.gameId() + " at " + speed + "x");
+        primaryStage.setScene(new Scene(view.root()));
+        // The window is the whole app, so the game is left before the JVM can exit
+        primaryStage.setOnCloseRequest(e -> controller.shutdown().join());
+        primaryStage.show();
+    }
+
+    private static void runHeadless(int runs) throws Exception {
+        // Per-event info logging would dominate the measurement
+        Logger.getLogger("org.amalzen.app").setLevel(Level.WARNING);
+        int messages = new GameReplay(recording, GameReplay.AS_FAST_AS_POSSIBLE).messageCount();
+
+        GameRoomModel last = null;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            if (last != null) {
+                last.close();
+            }
+            last = GameReplay.runHeadless(recording);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d runs of %d messages in %.2fs: %.0f games/s, %.0f messages/s%n",
+                runs, messages, seconds, runs / seconds, runs * (double) messages / seconds);
+        System.out.printf("Final state: you %d, opponent %d, status %s%n",
+                last.getYourScore(), last.getOpponentScore(), last.getGameStatus());
+        last.close();
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: GameReplayTool <recording> [speed | headless [runs]]");
+            return;
+        }
+        recording = Path.of(args[0]);
+
+        if (args.length > 1 && args[1].equalsIgnoreCase("headless")) {
+            runHeadless(args.length > 2 ? Integer.parseInt(args[2]) : 1);
+            return;
+        }
+        if (args.length > 1) {
+            speed = Double.parseDouble(args[1]);
+        }
+        LOGGER.info("Watching " + recording + " at " + speed + "x");
+        launch(args);
+    }
+}
@@ -1,11 +1,10 @@
 package org.amalzen.app.game_room;
 
 import javafx.application.Application;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 import org.amalzen.app.ResourcePath;
+import org.amalzen.app.ViewLoader;
 
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -34,18 +33,18 @@ public class GameRoomApp extends Application {
                 ", playerId=" + playerId + ", username=" + username);
 
         // Load the game room FXML
-        FXMLLoader loader = new FXMLLoader(getClass().getResource(ResourcePath.GAME_ROOM.getPath()));
-        Parent root = loader.load();
+        ViewLoader.View<GameRoomController> view = ViewLoader.load(ResourcePath.GAME_ROOM.getPath());
 
         // Initialize the controller with parameters
-        GameRoomController controller = loader.getController();
+        GameRoomController controller = view.controller();
         controller.setGameParameters(gameId, String.valueOf(playerId), username);
 
         // Create the scene
-        Scene scene = new Scene(root);
+        Scene scene = new Scene(view.root());
         primaryStage.setTitle("CACHE Game - " + username);
         primaryStage.setScene(scene);
-        primaryStage.setOnCloseRequest(e -> controller.shutdown());
+        // The window is the whole app, so the game is left before the JVM can exit
+        primaryStage.setOnCloseRequest(e -> controller.shutdown().join());
         primaryStage.show();
     }
 
@@ -1,39 +1,43 @@
 package org.amalzen.app.game_room;
 
-import javafx.animation.KeyFrame;
 import javafx.animation.PauseTransition;
-import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
 import javafx.util.Duration;
 import org.amalzen.app.Main;
 import org.amalzen.app.ResourcePath;
+import org.amalzen.app.ViewLifecycle;
+import org.amalzen.app.ViewScope;
 import org.amalzen.app.audio.AudioHandler;
+import org.amalzen.app.profile.ProfileService;
+import org.amalzen.app.components.BoardLayout;
+import org.amalzen.app.components.CanvasCardBoard;
+import org.amalzen.app.components.CardBoard;
 import org.amalzen.app.components.CardComponent;
+import org.amalzen.app.logging.Log;
 import org.amalzen.app.modals.GameOverModalController;
+import org.amalzen.app.modals.ModalManager;
+import org.amalzen.app.rendering.PowerManager;
+import org.amalzen.app.rendering.RenderSettings;
+import org.amalzen.app.telemetry.Telemetry;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-public class GameRoomController {
+public class GameRoomController implements ViewLifecycle {
     private static final Logger LOGGER = Logger.getLogger(GameRoomController.class.getName());
-    private static final int ROWS = 2;
-    private static final int COLUMNS = 8;
 
-    public List<CardComponent> cardComponents = new ArrayList<>();
+    private CardBoard board;
 
     @FXML
     private AnchorPane gameRoomPane;
@@ -52,6 +56,8 @@ public class GameRoomController {
     @FXML
     private HBox HBox2;
     @FXML
+    private VBox boardBox;
+    @FXML
     private Label whoseTurn;
 
     private GameRoomModel gameRoom;
@@ -59,18 +65,23 @@ public class GameRoomController {
     private String username = Main.username;
     private String sessionId = Main.sessionId;
 
-    private Timeline timer;
+    private TurnClock turnClock;
     private boolean isMyTurn = false;
-    private boolean[] pairedCards = new boolean[ROWS * COLUMNS];    // Track paired cards
-    private String[] cardTexts = new String[ROWS * COLUMNS];
+    private boolean[] pairedCards = new boolean[GameRoomHandoff.CARD_COUNT];    // Track paired cards
+    private String[] cardTexts = new String[GameRoomHandoff.CARD_COUNT];
     private boolean waitingForServerResponse = false;
     private Integer firstFlippedCardIndex = null;
     private Integer secondFlippedCardIndex = null;
+    private GameRoomHandoff handoff;
+    private final ViewScope scope = ViewScope.current();
 
     @FXML
     public void initialize() {
         LOGGER.log(Level.INFO, "Initializing GameRoom");
         AudioHandler.playSound(ResourcePath.GAME_ROOM_MUSIC.getPath());
+        turnClock = scope.track(new TurnClock(timePerTurn));
+        PowerManager.pauseWhenHidden(turnClock);
+        scope.onDispose(CardComponent::clearTable);
         settingsButton.setOnMouseClicked(event -> {
             if (gameRoom != null) {
                 gameRoomPane.getProperties().put("controller", this);
@@ -102,54 +113,48 @@ public class GameRoomController {
     }
 
     private void createCardGrid() {
-        try {
-            cardComponents.clear();
-            HBox1.getChildren().clear();
-            HBox2.getChildren().clear();
-
-            for (int row = 0; row < ROWS; row++) {
-                HBox currentRow = (row == 0) ? HBox1 : HBox2;
-
-                for (int col = 0; col < COLUMNS; col++) {
-                    int cardIndex = row * COLUMNS + col;
-
-                    FXMLLoader loader = new FXMLLoader(getClass().getResource(ResourcePath.CARD.getPath()));
-                    Parent cardRoot = loader.load();
-                    CardComponent card = loader.getController();
-
-                    card.setCardId(cardIndex);
+        List<GameRoomHandoff.CardView> preloadedCards = handoff != null ? handoff.readyCards() : null;
+        handoff = null;
 
-                    // Add card click handler directly to the card component
-                    cardRoot.setOnMouseClicked(event -> {
-
-                        if (canFlipCard(cardIndex)) {
-                            handleCardFlip(cardIndex);
-                            AudioHandler.playSound(ResourcePath.FLIP_CARD_EFFECT.getPath());
-                        }
-                    });
+        BoardLayout layout = BoardLayout.of(cardTexts.length, boardBox.getPrefWidth(), boardBox.getPrefHeight());
+        board = null;
+        if (!RenderSettings.isCanvasBoard() && NodeCardBoard.fits(layout)) {
+            try {
+                boardBox.getChildren().setAll(HBox1, HBox2);
+                board = new NodeCardBoard(layout, HBox1, HBox2, preloadedCards);
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Failed to create card grid, drawing it on a canvas", e);
+            }
+        }
+        if (board == null) {
+            CanvasCardBoard canvasBoard = CanvasCardBoard.create(layout, boardBox.getPrefWidth(),
+                    boardBox.getPrefHeight(), scope);
+            boardBox.getChildren().setAll(canvasBoard.canvas());
+            board = canvasBoard;
+        }
 
-                    currentRow.getChildren().add(cardRoot);
-                    cardComponents.add(card);
-                }
+        // Add card click handler to the board
+        board.onCardClicked(cardIndex -> {
+            if (canFlipCard(cardIndex)) {
+                handleCardFlip(cardIndex);
+                AudioHandler.playSound(ResourcePath.FLIP_CARD_EFFECT.getPath());
             }
+        });
 
-            LOGGER.info("Card grid created with " + cardComponents.size() + " cards");
-        } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, "Failed to create card grid", e);
-        }
+        Log.info(LOGGER, "Card grid created", "cards", layout.cards(), "rows", layout.rows(),
+                "columns", layout.columns(), "tier", layout.tier(), "canvas", board instanceof CanvasCardBoard);
     }
 
     private boolean canFlipCard(int cardIndex) {
-        // Do not allow flipping of cards that are already paired
-        if (!isMyTurn || waitingForServerResponse || pairedCards[cardIndex]) {
+        // Do not allow flipping of cards that are already paired, or any card during a replay
+        if (!gameRoom.acceptsInput() || !isMyTurn || waitingForServerResponse || pairedCards[cardIndex]) {
             LOGGER.fine("Cannot flip card " + cardIndex + ": myTurn=" + isMyTurn +
                     ", waiting=" + waitingForServerResponse +
                     ", paired=" + pairedCards[cardIndex]);
             return false;
         }
 
-        CardComponent card = cardComponents.get(cardIndex);
-        return !card.isFlipped();
+        return !board.isFlipped(cardIndex);
     }
 
     private void handleCardFlip(int cardIndex) {
@@ -160,8 +165,7 @@ public class GameRoomController {
         // Send flip request to server
         gameRoom.sendFlip(cardIndex);
 
-        CardComponent card = cardComponents.get(cardIndex);
-        card.flipCard();
+        board.flip(cardIndex);
 
         if (firstFlippedCardIndex == null) {
             firstFlippedCardIndex = cardIndex;
@@ -180,8 +184,11 @@ public class GameRoomController {
     private void initializeGameRoom() {
         LOGGER.info("Initializing game room: " + roomId + ", Player: " + sessionId);
 
-        gameRoom = new GameRoomModel(roomId, sessionId, username)
-                .onGameStateUpdate(this::handleGameStateUpdate)
+        // Pick up the connection started when the match was found, if there is one
+        handoff = GameRoomHandoff.take(roomId);
+        gameRoom = handoff != null ? handoff.model() : new GameRoomModel(roomId, sessionId, username);
+
+        gameRoom.onGameStateUpdate(this::handleGameStateUpdate)
                 .onConnected(() -> {
                     LOGGER.info("Connected to game server");
                     Platform.runLater(() -> {
@@ -201,6 +208,12 @@ public class GameRoomController {
                     });
                 });
 
+        if (handoff != null) {
+            LOGGER.info("Attaching to early game room connection");
+            gameRoom.resumeEvents();
+            return;
+        }
+
         gameRoom.connect().exceptionally(ex -> {
             LOGGER.log(Level.SEVERE, "Failed to connect to game server", ex);
             Platform.runLater(() -> {
@@ -211,14 +224,10 @@ public class GameRoomController {
     }
 
     private void handleGameStateUpdate(JSONObject gameState) {
-        // Log the complete game state JSON object for debugging
-        LOGGER.fine("Game state update: " + gameState.toString());
         Platform.runLater(() -> {
             try {
                 String eventType = gameState.optString("event", "unknown");
-
-                LOGGER.info("Game state update:" + gameState.toString());
-                LOGGER.info("Event type: " + eventType);
+                Log.fine(LOGGER, "Game state update", "event", eventType);
 
                 switch (eventType) {
                     case "game_ready":
@@ -253,23 +262,8 @@ public class GameRoomController {
     }
 
     private void runTimer(JSONObject gameState) {
-        if (gameState.has("timer")) {
-            AtomicInteger time = new AtomicInteger(gameState.getInt("timer"));
-            timePerTurn.setText(time + "s");
-
-            if (timer != null) {
-                timer.stop();
-            }
-
-            timer = new Timeline(new KeyFrame(Duration.seconds(1), event -> {
-                time.getAndDecrement();
-                timePerTurn.setText(time + "s");
-                if (time.get() <= 0) {
-                    timer.stop();
-                }
-            }));
-            timer.setCycleCount(time.get());
-            timer.play();
+        if (gameState.has("deadline")) {
+            turnClock.syncTo(gameState.getLong("deadline"));
         }
     }
 
@@ -278,34 +272,35 @@ public class GameRoomController {
         int cardIndex = gameState.getInt("flipped");
 
         // Flip card and show content
-        CardComponent card = cardComponents.get(cardIndex);
-        if (!card.isFlipped()) {
-            card.flipCard();
+        if (!board.isFlipped(cardIndex)) {
+            board.flip(cardIndex);
         }
 
         // Track flipped cards
         if (firstFlippedCardIndex == null) {
             firstFlippedCardIndex = cardIndex;
-            LOGGER.info("First card flipped (by opponent): " + cardIndex);
+            Log.fine(LOGGER, "First card flipped", "cardIndex", cardIndex);
         } else {
             secondFlippedCardIndex = cardIndex;
-            LOGGER.info("Second card flipped (by opponent): " + cardIndex);
+            Log.fine(LOGGER, "Second card flipped", "cardIndex", cardIndex);
         }
     }
 
     // This event provides the initial game state when the game is ready, such as the cards, opponentName, and time duration
     private void handleGameReadyEvent(JSONObject gameState) {
-        // Process card data
+        // Process card data, sizing the board to the cards dealt
         if (gameState.has("cards")) {
             Object cardsObj = gameState.get("cards");
 
             if (cardsObj instanceof JSONArray) {
                 JSONArray cardsArray = (JSONArray) cardsObj;
+                resizeBoard(cardsArray.length());
                 for (int i = 0; i < Math.min(cardsArray.length(), cardTexts.length); i++) {
                     cardTexts[i] = cardsArray.getString(i);
                 }
             } else if (cardsObj instanceof String[]) {
                 String[] cardsArray = (String[]) cardsObj;
+                resizeBoard(cardsArray.length);
                 for (int i = 0; i < Math.min(cardsArray.length, cardTexts.length); i++) {
                     cardTexts[i] = cardsArray[i];
                 }
@@ -318,8 +313,8 @@ public class GameRoomController {
         createCardGrid();
 
         // Preload all card labels
-        for (int i = 0; i < cardComponents.size(); i++) {
-            cardComponents.get(i).setCardLabel(cardTexts[i]);
+        for (int i = 0; i < board.size(); i++) {
+            board.setLabel(i, cardTexts[i]);
         }
 
         // Initialize UI elements
@@ -332,12 +327,13 @@ public class GameRoomController {
         homeScore.setText("0");
         rivalScore.setText("0");
 
-        LOGGER.info("Game ready with opponent: " + opponentName);
+        Log.info(LOGGER, "Game ready", "opponent", opponentName);
     }
 
     // This event happens when you or an opponent match two cards
     private void handleCardsMatchedEvent(JSONObject gameState) {
-        LOGGER.info("Cards matched event received: " + gameState);
+        Log.fine(LOGGER, "Cards matched", "yourScore", gameState.optInt("yourScore"),
+                "oppScore", gameState.optInt("oppScore"));
 
         // Update UI based on game state
         updateGameUI(gameState);
@@ -349,11 +345,11 @@ public class GameRoomController {
         if (gameState.has("paired")) {
             try {
                 Object pairedObj = gameState.get("paired");
-                LOGGER.info("Paired object type: " + pairedObj.getClass().getName());
 
                 // Handle both JSONArray and primitive boolean array
                 boolean[] pairedValues = (boolean[]) pairedObj;
 
+                int pairedCount = 0;
                 for (int i = 0; i < Math.min(pairedValues.length, pairedCards.length); i++) {
                     final int cardIndex = i;
                     final boolean isPaired = pairedValues[i];
@@ -363,25 +359,22 @@ public class GameRoomController {
 
                     // Ensure paired cards stay flipped and disabled
                     if (isPaired) {
+                        pairedCount++;
                         Platform.runLater(() -> {
-                            if (cardIndex < cardComponents.size()) {
-                                CardComponent card = cardComponents.get(cardIndex);
-
+                            if (cardIndex < board.size()) {
                                 // Make sure paired cards are flipped
-                                if (!card.isFlipped()) {
-                                    card.flipCard();
+                                if (!board.isFlipped(cardIndex)) {
+                                    board.flip(cardIndex);
                                     if (AudioHandler.isEffectPlaying()) {
                                         AudioHandler.playSound(ResourcePath.CORRECT_PAIR_EFFECT.getPath());
                                     }
                                 }
-
-                                LOGGER.info("Card " + cardIndex + " is paired, flipped and disabled");
                             }
                         });
                     }
                 }
 
-                LOGGER.info("Paired cards array updated: " + Arrays.toString(pairedCards));
+                Log.fine(LOGGER, "Paired cards updated", "paired", pairedCount);
             } catch (Exception e) {
                 LOGGER.log(Level.SEVERE, "Error processing paired cards", e);
             }
@@ -390,7 +383,7 @@ public class GameRoomController {
 
     // This event happens when cards does not match and round turn is given to the opponent
     private void handleTurnSwitchEvent(JSONObject gameState) {
-        LOGGER.info("Turn switch event: " + gameState);
+        Log.fine(LOGGER, "Turn switch", "whoseTurn", gameState.optString("whoseTurn"));
 
         // First update UI for turn switch
         updateGameUI(gameState);
@@ -414,35 +407,40 @@ public class GameRoomController {
     }
 
     private void flipBackCardWithDelay(int cardIndex) {
-        LOGGER.info("Flipping back card: " + cardIndex);
-        if (cardIndex < 0 || cardIndex >= cardComponents.size()) {
+        if (cardIndex < 0 || cardIndex >= board.size()) {
             LOGGER.warning("Invalid card index: " + cardIndex);
             return;
         }
 
-        CardComponent card = cardComponents.get(cardIndex);
-        PauseTransition pause = new PauseTransition(Duration.millis(2000));
+        PauseTransition pause = scope.track(new PauseTransition(Duration.millis(2000)));
         pause.setOnFinished(event -> {
             // Only check if the card is paired - don't use isFlipped() for the condition
             if (!pairedCards[cardIndex]) {
                 // Force the card to show its back
-                if (card.isFlipped()) {
-                    card.flipCard();
+                if (board.isFlipped(cardIndex)) {
+                    board.flip(cardIndex);
                     if (AudioHandler.isEffectPlaying()) {
                         AudioHandler.playSound(ResourcePath.INCORRECT_PAIR_EFFECT.getPath());
                     }
                 }
-                LOGGER.info("Card " + cardIndex + " flipped back successfully");
-            } else {
-                LOGGER.info("Card " + cardIndex + " is paired, not flipping back");
+                Log.fine(LOGGER, "Card flipped back", "cardIndex", cardIndex);
             }
         });
         pause.play();
-        LOGGER.info("Scheduled card " + cardIndex + " to flip back after delay");
+    }
+
+    private void resizeBoard(int cards) {
+        if (cards != cardTexts.length) {
+            cardTexts = new String[cards];
+            pairedCards = new boolean[cards];
+        }
     }
 
     private void handleGameEndEvent(JSONObject gameState) {
-        LOGGER.info("Game end event: " + gameState);
+        Log.info(LOGGER, "Game end", "winner", gameState.optString("winner"),
+                "yourScore", gameState.optInt("yourScore"), "oppScore", gameState.optInt("oppScore"));
+        // Scores change with the result, reload the profile before the next match
+        ProfileService.invalidate();
         updateGameUI(gameState);
 
         String winnerUsername = gameState.optString("winner", "");
@@ -457,14 +455,18 @@ public class GameRoomController {
         }
 
         whoseTurn.setText("Game Over - " + message);
+        turnClock.stop();
+        Telemetry.record("game_frames", "frames", turnClock.frames(), "dropped", turnClock.droppedFrames(),
+                "lowPower", RenderSettings.isLowPower(), "replay", isReplay());
         showGameOverModal(winnerUsername);
     }
 
     private void showGameOverModal(String winner) {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource(ResourcePath.GAME_OVER_MODAL.getPath()));
-            Parent gameOverModal = loader.load();
-            GameOverModalController controller = loader.getController();
+            // Store controller reference
+            gameRoomPane.getProperties().put("controller", this);
+
+            GameOverModalController controller = ModalManager.show(ResourcePath.GAME_OVER_MODAL.getPath(), gameRoomPane);
 
             // Set outcome based on winner
             if (winner.equals("tie")) {
@@ -476,13 +478,6 @@ public class GameRoomController {
                 AudioHandler.playSound(ResourcePath.DEFEAT_SOUND.getPath());
                 controller.setGameOutcome(GameOverModalController.GameOutcome.LOSE);
             }
-
-            // Store controller reference
-            gameRoomPane.getProperties().put("controller", this);
-
-            // Add modal to game room pane
-            gameRoomPane.getChildren().add(gameOverModal);
-
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, "Failed to load game over modal", e);
         }
@@ -509,18 +504,39 @@ public class GameRoomController {
         }
     }
 
-    public void shutdown() {
-        if (gameRoom != null) {
+    // Whether the room is playing back a recorded game rather than a live or practice one
+    public boolean isReplay() {
+        return gameRoom != null && gameRoom.isReplay();
+    }
+
+    // Leaving the game room any other way than through a modal still closes the connection
+    @Override
+    public void onDispose() {
+        shutdown();
+    }
+
+    /**
+     * Leaves the game. Closing waits for the socket and executors to finish, for up to several
+     * seconds, so it is done off the FX thread; the returned future completes once it is.
+     */
+    public CompletableFuture<Void> shutdown() {
+        turnClock.stop();
+        GameRoomModel closing = gameRoom;
+        if (closing == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        // Cleared here, before the next view can set up a new game
+        gameRoom = null;
+        Main.roomId = null;
+        Main.opponent = null;
+        return CompletableFuture.runAsync(() -> {
             try {
-                gameRoom.sendQuit();
-                gameRoom.disconnect();
-                gameRoom.close();
-                gameRoom = null;
-                Main.roomId = null;
-                Main.opponent = null;
+                closing.sendQuit();
+                closing.disconnect();
+                closing.close();
             } catch (Exception e) {
                 LOGGER.log(Level.WARNING, "Error during shutdown", e);
             }
-        }
+        });
     }
 }
\ No newline at end of file
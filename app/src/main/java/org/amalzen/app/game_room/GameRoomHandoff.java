@@ -0,0 +1,110 @@
+package org.amalzen.app.game_room;
+
+import javafx.scene.Parent;
+import org.amalzen.app.ResourcePath;
+import org.amalzen.app.ViewLoader;
+import org.amalzen.app.components.CardComponent;
+import org.amalzen.app.rendering.RenderSettings;
+import org.amalzen.app.tracing.Span;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Starts the game room connection and builds the card grid as soon as a match is found,
+ * while the game room scene is still being loaded. Server events received before the
+ * controller attaches are held by the model and replayed once it does.
+ */
+public final class GameRoomHandoff {
+    private static final Logger LOGGER = Logger.getLogger(GameRoomHandoff.class.getName());
+    static final int CARD_COUNT = 16;
+
+    private static GameRoomHandoff pending;
+
+    private final String roomId;
+    private final GameRoomModel model;
+    private final CompletableFuture<List<CardView>> cards;
+
+    private GameRoomHandoff(String roomId, GameRoomModel model, CompletableFuture<List<CardView>> cards) {
+        this.roomId = roomId;
+        this.model = model;
+        this.cards = cards;
+    }
+
+    // The game room continues the given trace, which it ends once the game is ready
+    public static void prepare(String roomId, String sessionId, String username, Span matchSpan) {
+        GameRoomModel model = new GameRoomModel(roomId, sessionId, username).traceUnder(matchSpan).deferEvents();
+        model.connect().exceptionally(ex -> {
+            LOGGER.log(Level.WARNING, "Early game room connection failed", ex);
+            return null;
+        });
+        prepare(roomId, model);
+    }
+
+    // Hands an already connected model, with its events deferred, to the next game room scene
+    static synchronized void prepare(String roomId, GameRoomModel model) {
+        discard();
+
+        // A canvas board draws its cards itself, there are no card views to build ahead
+        CompletableFuture<List<CardView>> cards = RenderSettings.isCanvasBoard()
+                ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.supplyAsync(() -> {
+                    List<CardView> views = new ArrayList<>(CARD_COUNT);
+                    for (int i = 0; i < CARD_COUNT; i++) {
+                        try {
+                            views.add(loadCard());
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                    return views;
+                });
+
+        pending = new GameRoomHandoff(roomId, model, cards);
+        LOGGER.info("Game room handoff prepared for room " + roomId);
+    }
+
+    // Returns the prepared handoff for this room, or null if none was started
+    static synchronized GameRoomHandoff take(String roomId) {
+        GameRoomHandoff handoff = pending;
+        if (handoff == null || !handoff.roomId.equals(roomId)) {
+            return null;
+        }
+        pending = null;
+        return handoff;
+    }
+
+    public static synchronized void discard() {
+        if (pending != null) {
+            pending.model.close();
+            pending = null;
+        }
+    }
+
+    static CardView loadCard() throws IOException {
+        ViewLoader.View<CardComponent> view = ViewLoader.load(ResourcePath.CARD.getPath());
+        return new CardView(view.root(), view.controller());
+    }
+
+    GameRoomModel model() {
+        return model;
+    }
+
+    // Cards built in the background, or null if they are not ready yet
+    List<CardView> readyCards() {
+        try {
+            return cards.getNow(null);
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Card preload failed, building cards on demand", e);
+            return null;
+        }
+    }
+
+    record CardView(Parent root, CardComponent controller) {
+    }
+}
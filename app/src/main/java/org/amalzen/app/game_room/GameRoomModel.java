@@ -1,6 +1,11 @@
 package org.amalzen.app.game_room;
 
 import org.amalzen.app.APIs;
+import org.amalzen.app.logging.Log;
+import org.amalzen.app.metrics.Metrics;
+import org.amalzen.app.telemetry.Telemetry;
+import org.amalzen.app.tracing.Span;
+import org.amalzen.app.tracing.Tracing;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -9,6 +14,9 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.WebSocket;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
 import java.util.function.Consumer;
 import java.util.logging.Level;
@@ -21,15 +29,38 @@ public class GameRoomModel implements AutoCloseable {
     private final String sessionId;
     private final String username;
 
-    // WebSocket and connection state
+    // WebSocket and connection state, or an in-process endpoint instead of the WebSocket
     private WebSocket webSocket;
+    private GameEndpoint endpoint;
+    private GameRecorder recorder;
     private volatile boolean connected = false;
+    private CompletableFuture<?> sendChain = CompletableFuture.completedFuture(null);
+
+    // Clock synchronisation with the server's game deadline
+    private static final long PING_INTERVAL_MS = 10_000;
+    private final ClockSync clock = new ClockSync();
+    private ScheduledFuture<?> pingTask;
+    private long deadlineServerMs = -1;
+
+    // Tracing: the match trace from matchmaking, the wait for game_ready and flips awaiting their echo
+    private Span matchSpan;
+    private Span readySpan;
+    private final Map<Integer, Span> pendingFlips = new ConcurrentHashMap<>();
+
+    // For the game summary sent to telemetry
+    private int eventsReceived = 0;
+    private long readyAtNanos = -1;
 
     // Thread management
     private final ExecutorService callbackExecutor;
     private final ScheduledExecutorService reconnectExecutor;
+    private volatile Thread callbackThread;
     private volatile boolean shuttingDown = false;
 
+    // Callbacks held back until a view attaches (see deferEvents)
+    private final List<Runnable> deferredCallbacks = new ArrayList<>();
+    private boolean eventsDeferred = false;
+
     // Game state
     private String[] cards;
     private boolean[] paired;
@@ -51,7 +82,7 @@ public class GameRoomModel implements AutoCloseable {
     private Runnable onConnectionClosed;
     private Consumer<Throwable> onError;
     private Runnable onConnected;
-    private Consumer<Integer> onTimerUpdate;
+    private Consumer<Long> onTimerUpdate;
 
     // Reconnection configuration
     private boolean autoReconnect = true;
@@ -66,6 +97,7 @@ public class GameRoomModel implements AutoCloseable {
         this.callbackExecutor = Executors.newSingleThreadExecutor(r -> {
             Thread t = new Thread(r, "GameRoomClient-Callback");
             t.setDaemon(true);
+            callbackThread = t;
             return t;
         });
         this.reconnectExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
@@ -76,6 +108,13 @@ public class GameRoomModel implements AutoCloseable {
     }
 
     public CompletableFuture<Void> connect() {
+        if (endpoint != null) {
+            return connectEndpoint();
+        }
+        if (recorder == null) {
+            recorder = GameRecorder.open(gameId, username);
+        }
+
         CompletableFuture<Void> connectionFuture = new CompletableFuture<>();
 
         try {
@@ -87,17 +126,34 @@ public class GameRoomModel implements AutoCloseable {
             LOGGER.info("Attempting to connect to " + url);
             LOGGER.info("Authentication: username=" + username + ", token present=" + (sessionId != null));
 
+            if (readySpan == null) {
+                readySpan = Tracing.start("game_room.connect", Span.Kind.INTERNAL, matchSpan).attribute("gameId", gameId);
+            }
+            Span handshake = Tracing.start("game_room.handshake", Span.Kind.CLIENT, readySpan)
+                    .attribute("attempt", reconnectAttempts + 1);
             CompletableFuture<WebSocket> ws = client.newWebSocketBuilder()
                     .header("User-Agent", "JavaFX-Client")
+                    .header(Tracing.HEADER, handshake.traceparent())
                     .connectTimeout(Duration.ofSeconds(10))
-                    .buildAsync(URI.create(url), new WebSocketListener());
+                    .buildAsync(URI.create(url), new WebSocketListener())
+                    .whenComplete((websocket, error) -> {
+                        if (error != null) {
+                            handshake.fail(error.toString());
+                        }
+                        handshake.end();
+                    });
 
             ws.thenAccept(websocket -> {
                 webSocket = websocket;
                 connected = true;
                 reconnectAttempts = 0;
+                Metrics.socket(Metrics.Socket.GAME_ROOM, Metrics.SocketEvent.CONNECT);
                 LOGGER.info("WebSocket connection established successfully");
 
+                if (pingTask == null) {
+                    pingTask = reconnectExecutor.scheduleAtFixedRate(this::sendPing, 0, PING_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                }
+
                 runCallback(() -> {
                     if (onConnected != null) {
                         onConnected.run();
@@ -115,7 +171,24 @@ public class GameRoomModel implements AutoCloseable {
         return connectionFuture;
     }
 
+    private CompletableFuture<Void> connectEndpoint() {
+        connected = true;
+        endpoint.open(text -> {
+            long receivedAt = System.nanoTime();
+            runCallback(() -> processServerResponse(text, receivedAt));
+        });
+        runCallback(() -> {
+            if (onConnected != null) {
+                onConnected.run();
+            }
+        });
+        return CompletableFuture.completedFuture(null);
+    }
+
     private void handleConnectionFailure(Throwable e, CompletableFuture<Void> connectionFuture) {
+        Metrics.socket(Metrics.Socket.GAME_ROOM, Metrics.SocketEvent.FAILURE);
+        Telemetry.record("socket_failure", "socket", "game_room", "attempt", reconnectAttempts,
+                "error", e.getClass().getName());
         runCallback(() -> {
             if (onError != null) {
                 onError.accept(e);
@@ -124,6 +197,7 @@ public class GameRoomModel implements AutoCloseable {
 
         if (autoReconnect && reconnectAttempts < maxReconnectAttempts) {
             reconnectAttempts++;
+            Metrics.socket(Metrics.Socket.GAME_ROOM, Metrics.SocketEvent.RECONNECT);
             LOGGER.log(Level.INFO, "Connection attempt failed. Scheduling reconnect {0}/{1} in {2}ms",
                     new Object[]{reconnectAttempts, maxReconnectAttempts, reconnectDelayMs});
 
@@ -131,6 +205,7 @@ public class GameRoomModel implements AutoCloseable {
                 connect();
             }, reconnectDelayMs, TimeUnit.MILLISECONDS);
         } else {
+            endReadyTrace("Could not connect to the game room");
             connectionFuture.completeExceptionally(e);
         }
     }
@@ -144,18 +219,21 @@ public class GameRoomModel implements AutoCloseable {
         JSONObject message = new JSONObject();
         message.put("action", "flip");
         message.put("cardIndex", cardIndex);
-
-        LOGGER.info("Sending flip action for card index: " + cardIndex);
-        try {
-            webSocket.sendText(message.toString(), true);
-        } catch (Exception e) {
-            runCallback(() -> {
-                if (onError != null) {
-                    onError.accept(e);
-                }
-            });
+        if (endpoint == null) {
+            // Traced until the server echoes the flip back
+            Span span = Tracing.start("game_room.flip", Span.Kind.CLIENT)
+                    .attribute("gameId", gameId)
+                    .attribute("cardIndex", cardIndex);
+            message.put(Tracing.HEADER, span.traceparent());
+            Span earlier = pendingFlips.put(cardIndex, span);
+            if (earlier != null) {
+                earlier.fail("No response before the card was flipped again").end();
+            }
         }
 
+        Log.fine(LOGGER, "Sending flip", "cardIndex", cardIndex);
+        sendMessage(message);
+
         // Track the flipped card locally
         if (flippedCardIndex == -1) {
             flippedCardIndex = cardIndex;
@@ -187,16 +265,8 @@ public class GameRoomModel implements AutoCloseable {
         message.put("action", "move");
         message.put("matched", matched);
 
-        LOGGER.info("Sending move action with matched=" + matched);
-        try {
-            webSocket.sendText(message.toString(), true);
-        } catch (Exception e) {
-            runCallback(() -> {
-                if (onError != null) {
-                    onError.accept(e);
-                }
-            });
-        }
+        Log.fine(LOGGER, "Sending move", "matched", matched);
+        sendMessage(message);
 
         // Reset the flipped card state after sending move
         flippedCardIndex = -1;
@@ -212,18 +282,51 @@ public class GameRoomModel implements AutoCloseable {
         message.put("action", "quit");
 
         LOGGER.info("Sending quit action");
-        try {
-            webSocket.sendText(message.toString(), true);
-        } catch (Exception e) {
-            runCallback(() -> {
-                if (onError != null) {
-                    onError.accept(e);
-                }
-            });
+        sendMessage(message);
+    }
+
+    private void sendPing() {
+        if (!connected) {
+            return;
         }
+
+        JSONObject message = new JSONObject();
+        message.put("action", "ping");
+        message.put("clientTime", ClockSync.monotonicMillis());
+        sendMessage(message);
+    }
+
+    // The WebSocket allows one outstanding send at a time, so sends are chained behind each other
+    private synchronized void sendMessage(JSONObject message) {
+        String text = message.toString();
+        if (endpoint != null) {
+            endpoint.receive(text);
+            return;
+        }
+        if (recorder != null) {
+            recorder.outbound(text, System.nanoTime());
+        }
+        sendChain = sendChain
+                .handle((ws, e) -> null)
+                .thenCompose(ignored -> webSocket.sendText(text, true))
+                .whenComplete((ws, e) -> {
+                    if (e != null) {
+                        runCallback(() -> {
+                            if (onError != null) {
+                                onError.accept(e);
+                            }
+                        });
+                    }
+                });
     }
 
     public CompletableFuture<Void> disconnect() {
+        if (endpoint != null) {
+            connected = false;
+            endpoint.close();
+            return CompletableFuture.completedFuture(null);
+        }
+
         CompletableFuture<Void> closeFuture = new CompletableFuture<>();
 
         if (webSocket != null && connected) {
@@ -267,9 +370,20 @@ public class GameRoomModel implements AutoCloseable {
             LOGGER.log(Level.WARNING, "Error waiting for WebSocket to disconnect", e);
         }
 
+        if (recorder != null) {
+            recorder.close();
+        }
+        endReadyTrace("Closed before the game was ready");
+        pendingFlips.values().forEach(span -> span.fail("No response before the game room closed").end());
+        pendingFlips.clear();
         callbackExecutor.shutdown();
         reconnectExecutor.shutdown();
 
+        // Waiting for our own callback thread to finish from inside it would only stall
+        if (Thread.currentThread() == callbackThread) {
+            return;
+        }
+
         try {
             if (!callbackExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
                 callbackExecutor.shutdownNow();
@@ -284,6 +398,48 @@ public class GameRoomModel implements AutoCloseable {
     }
 
     // Callback setters
+    /**
+     * Runs sample server events through the parsing and state-update path so it is loaded and
+     * compiled before the first real game. Used by the start-up warm-up.
+     */
+    public static void warmUp(int iterations) {
+        long now = System.currentTimeMillis();
+        JSONArray cards = new JSONArray();
+        for (int i = 0; i < GameRoomHandoff.CARD_COUNT; i++) {
+            cards.put("card" + i / 2);
+        }
+        JSONArray paired = new JSONArray(new boolean[GameRoomHandoff.CARD_COUNT]);
+        String[] samples = {
+                new JSONObject().put("event", "game_ready").put("cards", cards).put("opponentName", "warm-up")
+                        .put("timeDuration", 180).put("serverTime", now).put("deadline", now + 180_000).toString(),
+                new JSONObject().put("event", "players_ready").put("yourScore", 0).put("oppScore", 0)
+                        .put("whoseTurn", "warm-up").put("serverTime", now).put("deadline", now + 180_000).toString(),
+                new JSONObject().put("event", "card_flip").put("cardIndex", 3).put("serverTime", now).toString(),
+                new JSONObject().put("event", "cards_matched").put("yourScore", 1).put("oppScore", 0)
+                        .put("whoseTurn", "warm-up").put("paired", paired).put("serverTime", now)
+                        .put("deadline", now + 180_000).toString(),
+                new JSONObject().put("event", "turn_switch").put("round", 2).put("whoseTurn", "warm-up")
+                        .put("serverTime", now).put("deadline", now + 180_000).toString(),
+                new JSONObject().put("event", "pong").put("clientTime", ClockSync.monotonicMillis())
+                        .put("serverTime", now).toString()
+        };
+
+        // Keep the per-event info logging out of the start-up log
+        Level level = LOGGER.getLevel();
+        LOGGER.setLevel(Level.WARNING);
+        GameRoomModel model = new GameRoomModel("warm-up", null, "warm-up");
+        try {
+            for (int i = 0; i < iterations; i++) {
+                for (String sample : samples) {
+                    model.processServerResponse(sample, System.nanoTime());
+                }
+            }
+        } finally {
+            model.close();
+            LOGGER.setLevel(level);
+        }
+    }
+
     public GameRoomModel onGameReady(Consumer<String[]> handler) {
         this.onGameReady = handler;
         return this;
@@ -324,11 +480,71 @@ public class GameRoomModel implements AutoCloseable {
         return this;
     }
 
-    public GameRoomModel onTimerUpdate(Consumer<Integer> handler) {
+    // Receives the game deadline in the System.nanoTime() timebase, on every resynchronisation
+    public GameRoomModel onTimerUpdate(Consumer<Long> handler) {
         this.onTimerUpdate = handler;
         return this;
     }
 
+    // Continues a trace started before the game room, ending it once the game is ready
+    public GameRoomModel traceUnder(Span parent) {
+        this.matchSpan = parent;
+        return this;
+    }
+
+    // Ends the spans waiting for game_ready, as failed if an error is given; ended spans are left alone
+    private void endReadyTrace(String error) {
+        for (Span span : new Span[]{readySpan, matchSpan}) {
+            if (span != null) {
+                if (error != null) {
+                    span.fail(error);
+                }
+                span.end();
+            }
+        }
+    }
+
+    // Holds back all callbacks until resumeEvents() is called, so the model can connect
+    // before the view that handles its events exists
+    public GameRoomModel deferEvents() {
+        synchronized (deferredCallbacks) {
+            eventsDeferred = true;
+        }
+        return this;
+    }
+
+    public void resumeEvents() {
+        synchronized (deferredCallbacks) {
+            eventsDeferred = false;
+            LOGGER.info("Replaying " + deferredCallbacks.size() + " deferred game room callbacks");
+            for (Runnable callback : deferredCallbacks) {
+                runCallback(callback);
+            }
+            deferredCallbacks.clear();
+        }
+    }
+
+    // Plays against an in-process endpoint instead of connecting to the game service
+    public GameRoomModel useEndpoint(GameEndpoint endpoint) {
+        this.endpoint = endpoint;
+        return this;
+    }
+
+    // False while watching a replay, where cards cannot be flipped
+    public boolean acceptsInput() {
+        return endpoint == null || endpoint.acceptsInput();
+    }
+
+    public boolean isReplay() {
+        return endpoint instanceof GameReplay;
+    }
+
+    // Completes once every server message received so far has been processed
+    CompletableFuture<Void> drain() {
+        return CompletableFuture.runAsync(() -> {
+        }, callbackExecutor);
+    }
+
     public GameRoomModel withAutoReconnect(boolean autoReconnect, int maxAttempts, long delayMs) {
         this.autoReconnect = autoReconnect;
         this.maxReconnectAttempts = maxAttempts;
@@ -376,6 +592,13 @@ public class GameRoomModel implements AutoCloseable {
             return;
         }
 
+        synchronized (deferredCallbacks) {
+            if (eventsDeferred) {
+                deferredCallbacks.add(callback);
+                return;
+            }
+        }
+
         try {
             callbackExecutor.execute(callback);
         } catch (RejectedExecutionException e) {
@@ -383,19 +606,10 @@ public class GameRoomModel implements AutoCloseable {
         }
     }
 
-    private void processServerResponse(String jsonResponse) {
+    private void processServerResponse(String jsonResponse, long receivedAt) {
         JSONObject response;
         try {
             response = new JSONObject(jsonResponse);
-            // Only log detailed message in verbose mode
-            if (LOGGER.isLoggable(Level.FINE)) {
-                LOGGER.fine("Received message: " + response.toString(2));
-            } else {
-                // Log a brief message summary for regular level
-                if (response.has("event")) {
-                    LOGGER.info("Received event: " + response.getString("event"));
-                }
-            }
         } catch (JSONException jsonException) {
             LOGGER.warning("Error parsing JSON: " + jsonException.getMessage());
             return;
@@ -404,27 +618,40 @@ public class GameRoomModel implements AutoCloseable {
         // Handle events based on event type
         if (response.has("event")) {
             String eventType = response.getString("event");
-            LOGGER.info("Received event: " + eventType);
+            Log.fine(LOGGER, "Received event", "event", eventType, "body", jsonResponse);
+            eventsReceived++;
+
+            if (response.has("serverTime")) {
+                clock.onServerTimestamp(response.getLong("serverTime"), receivedAt);
+            }
 
             switch (eventType) {
                 case "game_ready":
                     handleGameReadyEvent(response);
+                    syncDeadline(response, receivedAt);
                     break;
                 case "players_ready":
                     handlePlayersReadyEvent(response);
+                    syncDeadline(response, receivedAt);
                     break;
                 case "card_flip":
                     handCardFlipEvent(response);
                     break;
                 case "cards_matched":
                     handleCardsMatchedEvent(response);
+                    syncDeadline(response, receivedAt);
                     break;
                 case "turn_switch":
                     handleTurnSwitchEvent(response);
+                    syncDeadline(response, receivedAt);
                     break;
                 case "game_end":
                     handleGameEndEvent(response);
                     break;
+                case "pong":
+                    clock.onPong(response.getLong("clientTime"), response.getLong("serverTime"), receivedAt);
+                    syncDeadline(response, receivedAt);
+                    break;
                 default:
                     LOGGER.warning("Unknown event type: " + eventType);
                     break;
@@ -433,8 +660,11 @@ public class GameRoomModel implements AutoCloseable {
     }
 
     private void handCardFlipEvent(JSONObject response) {
-        LOGGER.fine("Handling card flipped event: " + response.toString(2));
         int flippedIndex = response.getInt("cardIndex");
+        Span span = pendingFlips.remove(flippedIndex);
+        if (span != null) {
+            span.end();
+        }
         runCallback(() -> {
             if (onCardFlipped != null) {
                 onCardFlipped.accept(flippedIndex);
@@ -445,6 +675,8 @@ public class GameRoomModel implements AutoCloseable {
     private void handleGameReadyEvent(JSONObject response) {
         LOGGER.info("Game is ready!");
         gameStatus = "ready";
+        readyAtNanos = System.nanoTime();
+        endReadyTrace(null);
 
         // Extract card data
         JSONArray cardsArray = response.getJSONArray("cards");
@@ -463,9 +695,6 @@ public class GameRoomModel implements AutoCloseable {
             if (onGameReady != null) {
                 onGameReady.accept(cards);
             }
-            if (onTimerUpdate != null) {
-                onTimerUpdate.accept(timeRemaining);
-            }
         });
     }
 
@@ -485,7 +714,7 @@ public class GameRoomModel implements AutoCloseable {
     }
 
     private void handleCardsMatchedEvent(JSONObject response) {
-        LOGGER.info("Cards matched!");
+        LOGGER.fine("Cards matched");
 
         yourScore = response.getInt("yourScore");
         opponentScore = response.getInt("oppScore");
@@ -505,7 +734,7 @@ public class GameRoomModel implements AutoCloseable {
     }
 
     private void handleTurnSwitchEvent(JSONObject response) {
-        LOGGER.info("Turn switched!");
+        LOGGER.fine("Turn switched");
 
         round = response.getInt("round");
         whoseTurn = response.getString("whoseTurn");
@@ -518,9 +747,43 @@ public class GameRoomModel implements AutoCloseable {
         });
     }
 
+    // Re-derives the local deadline from the server's, using the latest clock offset estimate
+    private void syncDeadline(JSONObject response, long receivedAt) {
+        if (response.has("deadline")) {
+            deadlineServerMs = response.getLong("deadline");
+        }
+
+        long deadline;
+        if (deadlineServerMs >= 0 && clock.hasEstimate()) {
+            deadline = clock.toLocalNanos(deadlineServerMs);
+        } else if (response.has("timeDuration")) {
+            // Servers without timestamps only send the duration, count it from arrival
+            deadline = receivedAt + TimeUnit.SECONDS.toNanos(response.getInt("timeDuration"));
+        } else {
+            return;
+        }
+
+        runCallback(() -> {
+            if (onTimerUpdate != null) {
+                onTimerUpdate.accept(deadline);
+            }
+        });
+    }
+
     private void handleGameEndEvent(JSONObject response) {
         LOGGER.info("Game has ended!");
         gameStatus = "ended";
+        long[] roundTrips = clock.roundTripSummary();
+        Telemetry.record("game_summary",
+                "practice", endpoint != null && !isReplay(),
+                "replay", isReplay(),
+                "durationMs", readyAtNanos < 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - readyAtNanos),
+                "events", eventsReceived,
+                "rounds", round,
+                "pings", roundTrips[0],
+                "rttMinMs", roundTrips[1],
+                "rttMeanMs", roundTrips[2],
+                "rttMaxMs", roundTrips[3]);
 
         runCallback(() -> {
             if (onGameEnd != null) {
@@ -563,10 +826,10 @@ public class GameRoomModel implements AutoCloseable {
                     handler.accept(state);
                 })
                 .onGameEnd(state -> handler.accept(state))
-                .onTimerUpdate(time -> {
+                .onTimerUpdate(deadline -> {
                     JSONObject state = new JSONObject();
                     state.put("event", "timer_update");
-                    state.put("timer", time);
+                    state.put("deadline", deadline);
                     handler.accept(state);
                 });
     }
@@ -583,7 +846,11 @@ public class GameRoomModel implements AutoCloseable {
                 final String completeMessage = messageBuilder.toString();
                 messageBuilder.setLength(0);  // Clear the buffer
 
-                runCallback(() -> processServerResponse(completeMessage));
+                final long receivedAt = System.nanoTime();
+                if (recorder != null) {
+                    recorder.inbound(completeMessage, receivedAt);
+                }
+                runCallback(() -> processServerResponse(completeMessage, receivedAt));
                 webSocket.request(1);
             }
 
@@ -609,6 +876,7 @@ public class GameRoomModel implements AutoCloseable {
             // Attempt reconnection if needed
             if (autoReconnect && statusCode != WebSocket.NORMAL_CLOSURE && reconnectAttempts < maxReconnectAttempts) {
                 reconnectAttempts++;
+                Metrics.socket(Metrics.Socket.GAME_ROOM, Metrics.SocketEvent.RECONNECT);
                 LOGGER.log(Level.INFO, "Connection closed. Scheduling reconnect {0}/{1} in {2}ms",
                         new Object[]{reconnectAttempts, maxReconnectAttempts, reconnectDelayMs});
 
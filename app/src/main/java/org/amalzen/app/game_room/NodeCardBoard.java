@@ -0,0 +1,84 @@
+package org.amalzen.app.game_room;
+
+import javafx.scene.Parent;
+import javafx.scene.layout.HBox;
+import org.amalzen.app.components.BoardLayout;
+import org.amalzen.app.components.CardBoard;
+import org.amalzen.app.components.CardComponent;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * The board as one card.fxml view per card, laid out in the game room's two rows. Holds
+ * boards of up to two rows; larger ones are drawn by CanvasCardBoard.
+ */
+final class NodeCardBoard implements CardBoard {
+    static final int MAX_ROWS = 2;
+
+    private final List<CardComponent> cards = new ArrayList<>();
+    private IntConsumer onCardClicked = index -> {
+    };
+
+    /**
+     * @param preloaded cards built during the match handoff, or null to build them all here
+     */
+    NodeCardBoard(BoardLayout layout, HBox firstRow, HBox secondRow, List<GameRoomHandoff.CardView> preloaded)
+            throws IOException {
+        if (layout.rows() > MAX_ROWS) {
+            throw new IllegalArgumentException("Node board holds " + MAX_ROWS + " rows, layout has " + layout.rows());
+        }
+        firstRow.getChildren().clear();
+        secondRow.getChildren().clear();
+
+        for (int cardIndex = 0; cardIndex < layout.cards(); cardIndex++) {
+            HBox row = cardIndex / layout.columns() == 0 ? firstRow : secondRow;
+
+            // Use the cards built during the match handoff when they are ready
+            GameRoomHandoff.CardView cardView = preloaded != null && cardIndex < preloaded.size()
+                    ? preloaded.get(cardIndex)
+                    : GameRoomHandoff.loadCard();
+            Parent cardRoot = cardView.root();
+            CardComponent card = cardView.controller();
+            card.setCardId(cardIndex);
+
+            int index = cardIndex;
+            cardRoot.setOnMouseClicked(event -> onCardClicked.accept(index));
+
+            row.getChildren().add(cardRoot);
+            cards.add(card);
+        }
+    }
+
+    static boolean fits(BoardLayout layout) {
+        return layout.rows() <= MAX_ROWS;
+    }
+
+    @Override
+    public NodeCardBoard onCardClicked(IntConsumer handler) {
+        this.onCardClicked = handler;
+        return this;
+    }
+
+    @Override
+    public void setLabel(int index, String text) {
+        cards.get(index).setCardLabel(text);
+    }
+
+    @Override
+    public void flip(int index) {
+        cards.get(index).flipCard();
+    }
+
+    @Override
+    public boolean isFlipped(int index) {
+        return cards.get(index).isFlipped();
+    }
+
+    @Override
+    public int size() {
+        return cards.size();
+    }
+}
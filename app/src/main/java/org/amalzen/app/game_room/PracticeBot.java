@@ -0,0 +1,126 @@
+package org.amalzen.app.game_room;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Practice opponent that plays from memory of the cards it has seen face up. It remembers up
+ * to {@code capacity} cards, dropping the one seen longest ago, and each time it looks at its
+ * memory every card is recalled only with probability {@code recall}.
+ */
+public class PracticeBot {
+    public enum Level {
+        EASY(3, 0.5),
+        NORMAL(6, 0.8),
+        HARD(16, 1.0);
+
+        private final int capacity;
+        private final double recall;
+
+        Level(int capacity, double recall) {
+            this.capacity = capacity;
+            this.recall = recall;
+        }
+
+        public int capacity() {
+            return capacity;
+        }
+
+        public double recall() {
+            return recall;
+        }
+    }
+
+    private final int capacity;
+    private final double recall;
+    private final Random random;
+
+    // Card index to pair id, oldest sighting first
+    private final Map<Integer, Integer> memory = new LinkedHashMap<>();
+
+    public PracticeBot(Level level, Random random) {
+        this(level.capacity, level.recall, random);
+    }
+
+    public PracticeBot(int capacity, double recall, Random random) {
+        if (capacity < 0 || recall < 0 || recall > 1) {
+            throw new IllegalArgumentException("capacity must be >= 0 and recall in [0, 1]");
+        }
+        this.capacity = capacity;
+        this.recall = recall;
+        this.random = random;
+    }
+
+    // A card was turned face up by either player
+    void saw(int index, int pairId) {
+        if (capacity == 0) {
+            return;
+        }
+        memory.remove(index);
+        memory.put(index, pairId);
+        if (memory.size() > capacity) {
+            Iterator<Integer> oldest = memory.keySet().iterator();
+            oldest.next();
+            oldest.remove();
+        }
+    }
+
+    // The card left the board, so there is nothing left to remember about it
+    void paired(int index) {
+        memory.remove(index);
+    }
+
+    int chooseFirst(boolean[] paired) {
+        Map<Integer, Integer> recalled = recall();
+        Map<Integer, Integer> seenPair = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Integer> card : recalled.entrySet()) {
+            Integer other = seenPair.putIfAbsent(card.getValue(), card.getKey());
+            if (other != null) {
+                return other;
+            }
+        }
+        return chooseUnknown(paired, recalled, -1);
+    }
+
+    int chooseSecond(boolean[] paired, int first, int firstPairId) {
+        Map<Integer, Integer> recalled = recall();
+        for (Map.Entry<Integer, Integer> card : recalled.entrySet()) {
+            if (card.getKey() != first && card.getValue() == firstPairId) {
+                return card.getKey();
+            }
+        }
+        return chooseUnknown(paired, recalled, first);
+    }
+
+    // What the bot manages to remember this turn
+    private Map<Integer, Integer> recall() {
+        Map<Integer, Integer> recalled = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Integer> card : memory.entrySet()) {
+            if (recall >= 1 || random.nextDouble() < recall) {
+                recalled.put(card.getKey(), card.getValue());
+            }
+        }
+        return recalled;
+    }
+
+    // A random card it does not remember, or any card left on the board if it remembers them all
+    private int chooseUnknown(boolean[] paired, Map<Integer, Integer> recalled, int exclude) {
+        List<Integer> unknown = new ArrayList<>();
+        List<Integer> open = new ArrayList<>();
+        for (int i = 0; i < paired.length; i++) {
+            if (paired[i] || i == exclude) {
+                continue;
+            }
+            open.add(i);
+            if (!recalled.containsKey(i)) {
+                unknown.add(i);
+            }
+        }
+        List<Integer> choices = unknown.isEmpty() ? open : unknown;
+        return choices.get(random.nextInt(choices.size()));
+    }
+}
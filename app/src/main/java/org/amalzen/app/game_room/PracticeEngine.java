@@ -0,0 +1,323 @@
+package org.amalzen.app.game_room;
+
+import org.amalzen.app.Main;
+import org.amalzen.app.ResourcePath;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs a practice game against a bot inside the client, following the same rules and sending
+ * the same events as the game service, so the game room plays it like an online match. The
+ * cards come from a deck bundled with the app. Player 0 is the local player, player 1 the bot.
+ * All game state is confined to one scheduler thread, which also paces the bot's moves.
+ */
+public class PracticeEngine implements GameEndpoint {
+    private static final Logger LOGGER = Logger.getLogger(PracticeEngine.class.getName());
+    public static final String BOT_NAME = "Practice Bot";
+    private static final String ROOM_PREFIX = "practice-";
+
+    // Larger practice boards with -Dcache.practice.cards; pairs repeat once the deck runs out
+    private static final int CARDS = Math.max(4, Integer.getInteger("cache.practice.cards", GameRoomHandoff.CARD_COUNT) / 2 * 2);
+    private static final int PAIRS = CARDS / 2;
+    private static final int GAME_SECONDS = 180;
+    private static final int MATCH_POINTS = 10;
+    // Gives the game room time to show a missed pair and turn it back before the bot moves
+    private static final long TURN_PAUSE_MS = 2800;
+    private static final long BOT_FLIP_MS = 900;
+
+    private static List<String[]> deck;
+    private static volatile PracticeBot.Level lastLevel = PracticeBot.Level.NORMAL;
+
+    private final String username;
+    private final PracticeBot bot;
+    private final Random random;
+    private final ScheduledExecutorService scheduler;
+
+    private final String[] cards = new String[CARDS];
+    private final int[] pairIds = new int[CARDS];
+    private final boolean[] paired = new boolean[CARDS];
+    private final int[] scores = new int[2];
+    private int currentPlayer;
+    private int flippedCard = -1;
+    private int round = 1;
+    private long deadline;
+    private boolean ended = false;
+
+    private Consumer<String> toClient;
+    private ScheduledFuture<?> timer;
+
+    public PracticeEngine(String username, PracticeBot.Level level) {
+        this(username, level, new Random());
+    }
+
+    public PracticeEngine(String username, PracticeBot.Level level, Random random) {
+        this.username = username;
+        this.random = random;
+        this.bot = new PracticeBot(level, random);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "PracticeEngine");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Override
+    public void open(Consumer<String> toClient) {
+        this.toClient = toClient;
+        scheduler.execute(() -> {
+            try {
+                start();
+            } catch (RuntimeException e) {
+                // Nothing else reports a failure on the scheduler thread
+                LOGGER.log(Level.SEVERE, "Practice game could not start", e);
+            }
+        });
+    }
+
+    @Override
+    public void receive(String message) {
+        scheduler.execute(() -> {
+            try {
+                handle(new JSONObject(message));
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Practice game could not handle " + message, e);
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void start() {
+        List<String[]> pairs = new ArrayList<>(loadDeck());
+        Collections.shuffle(pairs, random);
+        List<Integer> positions = new ArrayList<>(CARDS);
+        for (int i = 0; i < CARDS; i++) {
+            positions.add(i);
+        }
+        Collections.shuffle(positions, random);
+        for (int i = 0; i < PAIRS; i++) {
+            int question = positions.get(i * 2);
+            int answer = positions.get(i * 2 + 1);
+            // Copies of a pair share its id, so any of its questions matches any of its answers
+            int pair = i % pairs.size();
+            cards[question] = pairs.get(pair)[0];
+            cards[answer] = pairs.get(pair)[1];
+            pairIds[question] = pair;
+            pairIds[answer] = pair;
+        }
+
+        currentPlayer = random.nextInt(2);
+        deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(GAME_SECONDS);
+        timer = scheduler.schedule(() -> endGame(), GAME_SECONDS, TimeUnit.SECONDS);
+
+        send(event("game_ready")
+                .put("cards", new JSONArray(cards))
+                .put("opponentName", BOT_NAME)
+                .put("yourName", username)
+                .put("timeDuration", GAME_SECONDS)
+                .put("deadline", deadline));
+        send(event("players_ready")
+                .put("yourScore", scores[0])
+                .put("oppScore", scores[1])
+                .put("whoseTurn", nameOf(currentPlayer))
+                .put("deadline", deadline));
+        scheduleBot(BOT_FLIP_MS);
+    }
+
+    private void handle(JSONObject message) {
+        switch (message.optString("action")) {
+            case "flip" -> flip(0, message.optInt("cardIndex", -1));
+            case "move" -> move(0, message.optBoolean("matched"));
+            case "quit" -> {
+                // Quitting hands the win to the bot, as it does to the opponent online
+                endGame(nameOf(1));
+            }
+            case "ping" -> send(event("pong").put("clientTime", message.optLong("clientTime")));
+            default -> LOGGER.fine("Ignoring practice action " + message);
+        }
+    }
+
+    private void flip(int player, int cardIndex) {
+        if (ended || player != currentPlayer || cardIndex < 0 || cardIndex >= cards.length
+                || paired[cardIndex] || cardIndex == flippedCard) {
+            return;
+        }
+
+        send(event("card_flip").put("flippedBy", nameOf(player)).put("cardIndex", cardIndex));
+        bot.saw(cardIndex, pairIds[cardIndex]);
+
+        if (flippedCard == -1) {
+            flippedCard = cardIndex;
+            return;
+        }
+
+        int first = flippedCard;
+        flippedCard = -1;
+        if (pairIds[first] == pairIds[cardIndex]) {
+            paired[first] = true;
+            paired[cardIndex] = true;
+            bot.paired(first);
+            bot.paired(cardIndex);
+            match(player);
+        } else {
+            switchTurn(player);
+        }
+    }
+
+    // The game service's older protocol, where the client judged the pair itself
+    private void move(int player, boolean matched) {
+        if (ended || player != currentPlayer) {
+            return;
+        }
+        flippedCard = -1;
+        if (matched) {
+            match(player);
+        } else {
+            switchTurn(player);
+        }
+    }
+
+    private void match(int player) {
+        scores[player] += MATCH_POINTS;
+        for (boolean card : paired) {
+            if (!card) {
+                send(event("cards_matched")
+                        .put("yourScore", scores[0])
+                        .put("oppScore", scores[1])
+                        .put("paired", new JSONArray(paired))
+                        .put("whoseTurn", nameOf(currentPlayer))
+                        .put("deadline", deadline));
+                scheduleBot(BOT_FLIP_MS);
+                return;
+            }
+        }
+        endGame();
+    }
+
+    private void switchTurn(int player) {
+        currentPlayer = 1 - player;
+        round++;
+        send(event("turn_switch")
+                .put("round", round)
+                .put("whoseTurn", nameOf(currentPlayer))
+                .put("deadline", deadline));
+        scheduleBot(TURN_PAUSE_MS);
+    }
+
+    private void endGame() {
+        endGame(scores[0] > scores[1] ? nameOf(0) : scores[1] > scores[0] ? nameOf(1) : "tie");
+    }
+
+    private void endGame(String winner) {
+        if (ended) {
+            return;
+        }
+        ended = true;
+        if (timer != null) {
+            timer.cancel(false);
+        }
+        send(event("game_end")
+                .put("winner", winner)
+                .put("yourScore", scores[0])
+                .put("oppScore", scores[1]));
+    }
+
+    private void scheduleBot(long delayMs) {
+        if (currentPlayer == 1 && !ended) {
+            scheduler.schedule(this::botTurn, delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Turns over the bot's first card, then its second one a moment later
+    private void botTurn() {
+        if (ended || currentPlayer != 1) {
+            return;
+        }
+        int first = bot.chooseFirst(paired);
+        flip(1, first);
+        scheduler.schedule(() -> {
+            if (!ended && currentPlayer == 1 && flippedCard == first) {
+                flip(1, bot.chooseSecond(paired, first, pairIds[first]));
+            }
+        }, BOT_FLIP_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private String nameOf(int player) {
+        return player == 0 ? username : BOT_NAME;
+    }
+
+    private JSONObject event(String name) {
+        return new JSONObject().put("event", name).put("serverTime", System.currentTimeMillis());
+    }
+
+    private void send(JSONObject event) {
+        toClient.accept(event.toString());
+    }
+
+    // Question and answer of every pair in the bundled deck, in the game service's cards.json format
+    static synchronized List<String[]> loadDeck() {
+        if (deck == null) {
+            try (InputStream in = PracticeEngine.class.getResourceAsStream(ResourcePath.PRACTICE_DECK.getPath())) {
+                if (in == null) {
+                    throw new IOException("Missing practice deck " + ResourcePath.PRACTICE_DECK.getPath());
+                }
+                JSONArray entries = new JSONArray(new JSONTokener(in));
+                List<String[]> pairs = new ArrayList<>(entries.length());
+                for (int i = 0; i < entries.length(); i++) {
+                    JSONObject pair = entries.getJSONObject(i).getJSONObject("pair");
+                    pairs.add(new String[]{pair.getString("question"), pair.getString("answer")});
+                }
+                if (pairs.isEmpty()) {
+                    throw new IOException("Practice deck " + ResourcePath.PRACTICE_DECK.getPath() + " is empty");
+                }
+                deck = List.copyOf(pairs);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return deck;
+    }
+
+    // Sets a practice game up to be picked up by the game room scene in place of an online match
+    public static PracticeEngine prepare(String username, PracticeBot.Level level) {
+        lastLevel = level;
+        String roomId = ROOM_PREFIX + UUID.randomUUID();
+        PracticeEngine engine = new PracticeEngine(username, level);
+        GameRoomModel model = new GameRoomModel(roomId, null, username)
+                .useEndpoint(engine)
+                .deferEvents();
+        model.connect();
+        GameRoomHandoff.prepare(roomId, model);
+        Main.roomId = roomId;
+        return engine;
+    }
+
+    // The bot level of the most recent practice game, so another one can be started the same way
+    public static PracticeBot.Level lastLevel() {
+        return lastLevel;
+    }
+
+    public static boolean isPracticeRoom(String roomId) {
+        return roomId != null && roomId.startsWith(ROOM_PREFIX);
+    }
+}
@@ -0,0 +1,96 @@
+package org.amalzen.app.game_room;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.control.Label;
+import org.amalzen.app.rendering.PowerManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders the remaining game time from a deadline in the System.nanoTime() timebase.
+ * The deadline is replaced on every server resynchronisation, and the label is only
+ * touched when the displayed second changes. As it runs every frame of a game, it also counts
+ * frames and the frames missed in gaps longer than two frame intervals.
+ */
+class TurnClock extends AnimationTimer implements PowerManager.Suspendable {
+    private final Label label;
+    private long deadline;
+    private long shownSeconds = -1;
+    private boolean running = false;
+    private boolean suspended = false;
+
+    private final long frameNanos = TimeUnit.SECONDS.toNanos(1) / Integer.getInteger("javafx.animation.framerate", 60);
+    private long lastFrame = -1;
+    private long frames = 0;
+    private long droppedFrames = 0;
+
+    TurnClock(Label label) {
+        this.label = label;
+    }
+
+    void syncTo(long deadline) {
+        this.deadline = deadline;
+        if (!running) {
+            start();
+        }
+    }
+
+    @Override
+    public void handle(long now) {
+        frames++;
+        if (lastFrame >= 0 && now - lastFrame > 2 * frameNanos) {
+            droppedFrames += (now - lastFrame) / frameNanos - 1;
+        }
+        lastFrame = now;
+
+        long remaining = Math.max(0, TimeUnit.NANOSECONDS.toSeconds(deadline - now + 999_999_999L));
+        if (remaining != shownSeconds) {
+            shownSeconds = remaining;
+            label.setText(remaining + "s");
+        }
+        if (remaining == 0) {
+            stop();
+        }
+    }
+
+    long frames() {
+        return frames;
+    }
+
+    long droppedFrames() {
+        return droppedFrames;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        suspended = false;
+        lastFrame = -1;
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        suspended = false;
+        super.stop();
+    }
+
+    @Override
+    public void suspend() {
+        if (running && !suspended) {
+            suspended = true;
+            super.stop();
+        }
+    }
+
+    @Override
+    public void resume() {
+        if (suspended) {
+            suspended = false;
+            // Time spent hidden is not a stall
+            lastFrame = -1;
+            super.start();
+        }
+    }
+}
@@ -1,18 +1,18 @@
 package org.amalzen.app.leaderboards;
 
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.VBox;
-import org.amalzen.app.Main;
 import org.amalzen.app.ResourcePath;
+import org.amalzen.app.ViewLoader;
+import org.amalzen.app.modals.ModalManager;
 
 import java.io.IOException;
 import java.util.List;
 
-public class LeaderboardController {
+public class LeaderboardController implements ModalManager.Reusable {
     private final LeaderboardModel leaderboardModel;
 
     @FXML
@@ -26,9 +26,14 @@ public class LeaderboardController {
 
     public void initialize() {
         if (backButton != null) {
-            backButton.setOnMouseClicked(event -> Main.ChangeScene(ResourcePath.MAIN_MENU.getPath()));
+            // Shown as a modal over the main menu, which is still there underneath
+            backButton.setOnMouseClicked(event -> ModalManager.hide(backButton));
         }
+    }
 
+    // Called each time the modal opens, so it shows the standings as of then
+    @Override
+    public void reset() {
         if (leaderboardUserContainer != null) {
             refreshLeaderboard();
         }
@@ -41,8 +46,7 @@ public class LeaderboardController {
         try {
             int rank = 1;
             for (LeaderboardModel.LeaderboardEntry entry : entries) {
-                FXMLLoader loader = new FXMLLoader(getClass().getResource(ResourcePath.LEADERBOARD_COMPONENT.getPath()));
-                AnchorPane component = loader.load();
+                AnchorPane component = (AnchorPane) ViewLoader.load(ResourcePath.LEADERBOARD_COMPONENT.getPath()).root();
 
                 Label rankLabel = (Label) component.lookup("#rank");
                 Label usernameLabel = (Label) component.lookup("#username");
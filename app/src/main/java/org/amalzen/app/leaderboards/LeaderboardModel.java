@@ -1,13 +1,10 @@
 package org.amalzen.app.leaderboards;
 
 import org.amalzen.app.APIs;
-import org.amalzen.app.Main;
+import org.amalzen.app.ApiClient;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.util.ArrayList;
 import java.util.Comparator;
@@ -18,24 +15,15 @@ import java.util.logging.Logger;
 public class LeaderboardModel {
     private static final Logger LOGGER = Logger.getLogger(LeaderboardModel.class.getName());
     private static final String API_URL = APIs.USER_URL.getValue() + "/getUsers";
-    private final HttpClient client;
     private final List<LeaderboardEntry> entries;
 
     public LeaderboardModel() {
-        this.client = HttpClient.newHttpClient();
         this.entries = new ArrayList<>();
     }
 
     public List<LeaderboardEntry> fetchLeaderboard() {
         try {
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(API_URL))
-                    .header("Content-Type", "application/json")
-                    .header("Authorization", Main.sessionId)
-                    .GET()
-                    .build();
-
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = ApiClient.get(API_URL);
             JSONArray users = new JSONArray(response.body());
 
             entries.clear();
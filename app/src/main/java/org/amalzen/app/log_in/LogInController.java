@@ -1,13 +1,17 @@
 package org.amalzen.app.log_in;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.PasswordField;
 import javafx.scene.control.TextField;
+import org.amalzen.app.ApiClient;
 import org.amalzen.app.Main;
 import org.amalzen.app.ResourcePath;
 
+import java.util.concurrent.CompletionException;
+
 public class LogInController {
 
     @FXML
@@ -20,26 +24,34 @@ public class LogInController {
     private final LoginModel loginModel = new LoginModel();
 
     public void initialize() {
+        // Open connections to the servers while the player is still typing
+        ApiClient.warm();
+        usernameTextfield.textProperty().addListener((obs, oldText, newText) -> ApiClient.warm());
+        passwordField.focusedProperty().addListener((obs, wasFocused, focused) -> ApiClient.warm());
 
         loginButton.setOnMouseClicked(event -> {
             String username = usernameTextfield.getText();
             String password = passwordField.getText();
 
-            try {
-                String sessionId = loginModel.authenticate(username, password);
-                if (sessionId != null) {
+            loginButton.setDisable(true);
+            loginModel.authenticate(username, password).whenComplete((sessionId, error) -> Platform.runLater(() -> {
+                loginButton.setDisable(false);
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                    showError("Login failed: " + cause.getMessage());
+                } else if (sessionId != null) {
                     // Store session data
                     Main.sessionId = sessionId;
                     Main.username = username;
+                    SessionRefresher.onLogin(username, sessionId);
 
                     // Navigate to main menu
                     Main.ChangeScene(ResourcePath.MAIN_MENU.getPath());
                 } else {
                     showError("Invalid credentials");
                 }
-            } catch (Exception e) {
-                showError("Login failed: " + e.getMessage());
-            }
+            }));
         });
     }
 
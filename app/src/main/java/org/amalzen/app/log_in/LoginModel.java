@@ -2,20 +2,24 @@ package org.amalzen.app.log_in;
 
 import org.json.JSONObject;
 import org.amalzen.app.APIs;
+import org.amalzen.app.ApiClient;
+import org.amalzen.app.tracing.Span;
+import org.amalzen.app.tracing.Tracing;
 
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.io.IOException;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
 
 public class LoginModel {
     private static final String AUTH_API_URL = APIs.AUTH_URL.getValue() + "/login";
-    private static final HttpClient httpClient = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(10))
-            .build();
+    private static final String REFRESH_API_URL = APIs.AUTH_URL.getValue() + "/refresh";
 
-    public String authenticate(String username, String password) throws Exception {
+    // Logs in without blocking the caller; completes with the session id, or null for bad credentials
+    public CompletableFuture<String> authenticate(String username, String password) {
         // Create JSON payload
         JSONObject requestBody = new JSONObject();
         requestBody.put("username", username);
@@ -24,21 +28,49 @@ public class LoginModel {
         // Build request
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(AUTH_API_URL))
+                .timeout(Duration.ofSeconds(10))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(requestBody.toString()))
                 .build();
 
-        // Send request and get response
-        HttpResponse<String> response = httpClient.send(request,
-                HttpResponse.BodyHandlers.ofString());
+        // Send request and read the session id from the response
+        Span span = Tracing.start("login", Span.Kind.INTERNAL);
+        return ApiClient.sendAsync(APIs.AUTH_URL, request, HttpResponse.BodyHandlers.ofString(), span)
+                .thenApply(response -> {
+                    if (response.statusCode() == 200) {
+                        return new JSONObject(response.body()).getString("sessionId");
+                    }
+                    return null;
+                })
+                .whenComplete((sessionId, error) -> {
+                    if (error != null) {
+                        span.fail(error.toString());
+                    }
+                    span.attribute("authenticated", sessionId != null).end();
+                });
+    }
 
-        // Check response status
-        if (response.statusCode() ==
-                200) {
-            JSONObject jsonResponse = new JSONObject(response.body());
-            return jsonResponse.getString("sessionId");
-        }
+    /**
+     * Checks a stored session with the server and extends it.
+     *
+     * @return the new expiry, or null if the server no longer accepts the session
+     * @throws IOException if the server could not be reached
+     */
+    public Instant refresh(String sessionId) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(REFRESH_API_URL))
+                .timeout(Duration.ofSeconds(10))
+                .header("Authorization", sessionId)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
 
-        return null;
+        HttpResponse<String> response = ApiClient.send(APIs.AUTH_URL, request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() == 200) {
+            return Instant.parse(new JSONObject(response.body()).getString("expiresAt"));
+        }
+        if (response.statusCode() == 401) {
+            return null;
+        }
+        throw new IOException("Session refresh failed with status " + response.statusCode());
     }
-}
\ No newline at end of file
+}
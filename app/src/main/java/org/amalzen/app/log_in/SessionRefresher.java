@@ -0,0 +1,119 @@
+package org.amalzen.app.log_in;
+
+import javafx.application.Platform;
+import org.amalzen.app.APIs;
+import org.amalzen.app.ApiClient;
+import org.amalzen.app.Main;
+import org.amalzen.app.ResourcePath;
+import org.amalzen.app.audio.AudioHandler;
+import org.amalzen.app.match_history.MatchHistoryModel;
+import org.amalzen.app.profile.ProfileService;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Signs returning players in from the stored session and keeps that session alive. The stored
+ * session is trusted straight away and checked with the server in the background; if the
+ * server rejects it the player is sent back to the login screen.
+ */
+public class SessionRefresher {
+    private static final Logger LOGGER = Logger.getLogger(SessionRefresher.class.getName());
+    private static final long REFRESH_INTERVAL_MINUTES = 60;
+    // Matches the server's session expiry, used until the first refresh reports the real one
+    private static final Duration SESSION_LIFETIME = Duration.ofHours(24);
+
+    private static final LoginModel loginModel = new LoginModel();
+    private static ScheduledExecutorService executor;
+
+    // Restores the stored session without waiting for the network, returns false if there is none
+    public static boolean resumeStoredSession() {
+        SessionStore.Session session = SessionStore.load();
+        if (session == null) {
+            return false;
+        }
+        Main.sessionId = session.sessionId();
+        Main.username = session.username();
+        LOGGER.info("Resuming stored session for " + session.username());
+        prefetchAfterLogin();
+        schedule(0);
+        return true;
+    }
+
+    public static void onLogin(String username, String sessionId) {
+        prefetchAfterLogin();
+        SessionStore.save(new SessionStore.Session(username, sessionId, Instant.now().plus(SESSION_LIFETIME)));
+        schedule(REFRESH_INTERVAL_MINUTES);
+    }
+
+    // Starts the profile, leaderboard and history requests in parallel for the current session
+    private static void prefetchAfterLogin() {
+        ApiClient.prefetch(APIs.USER_URL.getValue() + "/getUsers");
+        ProfileService.prefetch();
+        MatchHistoryModel.syncInBackground(Main.username);
+    }
+
+    // Stops refreshing and forgets the stored session, used on logout
+    public static synchronized void forget() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        SessionStore.clear();
+    }
+
+    private static synchronized void schedule(long initialDelayMinutes) {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "SessionRefresher");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(SessionRefresher::refresh,
+                initialDelayMinutes, REFRESH_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    private static void refresh() {
+        String sessionId = Main.sessionId;
+        String username = Main.username;
+        if (sessionId == null) {
+            return;
+        }
+
+        try {
+            Instant expiresAt = loginModel.refresh(sessionId);
+            if (expiresAt == null) {
+                LOGGER.info("Stored session was rejected by the server");
+                Platform.runLater(() -> expire(sessionId));
+                return;
+            }
+            SessionStore.save(new SessionStore.Session(username, sessionId, expiresAt));
+        } catch (IOException e) {
+            // Offline or server down: keep the session and try again on the next round
+            LOGGER.log(Level.INFO, "Session refresh failed, retrying later", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void expire(String sessionId) {
+        if (!sessionId.equals(Main.sessionId)) {
+            return; // already logged out or logged in again
+        }
+        forget();
+        ProfileService.clear();
+        MatchHistoryModel.closeCurrent();
+        Main.sessionId = null;
+        Main.username = null;
+        AudioHandler.stopMusic();
+        Main.ChangeScene(ResourcePath.LOGIN.getPath());
+    }
+}
@@ -0,0 +1,163 @@
+package org.amalzen.app.log_in;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the last session on disk so returning players skip the login screen. The session is
+ * encrypted with AES-GCM using a key generated on first use, and both files are readable by
+ * the current user only.
+ */
+public class SessionStore {
+    private static final Logger LOGGER = Logger.getLogger(SessionStore.class.getName());
+    private static final Path DIRECTORY = Path.of(System.getProperty("user.home"), ".cache-game");
+    private static final Path SESSION_FILE = DIRECTORY.resolve("session.dat");
+    private static final Path KEY_FILE = DIRECTORY.resolve("session.key");
+
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+    private static final byte[] ASSOCIATED_DATA = "cache-session-v1".getBytes(StandardCharsets.UTF_8);
+
+    public record Session(String username, String sessionId, Instant expiresAt) {
+        boolean isExpired() {
+            return !expiresAt.isAfter(Instant.now());
+        }
+    }
+
+    // The saved session, or null if there is none or it has expired
+    public static synchronized Session load() {
+        if (!Files.exists(SESSION_FILE) || !Files.exists(KEY_FILE)) {
+            return null;
+        }
+        try {
+            byte[] data = Files.readAllBytes(SESSION_FILE);
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.DECRYPT_MODE, readKey(),
+                    new GCMParameterSpec(TAG_BITS, Arrays.copyOfRange(data, 0, IV_LENGTH)));
+            cipher.updateAAD(ASSOCIATED_DATA);
+            byte[] plain = cipher.doFinal(data, IV_LENGTH, data.length - IV_LENGTH);
+
+            JSONObject json = new JSONObject(new String(plain, StandardCharsets.UTF_8));
+            Session session = new Session(json.getString("username"), json.getString("sessionId"),
+                    Instant.ofEpochMilli(json.getLong("expiresAt")));
+            if (session.isExpired()) {
+                clear();
+                return null;
+            }
+            return session;
+        } catch (IOException | GeneralSecurityException | JSONException | IllegalArgumentException e) {
+            // Unreadable or tampered with, start over from the login screen
+            LOGGER.log(Level.WARNING, "Discarding stored session", e);
+            clear();
+            return null;
+        }
+    }
+
+    public static synchronized void save(Session session) {
+        try {
+            createPrivateDirectory();
+            SecretKey key = Files.exists(KEY_FILE) ? readKey() : createKey();
+
+            byte[] iv = new byte[IV_LENGTH];
+            new SecureRandom().nextBytes(iv);
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(ASSOCIATED_DATA);
+
+            JSONObject json = new JSONObject()
+                    .put("username", session.username())
+                    .put("sessionId", session.sessionId())
+                    .put("expiresAt", session.expiresAt().toEpochMilli());
+            byte[] encrypted = cipher.doFinal(json.toString().getBytes(StandardCharsets.UTF_8));
+
+            byte[] data = new byte[IV_LENGTH + encrypted.length];
+            System.arraycopy(iv, 0, data, 0, IV_LENGTH);
+            System.arraycopy(encrypted, 0, data, IV_LENGTH, encrypted.length);
+            writePrivate(SESSION_FILE, data);
+        } catch (IOException | GeneralSecurityException e) {
+            LOGGER.log(Level.WARNING, "Could not store session", e);
+        }
+    }
+
+    public static synchronized void clear() {
+        try {
+            Files.deleteIfExists(SESSION_FILE);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not delete stored session", e);
+        }
+    }
+
+    private static SecretKey readKey() throws IOException {
+        return new SecretKeySpec(Files.readAllBytes(KEY_FILE), "AES");
+    }
+
+    private static SecretKey createKey() throws IOException, GeneralSecurityException {
+        KeyGenerator generator = KeyGenerator.getInstance("AES");
+        generator.init(256);
+        SecretKey key = generator.generateKey();
+        writePrivate(KEY_FILE, key.getEncoded());
+        return key;
+    }
+
+    private static boolean isPosix() {
+        return FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+    }
+
+    private static void createPrivateDirectory() throws IOException {
+        if (Files.isDirectory(DIRECTORY)) {
+            return;
+        }
+        if (isPosix()) {
+            Files.createDirectories(DIRECTORY,
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        } else {
+            Files.createDirectories(DIRECTORY);
+            restrictToOwner(DIRECTORY.toFile());
+        }
+    }
+
+    // Writes to a private temp file first so a crash never leaves a half-written file behind
+    private static void writePrivate(Path target, byte[] data) throws IOException {
+        Path temp = isPosix()
+                ? Files.createTempFile(DIRECTORY, "session", ".tmp",
+                PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")))
+                : Files.createTempFile(DIRECTORY, "session", ".tmp");
+        try {
+            if (!isPosix()) {
+                restrictToOwner(temp.toFile());
+            }
+            Files.write(temp, data);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void restrictToOwner(File file) {
+        file.setReadable(false, false);
+        file.setReadable(true, true);
+        file.setWritable(false, false);
+        file.setWritable(true, true);
+    }
+}
@@ -0,0 +1,182 @@
+package org.amalzen.app.logging;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.ErrorManager;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * Writes log records from a background thread, so the JavaFX and WebSocket threads only pay
+ * for putting a record into a bounded ring buffer. When the buffer is full, records are dropped
+ * rather than making the caller wait. Each logger is rate limited on its own below WARNING;
+ * what a limit or a full buffer drops is reported in the next record that gets through.
+ */
+public class AsyncLogHandler extends Handler {
+    private static final int DEFAULT_CAPACITY = 4096;
+    private static final double DEFAULT_RECORDS_PER_SECOND = 50;
+    private static final int DEFAULT_BURST = 200;
+    private static final long REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final BlockingQueue<Queued> buffer;
+    private final Writer out;
+    private final double recordsPerSecond;
+    private final int burst;
+    private final Map<String, RateLimit> limits = new ConcurrentHashMap<>();
+    private final AtomicLong overflowed = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean closed = false;
+
+    public AsyncLogHandler() {
+        this(System.err, DEFAULT_CAPACITY, DEFAULT_RECORDS_PER_SECOND, DEFAULT_BURST);
+    }
+
+    /**
+     * @param recordsPerSecond sustained records allowed per logger below WARNING
+     * @param burst            records a logger may write at once before the rate applies
+     */
+    public AsyncLogHandler(OutputStream stream, int capacity, double recordsPerSecond, int burst) {
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.out = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+        this.recordsPerSecond = recordsPerSecond;
+        this.burst = burst;
+        setFormatter(new StructuredFormatter());
+        writer = new Thread(this::drain, "AsyncLogHandler");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) {
+            return;
+        }
+        if (record.getLevel().intValue() < Level.WARNING.intValue()) {
+            String category = record.getLoggerName() != null ? record.getLoggerName() : "";
+            if (!limits.computeIfAbsent(category, name -> new RateLimit()).tryAcquire()) {
+                return;
+            }
+        }
+        if (!buffer.offer(new Queued(record, Thread.currentThread().getName()))) {
+            overflowed.incrementAndGet();
+        }
+    }
+
+    private void drain() {
+        while (!closed || !buffer.isEmpty()) {
+            Queued record;
+            try {
+                record = buffer.poll(250, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (record == null) {
+                continue;
+            }
+            try {
+                write(record);
+                // Flush once the burst is written rather than after every record
+                if (buffer.isEmpty()) {
+                    out.flush();
+                }
+            } catch (IOException | RuntimeException e) {
+                reportError("Failed to write log record", e, ErrorManager.WRITE_FAILURE);
+            }
+        }
+        try {
+            out.flush();
+        } catch (IOException e) {
+            reportError("Failed to flush log", e, ErrorManager.FLUSH_FAILURE);
+        }
+    }
+
+    private void write(Queued queued) throws IOException {
+        LogRecord record = queued.record();
+        long lost = overflowed.getAndSet(0);
+        if (lost > 0) {
+            out.write(format(notice(Level.WARNING, null, "Log buffer full", lost), queued.thread()));
+        }
+        RateLimit limit = record.getLoggerName() != null ? limits.get(record.getLoggerName()) : null;
+        long suppressed = limit != null ? limit.takeSuppressed() : 0;
+        if (suppressed > 0) {
+            out.write(format(notice(Level.INFO, record.getLoggerName(), "Log rate limited", suppressed), queued.thread()));
+        }
+        out.write(format(record, queued.thread()));
+    }
+
+    private String format(LogRecord record, String thread) {
+        Formatter formatter = getFormatter();
+        return formatter instanceof StructuredFormatter structured
+                ? structured.format(record, thread)
+                : formatter.format(record);
+    }
+
+    private static LogRecord notice(Level level, String loggerName, String message, long dropped) {
+        return Log.record(level, loggerName != null ? loggerName : AsyncLogHandler.class.getName(),
+                message, new Object[]{"dropped", dropped});
+    }
+
+    @Override
+    public void flush() {
+        // The writer flushes whenever it catches up; waiting here would block the caller
+    }
+
+    // Writes out what is still buffered, waiting at most a second
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writer.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // The name of the thread that logged, which is gone by the time the record is written
+    private record Queued(LogRecord record, String thread) {
+    }
+
+    // A token bucket, refilled lazily when a record asks for a token
+    private final class RateLimit {
+        private double tokens = burst;
+        private long refilledAt = System.nanoTime();
+        private long suppressed;
+        private long reportedAt = refilledAt;
+
+        synchronized boolean tryAcquire() {
+            long now = System.nanoTime();
+            tokens = Math.min(burst, tokens + (now - refilledAt) / 1e9 * recordsPerSecond);
+            refilledAt = now;
+            if (tokens >= 1) {
+                tokens--;
+                return true;
+            }
+            suppressed++;
+            return false;
+        }
+
+        // Records dropped since the last report, reported at most once a second
+        synchronized long takeSuppressed() {
+            long now = System.nanoTime();
+            if (suppressed == 0 || now - reportedAt < REPORT_INTERVAL_NANOS) {
+                return 0;
+            }
+            long count = suppressed;
+            suppressed = 0;
+            reportedAt = now;
+            return count;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.amalzen.app.logging;
+
+import java.util.logging.ConsoleHandler;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Structured logging on top of java.util.logging. Messages are fixed text with the varying
+ * parts passed as key/value fields, so nothing is concatenated or serialised unless the level
+ * is enabled, and a field holding a Supplier is only evaluated when the line is written.
+ *
+ * <pre>
+ * Log.info(LOGGER, "Sending flip", "cardIndex", cardIndex);
+ * Log.fine(LOGGER, "Received message", "body", (Supplier&lt;String&gt;) response::toString);
+ * </pre>
+ */
+public final class Log {
+    private static final String LEVEL_PROPERTY = "cache.log.level";
+
+    private Log() {
+    }
+
+    public static void info(Logger logger, String message, Object... fields) {
+        log(logger, Level.INFO, message, fields);
+    }
+
+    public static void fine(Logger logger, String message, Object... fields) {
+        log(logger, Level.FINE, message, fields);
+    }
+
+    public static void warning(Logger logger, String message, Object... fields) {
+        log(logger, Level.WARNING, message, fields);
+    }
+
+    public static void log(Logger logger, Level level, String message, Object... fields) {
+        if (!logger.isLoggable(level)) {
+            return;
+        }
+        logger.log(record(level, logger.getName(), message, fields));
+    }
+
+    static LogRecord record(Level level, String loggerName, String message, Object[] fields) {
+        LogRecord record = new FieldsRecord(level, message);
+        record.setLoggerName(loggerName);
+        record.setParameters(fields);
+        return record;
+    }
+
+    static boolean isFields(LogRecord record) {
+        return record instanceof FieldsRecord;
+    }
+
+    /**
+     * Sends the app's logging through an AsyncLogHandler in place of the console handler.
+     * The level comes from -Dcache.log.level, INFO by default.
+     */
+    public static synchronized void install() {
+        Logger root = Logger.getLogger("");
+        for (Handler handler : root.getHandlers()) {
+            if (handler instanceof AsyncLogHandler) {
+                return;
+            }
+            if (handler instanceof ConsoleHandler) {
+                root.removeHandler(handler);
+                handler.close();
+            }
+        }
+
+        Level level = Level.parse(System.getProperty(LEVEL_PROPERTY, "INFO"));
+        AsyncLogHandler handler = new AsyncLogHandler();
+        handler.setLevel(level);
+        root.addHandler(handler);
+        Logger.getLogger("org.amalzen.app").setLevel(level);
+
+        // Write out what is still buffered when the app exits
+        Runtime.getRuntime().addShutdownHook(new Thread(handler::close, "AsyncLogHandler-Shutdown"));
+    }
+
+    // Marks records whose parameters are key/value fields rather than {0} style arguments
+    private static final class FieldsRecord extends LogRecord {
+        FieldsRecord(Level level, String message) {
+            super(level, message);
+        }
+    }
+}
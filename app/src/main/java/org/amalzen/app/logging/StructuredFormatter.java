@@ -0,0 +1,98 @@
+package org.amalzen.app.logging;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.util.function.Supplier;
+import java.util.logging.Formatter;
+import java.util.logging.LogRecord;
+
+/**
+ * Formats a record as one line of key=value pairs:
+ * <pre>
+ * time=2025-01-01T12:00:00.123Z level=INFO logger=game_room.GameRoomModel thread=GameRoomClient-Callback msg="Sending flip" cardIndex=3
+ * </pre>
+ * Records logged through {@link Log} carry their fields as alternating key and value parameters.
+ * Values that are a {@link Supplier} are only evaluated here, on the thread writing the log.
+ */
+public class StructuredFormatter extends Formatter {
+    private static final String APP_PACKAGE = "org.amalzen.app.";
+
+    @Override
+    public String format(LogRecord record) {
+        return format(record, Thread.currentThread().getName());
+    }
+
+    // The thread name is passed in when the record is formatted away from the thread that logged it
+    String format(LogRecord record, String threadName) {
+        StringBuilder line = new StringBuilder(160);
+        line.append("time=").append(Instant.ofEpochMilli(record.getMillis()));
+        line.append(" level=").append(record.getLevel().getName());
+        String logger = record.getLoggerName();
+        if (logger != null) {
+            append(line, "logger", logger.startsWith(APP_PACKAGE) ? logger.substring(APP_PACKAGE.length()) : logger);
+        }
+        append(line, "thread", threadName);
+
+        Object[] parameters = record.getParameters();
+        if (Log.isFields(record)) {
+            append(line, "msg", record.getMessage());
+            for (int i = 0; i + 1 < parameters.length; i += 2) {
+                append(line, String.valueOf(parameters[i]), parameters[i + 1]);
+            }
+        } else {
+            // Plain java.util.logging records, with {0} style parameters
+            append(line, "msg", formatMessage(record));
+        }
+
+        Throwable thrown = record.getThrown();
+        if (thrown != null) {
+            append(line, "error", thrown.toString());
+            StringWriter trace = new StringWriter();
+            thrown.printStackTrace(new PrintWriter(trace));
+            line.append(System.lineSeparator()).append(trace.toString().stripTrailing());
+        }
+        return line.append(System.lineSeparator()).toString();
+    }
+
+    private static void append(StringBuilder line, String key, Object value) {
+        if (value instanceof Supplier<?> supplier) {
+            try {
+                value = supplier.get();
+            } catch (RuntimeException e) {
+                value = "<" + e + ">";
+            }
+        }
+        line.append(' ').append(key).append('=');
+        String text = String.valueOf(value);
+        if (!needsQuotes(text)) {
+            line.append(text);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                default -> line.append(c);
+            }
+        }
+        line.append('"');
+    }
+
+    private static boolean needsQuotes(String text) {
+        if (text.isEmpty()) {
+            return true;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c <= ' ' || c == '"' || c == '=' || c == '\\') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
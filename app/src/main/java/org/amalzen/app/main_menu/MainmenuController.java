@@ -3,12 +3,15 @@ package org.amalzen.app.main_menu;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
-import javafx.scene.image.Image;
+import javafx.scene.control.ChoiceBox;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.AnchorPane;
 import org.amalzen.app.Main;
 import org.amalzen.app.ResourcePath;
 import org.amalzen.app.audio.AudioHandler;
+import org.amalzen.app.game_room.PracticeBot;
+import org.amalzen.app.game_room.PracticeEngine;
+import org.amalzen.app.rendering.TextureAtlas;
 
 public class MainmenuController {
     @FXML
@@ -27,10 +30,16 @@ public class MainmenuController {
     private Button leaderboardButton;
 
     @FXML
-    public AnchorPane rootPane;
+    private Button historyButton;
 
-    private Image musicOnIcon;
-    private Image musicOffIcon;
+    @FXML
+    private Button practiceButton;
+
+    @FXML
+    private ChoiceBox<PracticeBot.Level> practiceLevelChoiceBox;
+
+    @FXML
+    public AnchorPane rootPane;
 
     @FXML
     void showPage(ActionEvent event) {
@@ -39,8 +48,14 @@ public class MainmenuController {
             Main.ChangeScene(ResourcePath.MATCHMAKING.getPath());
         } else if (clickButton == leaderboardButton) {
             Main.showModals(ResourcePath.LEADERBOARD.getPath(), rootPane);
+        } else if (clickButton == historyButton) {
+            Main.ChangeScene(ResourcePath.HISTORY.getPath());
         } else if (clickButton == logoutButton) {
             Main.showModals(ResourcePath.LOGOUT_MODAL.getPath(), rootPane);
+        } else if (clickButton == practiceButton) {
+            // Played offline against a bot, so there is no matchmaking step
+            PracticeEngine.prepare(Main.username, practiceLevelChoiceBox.getValue());
+            Main.ChangeScene(ResourcePath.GAME_ROOM.getPath());
         } else if (clickButton == howToPlayButton) {
             Main.ChangeScene(ResourcePath.INSTRUCTION.getPath());
         }
@@ -50,19 +65,20 @@ public class MainmenuController {
     private void initialize() {
         AudioHandler.playSound(ResourcePath.MAIN_MENU_MUSIC.getPath());
 
-        musicOnIcon = new Image(getClass().getResourceAsStream(ResourcePath.SOUND_ON_ICON.getPath()));
-        musicOffIcon = new Image(getClass().getResourceAsStream(ResourcePath.SOUND_OFF_ICON.getPath()));
-
         toggleMusicImageView.setOnMouseClicked(event -> {
             AudioHandler.setMusicMuted(!AudioHandler.isMusicMuted());
             updateMusicIconState();
         });
         updateMusicIconState();
+
+        practiceLevelChoiceBox.getItems().setAll(PracticeBot.Level.values());
+        practiceLevelChoiceBox.setValue(PracticeEngine.lastLevel());
     }
 
 
     private void updateMusicIconState() {
-        toggleMusicImageView.setImage(AudioHandler.isMusicMuted() ? musicOffIcon : musicOnIcon);
+        TextureAtlas.show(toggleMusicImageView, (AudioHandler.isMusicMuted()
+                ? ResourcePath.SOUND_OFF_ICON : ResourcePath.SOUND_ON_ICON).getPath());
     }
 
 }
@@ -0,0 +1,79 @@
+package org.amalzen.app.match_history;
+
+import javafx.geometry.Pos;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+import org.amalzen.app.ResourcePath;
+import org.amalzen.app.rendering.TextureAtlas;
+
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.function.IntConsumer;
+
+/**
+ * One row of the match history list. The row's nodes are built once and reused as the list
+ * scrolls; only the text and badge change when the cell is given another record.
+ */
+class MatchEntryCell extends ListCell<MatchRecord> {
+    private static final DateTimeFormatter DATE_FORMAT =
+            DateTimeFormatter.ofPattern("MMM d, yyyy  h:mm a").withZone(ZoneId.systemDefault());
+
+    private final String username;
+    private final IntConsumer onShown;
+    private final HBox row = new HBox();
+    private final ImageView resultIcon = new ImageView();
+    private final Label opponent = new Label();
+    private final Label score = new Label();
+    private final Label playedAt = new Label();
+
+    /**
+     * @param username the player whose history this is
+     * @param onShown  told the index of each row as it comes into view, to load more rows
+     */
+    MatchEntryCell(String username, IntConsumer onShown) {
+        this.username = username;
+        this.onShown = onShown;
+
+        resultIcon.setFitHeight(100);
+        resultIcon.setFitWidth(180);
+        resultIcon.setPreserveRatio(true);
+        for (Label label : new Label[]{opponent, score, playedAt}) {
+            label.getStyleClass().add("match-entry-text");
+            label.setAlignment(Pos.CENTER);
+            label.setPrefWidth(420);
+        }
+
+        row.getStyleClass().add("match-entry-background");
+        row.setAlignment(Pos.CENTER);
+        row.setSpacing(20);
+        row.setPrefSize(1559, 124);
+        row.getChildren().addAll(resultIcon, opponent, score, playedAt);
+        setAlignment(Pos.CENTER);
+    }
+
+    @Override
+    protected void updateItem(MatchRecord record, boolean empty) {
+        super.updateItem(record, empty);
+        if (empty || record == null) {
+            setGraphic(null);
+            return;
+        }
+
+        int yours = record.scoreOf(username);
+        int theirs = record.opponentScoreOf(username);
+        if (yours == theirs) {
+            resultIcon.setImage(null);
+        } else {
+            TextureAtlas.show(resultIcon, (yours > theirs
+                    ? ResourcePath.MATCH_VICTORY_ICON : ResourcePath.MATCH_DEFEAT_ICON).getPath());
+        }
+        opponent.setText("vs " + record.opponentOf(username));
+        score.setText(yours + " - " + theirs);
+        playedAt.setText(DATE_FORMAT.format(record.playedAt()));
+        setGraphic(row);
+
+        onShown.accept(getIndex());
+    }
+}
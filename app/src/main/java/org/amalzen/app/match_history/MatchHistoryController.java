@@ -0,0 +1,159 @@
+package org.amalzen.app.match_history;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.fxml.FXML;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
+import org.amalzen.app.Main;
+import org.amalzen.app.ResourcePath;
+import org.amalzen.app.game_room.GameRecorder;
+import org.amalzen.app.game_room.GameReplay;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class MatchHistoryController {
+    private static final Logger LOGGER = Logger.getLogger(MatchHistoryController.class.getName());
+    // Start loading the next page this many rows before the end of the list
+    private static final int LOAD_AHEAD = 10;
+
+    @FXML
+    private Button backButton;
+    @FXML
+    private ListView<MatchRecord> historyList;
+    @FXML
+    private Label statusLabel;
+
+    private final ObservableList<MatchRecord> records = FXCollections.observableArrayList();
+    private MatchHistoryModel model;
+    private boolean loading = false;
+    // Paging waits for the first sync, so newly synced games cannot shift the pages underneath
+    private boolean synced = false;
+
+    @FXML
+    private void initialize() {
+        backButton.setOnMouseClicked(event -> Main.ChangeScene(ResourcePath.MAIN_MENU.getPath()));
+
+        model = MatchHistoryModel.forUser(Main.username);
+        historyList.setItems(records);
+        historyList.setPlaceholder(new Label());
+        historyList.setCellFactory(list -> new MatchEntryCell(model.username(), this::onRowShown));
+        historyList.setOnMouseClicked(event -> {
+            MatchRecord selected = historyList.getSelectionModel().getSelectedItem();
+            if (selected != null && event.getClickCount() == 2) {
+                watchReplay(selected);
+            }
+        });
+
+        // Show what is stored straight away, then add whatever was played since
+        statusLabel.setText("Loading...");
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return model.storedPage(0, MatchHistoryModel.PAGE_SIZE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).whenComplete((stored, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                LOGGER.log(Level.WARNING, "Could not read stored match history", error);
+            } else {
+                records.setAll(stored);
+            }
+            model.syncNewer().whenComplete((added, syncError) -> showNewest(syncError));
+        }));
+    }
+
+    // Games played on this machine are recorded and can be watched again
+    private void watchReplay(MatchRecord record) {
+        Path recording = GameRecorder.find(record.gameroomId());
+        if (recording == null) {
+            statusLabel.setText("No replay saved for this game");
+            return;
+        }
+        try {
+            GameReplay.watch(recording, 1);
+            Main.ChangeScene(ResourcePath.GAME_ROOM.getPath());
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not open replay " + recording, e);
+            statusLabel.setText("Could not open the replay");
+        }
+    }
+
+    private void onRowShown(int index) {
+        if (synced && !loading && index >= records.size() - LOAD_AHEAD && model.hasMore(records.size())) {
+            loadPage();
+        }
+    }
+
+    private void loadPage() {
+        loading = true;
+        int from = records.size();
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return model.loadPage(from);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }).whenComplete((page, error) -> Platform.runLater(() -> {
+            loading = false;
+            if (error != null) {
+                LOGGER.log(Level.WARNING, "Could not load match history page", error);
+            } else if (records.size() == from) {
+                records.addAll(page);
+            }
+        }));
+    }
+
+    // Adds the games newer than the newest one shown, once a sync has finished
+    private void showNewest(Throwable syncError) {
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return model.storedPage(0, MatchHistoryModel.PAGE_SIZE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).whenComplete((newest, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                LOGGER.log(Level.WARNING, "Could not read stored match history", error);
+            } else {
+                String shownNewest = records.isEmpty() ? null : records.get(0).id();
+                int newer = 0;
+                while (newer < newest.size() && (shownNewest == null || newest.get(newer).id().compareTo(shownNewest) > 0)) {
+                    newer++;
+                }
+                if (newer == newest.size()) {
+                    // More new games than a page, start over from the top
+                    records.setAll(newest);
+                } else {
+                    records.addAll(0, newest.subList(0, newer));
+                    // Games saved again keep their place, only what is shown for them changes
+                    for (int i = newer; i < Math.min(newest.size(), records.size()); i++) {
+                        if (!records.get(i).equals(newest.get(i))) {
+                            records.set(i, newest.get(i));
+                        }
+                    }
+                }
+            }
+
+            synced = true;
+            if (syncError != null) {
+                LOGGER.log(Level.WARNING, "Could not fetch new games", syncError);
+                statusLabel.setText(records.isEmpty() ? "Could not load match history" : "Showing saved games (offline)");
+            } else {
+                statusLabel.setText(records.isEmpty() ? "No matches played yet" : "");
+            }
+            // The first page may not fill the list, so nothing would scroll into view to load more
+            onRowShown(records.size() - 1);
+        }));
+    }
+}
@@ -0,0 +1,218 @@
+package org.amalzen.app.match_history;
+
+import org.amalzen.app.APIs;
+import org.amalzen.app.ApiClient;
+import org.json.JSONArray;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A player's match history, served from the local store and topped up from the server. Only
+ * games saved on the server since the most recently updated stored one, new or changed, are
+ * downloaded when the history is synced; older games are fetched a page at a time once the
+ * player scrolls past what is stored.
+ */
+public class MatchHistoryModel {
+    private static final Logger LOGGER = Logger.getLogger(MatchHistoryModel.class.getName());
+    private static final String PAGE_URL = APIs.HISTORY_URL.getValue() + "/getGameHistoriesPage";
+    private static final Path HISTORY_DIRECTORY = Path.of(System.getProperty("user.home"), ".cache-game", "history");
+    static final int PAGE_SIZE = 50;
+
+    private static MatchHistoryModel current;
+
+    private final String username;
+    private MatchHistoryStore store;
+    private CompletableFuture<Integer> sync;
+    private volatile boolean reachedOldest = false;
+
+    private MatchHistoryModel(String username) {
+        this.username = username;
+    }
+
+    // The model for this player, shared so the store file is only open once
+    public static synchronized MatchHistoryModel forUser(String username) {
+        if (current == null || !current.username.equals(username)) {
+            closeCurrent();
+            current = new MatchHistoryModel(username);
+        }
+        return current;
+    }
+
+    // Downloads new games in the background, e.g. right after login
+    public static void syncInBackground(String username) {
+        forUser(username).syncNewer().exceptionally(ex -> {
+            LOGGER.log(Level.WARNING, "Background match history sync failed", ex);
+            return 0;
+        });
+    }
+
+    public static synchronized void closeCurrent() {
+        if (current != null) {
+            current.close();
+            current = null;
+        }
+    }
+
+    public String username() {
+        return username;
+    }
+
+    /**
+     * Fetches the games saved since the last sync, new or changed. Concurrent callers share one
+     * sync.
+     *
+     * @return how many games were added, which are the newest entries of the store
+     */
+    public synchronized CompletableFuture<Integer> syncNewer() {
+        if (sync == null || sync.isDone()) {
+            sync = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return fetchNewer();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while syncing match history", e);
+                }
+            });
+        }
+        return sync;
+    }
+
+    /**
+     * Returns the stored games from position from onwards, newest first, fetching an older page
+     * from the server first if the store runs out. Blocks, so call it off the FX thread.
+     */
+    public List<MatchRecord> loadPage(int from) throws IOException, InterruptedException {
+        MatchHistoryStore store = store();
+        if (from + PAGE_SIZE > store.size() && !reachedOldest) {
+            List<MatchRecord> older = fetchPage(pageUrl(username, store.oldestId(), null));
+            if (older.size() < PAGE_SIZE) {
+                reachedOldest = true;
+            }
+            store.append(older);
+        }
+        return store.page(from, PAGE_SIZE);
+    }
+
+    // Stored games only, newest first, without touching the network
+    public List<MatchRecord> storedPage(int from, int count) throws IOException {
+        return store().page(from, count);
+    }
+
+    public boolean hasMore(int loaded) {
+        try {
+            return !reachedOldest || loaded < store().size();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private int fetchNewer() throws IOException, InterruptedException {
+        MatchHistoryStore store = store();
+        if (store.size() == 0) {
+            // Nothing stored yet, the first page is all the history screen needs up front
+            List<MatchRecord> first = fetchPage(pageUrl(username, null, null));
+            reachedOldest = first.size() < PAGE_SIZE;
+            return store.append(first);
+        }
+
+        // Changes come oldest first, each page continuing after the last record of the one before
+        long updatedAfter = store.lastUpdatedAt();
+        String afterId = store.lastUpdatedId();
+        int added = 0;
+        int changes = 0;
+        List<MatchRecord> page;
+        do {
+            page = fetchPage(changesUrl(username, updatedAfter, afterId));
+            if (page.isEmpty()) {
+                break;
+            }
+            // A game older than everything stored is left for loadPage, or paging would skip
+            // the games between it and the stored ones
+            String oldest = store.oldestId();
+            List<MatchRecord> kept = new ArrayList<>(page.size());
+            for (MatchRecord record : page) {
+                if (record.id().compareTo(oldest) >= 0 || store.contains(record.gameroomId())) {
+                    kept.add(record);
+                }
+            }
+            added += store.append(kept);
+            changes += kept.size();
+            MatchRecord last = page.get(page.size() - 1);
+            updatedAfter = last.updatedAt();
+            afterId = last.id();
+        } while (page.size() == PAGE_SIZE);
+
+        LOGGER.info("Match history synced, " + added + " new games, " + (changes - added) + " changed");
+        return added;
+    }
+
+    private List<MatchRecord> fetchPage(String url) throws IOException, InterruptedException {
+        HttpResponse<String> response = ApiClient.get(url);
+        if (response.statusCode() != 200) {
+            throw new IOException("Match history request failed with status " + response.statusCode());
+        }
+
+        JSONArray games = new JSONArray(response.body());
+        List<MatchRecord> records = new ArrayList<>(games.length());
+        for (int i = 0; i < games.length(); i++) {
+            records.add(MatchRecord.fromJson(games.getJSONObject(i)));
+        }
+        return records;
+    }
+
+    static String pageUrl(String username, String before, String after) {
+        StringBuilder url = new StringBuilder(PAGE_URL)
+                .append("?player=").append(URLEncoder.encode(username, StandardCharsets.UTF_8))
+                .append("&limit=").append(PAGE_SIZE);
+        if (before != null) {
+            url.append("&before=").append(before);
+        }
+        if (after != null) {
+            url.append("&after=").append(after);
+        }
+        return url.toString();
+    }
+
+    // Games saved after the given update time, or after the given id among those saved at that time
+    static String changesUrl(String username, long updatedAfter, String afterId) {
+        StringBuilder url = new StringBuilder(PAGE_URL)
+                .append("?player=").append(URLEncoder.encode(username, StandardCharsets.UTF_8))
+                .append("&limit=").append(PAGE_SIZE)
+                .append("&updatedAfter=").append(updatedAfter);
+        if (afterId != null && updatedAfter != 0) {
+            url.append("&afterId=").append(afterId);
+        }
+        return url.toString();
+    }
+
+    private synchronized MatchHistoryStore store() throws IOException {
+        if (store == null) {
+            String fileName = URLEncoder.encode(username, StandardCharsets.UTF_8) + ".log";
+            store = MatchHistoryStore.open(HISTORY_DIRECTORY.resolve(fileName));
+        }
+        return store;
+    }
+
+    private synchronized void close() {
+        if (store != null) {
+            try {
+                store.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Error closing match history store", e);
+            }
+            store = null;
+        }
+    }
+}
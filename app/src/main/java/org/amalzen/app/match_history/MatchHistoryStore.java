@@ -0,0 +1,256 @@
+package org.amalzen.app.match_history;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Match records kept on disk in an append-only file, one file per player. Records are never
+ * rewritten; a record saved again is appended and the index points at the latest copy. The
+ * index is rebuilt from the file when it is opened and kept in memory, newest first, with a
+ * lookup by gameroom id, along with the most recently updated record, where the next sync
+ * starts. Record bodies are read from disk only when a page is requested. A file from an older
+ * version is emptied and filled again from the server.
+ */
+class MatchHistoryStore implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(MatchHistoryStore.class.getName());
+    private static final int MAGIC = 0x43485354; // "CHST"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 8;
+
+    private record Entry(String id, String gameroomId, long updatedAt, long offset) {
+    }
+
+    private static final Comparator<Entry> NEWEST_FIRST = Comparator.comparing(Entry::id).reversed();
+    // The order the server reports changes in
+    private static final Comparator<Entry> BY_UPDATE = Comparator.comparingLong(Entry::updatedAt)
+            .thenComparing(Entry::id);
+
+    private final FileChannel channel;
+    private final List<Entry> byTime = new ArrayList<>();
+    private final Map<String, Entry> byGameroom = new HashMap<>();
+    private Entry lastUpdated;
+
+    private MatchHistoryStore(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    static MatchHistoryStore open(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MatchHistoryStore store = new MatchHistoryStore(channel);
+        try {
+            store.load();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return store;
+    }
+
+    private void load() throws IOException {
+        if (channel.size() < HEADER_SIZE) {
+            reset();
+            return;
+        }
+
+        // Read the whole file at once and decode only the indexed fields of each record
+        long size = channel.size();
+        ByteBuffer contents = ByteBuffer.allocate((int) size);
+        readFully(contents, 0);
+        contents.flip();
+        if (contents.getInt() != MAGIC) {
+            throw new IOException("Not a match history file");
+        }
+        if (contents.getInt() != VERSION) {
+            // Records without their update time cannot be synced, the server has them all
+            LOGGER.info("Match history file from an older version, downloading it again");
+            reset();
+            return;
+        }
+
+        while (contents.hasRemaining()) {
+            int offset = contents.position();
+            int length = contents.remaining() >= Integer.BYTES ? contents.getInt() : -1;
+            if (length < 0 || length > contents.remaining()) {
+                // A write was cut short, drop the partial record
+                LOGGER.warning("Truncating partial match history record at offset " + offset);
+                channel.truncate(offset);
+                break;
+            }
+            int next = contents.position() + length;
+            String id = readIndexedString(contents);
+            String gameroomId = readIndexedString(contents);
+            long updatedAt = contents.getLong();
+            contents.position(next);
+            index(new Entry(id, gameroomId, updatedAt, offset));
+        }
+        byTime.sort(NEWEST_FIRST);
+    }
+
+    synchronized int size() {
+        return byTime.size();
+    }
+
+    synchronized String newestId() {
+        return byTime.isEmpty() ? null : byTime.get(0).id();
+    }
+
+    synchronized String oldestId() {
+        return byTime.isEmpty() ? null : byTime.get(byTime.size() - 1).id();
+    }
+
+    // Update time of the most recently updated record, where the next sync starts, or 0
+    synchronized long lastUpdatedAt() {
+        return lastUpdated == null ? 0 : lastUpdated.updatedAt();
+    }
+
+    // Id of the most recently updated record, to tell records updated at the same time apart
+    synchronized String lastUpdatedId() {
+        return lastUpdated == null ? null : lastUpdated.id();
+    }
+
+    // Appends the records not already stored in the same form, returns how many were new
+    synchronized int append(List<MatchRecord> records) throws IOException {
+        int added = 0;
+        for (MatchRecord record : records) {
+            Entry existing = byGameroom.get(record.gameroomId());
+            if (existing != null && existing.id().equals(record.id()) && read(existing).equals(record)) {
+                continue;
+            }
+
+            byte[] body = encode(record);
+            long offset = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + body.length).putInt(body.length).put(body).flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, offset + buffer.position());
+            }
+
+            Entry entry = new Entry(record.id(), record.gameroomId(), record.updatedAt(), offset);
+            if (existing != null) {
+                byTime.remove(existing);
+            } else {
+                added++;
+            }
+            int position = Collections.binarySearch(byTime, entry, NEWEST_FIRST);
+            byTime.add(position < 0 ? -position - 1 : position, entry);
+            byGameroom.put(entry.gameroomId(), entry);
+            track(entry);
+        }
+        channel.force(false);
+        return added;
+    }
+
+    // Records from position from (0 is the newest) onwards, at most count of them
+    synchronized List<MatchRecord> page(int from, int count) throws IOException {
+        int to = Math.min(byTime.size(), from + count);
+        List<MatchRecord> page = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            page.add(read(byTime.get(i)));
+        }
+        return page;
+    }
+
+    synchronized boolean contains(String gameroomId) {
+        return byGameroom.containsKey(gameroomId);
+    }
+
+    synchronized MatchRecord findByGameroom(String gameroomId) throws IOException {
+        Entry entry = byGameroom.get(gameroomId);
+        return entry == null ? null : read(entry);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private void index(Entry entry) {
+        Entry previous = byGameroom.put(entry.gameroomId(), entry);
+        if (previous != null) {
+            byTime.remove(previous);
+        }
+        byTime.add(entry);
+        track(entry);
+    }
+
+    private void track(Entry entry) {
+        if (lastUpdated == null || BY_UPDATE.compare(entry, lastUpdated) > 0) {
+            lastUpdated = entry;
+        }
+    }
+
+    private void reset() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+        channel.truncate(0);
+        channel.write(header, 0);
+    }
+
+    private MatchRecord read(Entry entry) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+        readFully(length, entry.offset());
+        ByteBuffer body = ByteBuffer.allocate(length.flip().getInt());
+        readFully(body, entry.offset() + Integer.BYTES);
+        return decode(body.array());
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Match history record past end of file");
+            }
+        }
+    }
+
+    // Reads a writeUTF string; ids are ASCII, where modified UTF-8 is plain bytes
+    private static String readIndexedString(ByteBuffer buffer) throws IOException {
+        int length = buffer.getShort() & 0xFFFF;
+        int start = buffer.position();
+        byte[] array = buffer.array();
+        buffer.position(start + length);
+        for (int i = start; i < start + length; i++) {
+            if (array[i] < 0) {
+                ByteBuffer utf = ByteBuffer.allocate(Short.BYTES + length).putShort((short) length)
+                        .put(array, start, length);
+                return new DataInputStream(new ByteArrayInputStream(utf.array())).readUTF();
+            }
+        }
+        return new String(array, start, length, StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[] encode(MatchRecord record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(record.id());
+        out.writeUTF(record.gameroomId());
+        out.writeLong(record.updatedAt());
+        out.writeUTF(record.player1());
+        out.writeInt(record.player1Score());
+        out.writeUTF(record.player2());
+        out.writeInt(record.player2Score());
+        return bytes.toByteArray();
+    }
+
+    private static MatchRecord decode(byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        return new MatchRecord(in.readUTF(), in.readUTF(), in.readLong(), in.readUTF(), in.readInt(),
+                in.readUTF(), in.readInt());
+    }
+}
@@ -0,0 +1,42 @@
+package org.amalzen.app.match_history;
+
+import org.json.JSONObject;
+
+import java.time.Instant;
+
+/**
+ * One finished game as stored by the server. The id is the server's ObjectId, whose leading
+ * eight hex digits are the creation time in seconds, so ids sort by when the game was saved.
+ * updatedAt is when the server last saved it, in milliseconds, or 0 for games saved before the
+ * server kept track.
+ */
+public record MatchRecord(String id, String gameroomId, long updatedAt, String player1, int player1Score,
+                          String player2, int player2Score) {
+
+    static MatchRecord fromJson(JSONObject json) {
+        return new MatchRecord(
+                json.getString("_id"),
+                json.getString("gameroom_id"),
+                json.has("updated_at") ? Instant.parse(json.getString("updated_at")).toEpochMilli() : 0,
+                json.getString("player_1"),
+                json.getInt("player_1_score"),
+                json.getString("player_2"),
+                json.getInt("player_2_score"));
+    }
+
+    public Instant playedAt() {
+        return Instant.ofEpochSecond(Long.parseLong(id.substring(0, 8), 16));
+    }
+
+    public String opponentOf(String username) {
+        return username.equals(player1) ? player2 : player1;
+    }
+
+    public int scoreOf(String username) {
+        return username.equals(player1) ? player1Score : player2Score;
+    }
+
+    public int opponentScoreOf(String username) {
+        return username.equals(player1) ? player2Score : player1Score;
+    }
+}
@@ -2,6 +2,11 @@ package org.amalzen.app.match_making;
 
 import org.amalzen.app.APIs;
 import org.amalzen.app.Main;
+import org.amalzen.app.logging.Log;
+import org.amalzen.app.metrics.Metrics;
+import org.amalzen.app.telemetry.Telemetry;
+import org.amalzen.app.tracing.Span;
+import org.amalzen.app.tracing.Tracing;
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -27,6 +32,7 @@ public class MatchMakingModel implements AutoCloseable {
     // Thread management
     private final ExecutorService callbackExecutor;
     private final ScheduledExecutorService reconnectExecutor;
+    private volatile Thread callbackThread;
 
     // Callbacks
     private Runnable onConnected;
@@ -45,12 +51,18 @@ public class MatchMakingModel implements AutoCloseable {
     private volatile boolean shuttingDown = false;
 
     // Player data
-    private int playerScore = 300; // Default player score
+    private volatile int playerScore = 0; // New players start at 0 until their profile loads
+    private volatile long queuedAtNanos = -1; // When the player last entered the queue, for telemetry
+
+    // Traces the whole way from connecting to the game room being ready, with the queue as a child
+    private final Span matchSpan = Tracing.start("match", Span.Kind.INTERNAL);
+    private volatile Span queueSpan;
 
     public MatchMakingModel() {
         this.callbackExecutor = Executors.newSingleThreadExecutor(r -> {
             Thread t = new Thread(r, "MatchMakingClient-Callback");
             t.setDaemon(true);
+            callbackThread = t;
             return t;
         });
         this.reconnectExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
@@ -73,15 +85,25 @@ public class MatchMakingModel implements AutoCloseable {
             LOGGER.info("Attempting to connect to " + SERVER_URL);
             LOGGER.info("Authentication: username=" + username + ", token present=" + (token != null));
 
+            Span span = Tracing.start("matchmaking.connect", Span.Kind.CLIENT, matchSpan)
+                    .attribute("attempt", reconnectAttempts + 1);
             CompletableFuture<WebSocket> ws = client.newWebSocketBuilder()
                     .header("User-Agent", "JavaFX-Client")  // Add a custom header
+                    .header(Tracing.HEADER, span.traceparent())
                     .connectTimeout(Duration.ofSeconds(10))
-                    .buildAsync(URI.create(SERVER_URL), new WebSocketListener());
+                    .buildAsync(URI.create(SERVER_URL), new WebSocketListener())
+                    .whenComplete((websocket, error) -> {
+                        if (error != null) {
+                            span.fail(error.toString());
+                        }
+                        span.end();
+                    });
 
             ws.thenAccept(websocket -> {
                 webSocket = websocket;
                 connected = true;
                 reconnectAttempts = 0;
+                Metrics.socket(Metrics.Socket.MATCHMAKING, Metrics.SocketEvent.CONNECT);
                 LOGGER.info("WebSocket connection established successfully");
 
                 // Send a ping message to verify connection
@@ -107,6 +129,9 @@ public class MatchMakingModel implements AutoCloseable {
     }
 
     private void handleConnectionFailure(Throwable e, CompletableFuture<Void> connectionFuture) {
+        Metrics.socket(Metrics.Socket.MATCHMAKING, Metrics.SocketEvent.FAILURE);
+        Telemetry.record("socket_failure", "socket", "matchmaking", "attempt", reconnectAttempts,
+                "error", e.getClass().getName());
         runCallback(() -> {
             if (onError != null) {
                 onError.accept(e);
@@ -115,6 +140,7 @@ public class MatchMakingModel implements AutoCloseable {
 
         if (autoReconnect && reconnectAttempts < maxReconnectAttempts) {
             reconnectAttempts++;
+            Metrics.socket(Metrics.Socket.MATCHMAKING, Metrics.SocketEvent.RECONNECT);
             LOGGER.log(Level.INFO, "Connection attempt failed. Scheduling reconnect {0}/{1} in {2}ms",
                     new Object[]{reconnectAttempts, maxReconnectAttempts, reconnectDelayMs});
 
@@ -122,6 +148,7 @@ public class MatchMakingModel implements AutoCloseable {
                 connect();
             }, reconnectDelayMs, TimeUnit.MILLISECONDS);
         } else {
+            matchSpan.fail("Could not connect to matchmaking").end();
             connectionFuture.completeExceptionally(e);
         }
     }
@@ -140,13 +167,40 @@ public class MatchMakingModel implements AutoCloseable {
             return;
         }
 
-        JSONObject message = new JSONObject();
-        message.put("type", "queue");
-        message.put("username", username);
-        message.put("token", token);
-        message.put("score", playerScore);
+        JSONObject message = queueMessage();
+        Span span = Tracing.start("matchmaking.queue", Span.Kind.CLIENT, matchSpan).attribute("score", playerScore);
+        message.put(Tracing.HEADER, span.traceparent());
+
+        // The message carries the session token, so only its type and score are logged
+        Log.info(LOGGER, "Sending queue message", "type", "queue", "score", playerScore);
+
+        try {
+            webSocket.sendText(message.toString(), true);
+            queuedAtNanos = System.nanoTime();
+            queueSpan = span;
+        } catch (Exception e) {
+            runCallback(() -> {
+                if (onError != null) {
+                    onError.accept(e);
+                }
+            });
+        }
+    }
 
-        System.out.println("Sending message: " + message.toString());
+    /**
+     * Sends a newer score for a player already waiting in the queue. The service updates the
+     * queue entry in place; the wait is still timed from the first queue message.
+     */
+    public void requeue(int score) {
+        Span span = queueSpan;
+        if (!connected || queuedAtNanos < 0 || span == null || score == playerScore) {
+            return;
+        }
+        playerScore = score;
+        JSONObject message = queueMessage();
+        message.put(Tracing.HEADER, span.traceparent());
+        span.attribute("requeueScore", score);
+        Log.info(LOGGER, "Sending queue message", "type", "queue", "score", score, "requeue", true);
 
         try {
             webSocket.sendText(message.toString(), true);
@@ -159,6 +213,15 @@ public class MatchMakingModel implements AutoCloseable {
         }
     }
 
+    private JSONObject queueMessage() {
+        JSONObject message = new JSONObject();
+        message.put("type", "queue");
+        message.put("username", username);
+        message.put("token", token);
+        message.put("score", playerScore);
+        return message;
+    }
+
     public void cancelQueue() {
         if (!connected) {
             LOGGER.warning("Cannot cancel queue: not connected");
@@ -171,7 +234,8 @@ public class MatchMakingModel implements AutoCloseable {
         message.put("token", token);
         message.put("score", playerScore);
 
-        System.out.println("Sending message: " + message.toString());
+        Log.info(LOGGER, "Sending queue message", "type", "cancel");
+        recordWait("cancelled");
 
         try {
             webSocket.sendText(message.toString(), true);
@@ -184,6 +248,27 @@ public class MatchMakingModel implements AutoCloseable {
         }
     }
 
+    // Reports how long the player waited in the queue and how the wait ended
+    private void recordWait(String outcome) {
+        long queuedAt = queuedAtNanos;
+        if (queuedAt < 0) {
+            return;
+        }
+        queuedAtNanos = -1;
+        queueSpan.attribute("outcome", outcome).end();
+        if (!outcome.equals("found")) {
+            // Only a match goes on to the game room, which ends the trace there
+            matchSpan.attribute("outcome", outcome).end();
+        }
+        Telemetry.record("match_wait", "outcome", outcome, "score", playerScore,
+                "waitMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - queuedAt));
+    }
+
+    // The trace of this visit to matchmaking, for the game room to continue
+    public Span matchSpan() {
+        return matchSpan;
+    }
+
     public CompletableFuture<Void> disconnect() {
         CompletableFuture<Void> closeFuture = new CompletableFuture<>();
 
@@ -231,6 +316,11 @@ public class MatchMakingModel implements AutoCloseable {
         callbackExecutor.shutdown();
         reconnectExecutor.shutdown();
 
+        // Waiting for our own callback thread to finish from inside it would only stall
+        if (Thread.currentThread() == callbackThread) {
+            return;
+        }
+
         try {
             if (!callbackExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
                 callbackExecutor.shutdownNow();
@@ -330,6 +420,7 @@ public class MatchMakingModel implements AutoCloseable {
             // Attempt reconnection if needed
             if (autoReconnect && statusCode != WebSocket.NORMAL_CLOSURE && reconnectAttempts < maxReconnectAttempts) {
                 reconnectAttempts++;
+                Metrics.socket(Metrics.Socket.MATCHMAKING, Metrics.SocketEvent.RECONNECT);
                 LOGGER.log(Level.INFO, "Connection closed. Scheduling reconnect {0}/{1} in {2}ms",
                         new Object[]{reconnectAttempts, maxReconnectAttempts, reconnectDelayMs});
 
@@ -363,13 +454,12 @@ public class MatchMakingModel implements AutoCloseable {
         JSONObject response;
         try {
             response = new JSONObject(jsonResponse);
-            LOGGER.info("Received message: " + response.toString());
         } catch(JSONException jsonException){
             LOGGER.warning("Error parsing JSON: " + jsonException.getMessage());
             return;
         }
 
-        LOGGER.info("PARSING RESPONSE" + response.toString());
+        Log.fine(LOGGER, "Received message", "type", response.optString("type"), "body", jsonResponse);
         switch (response.getString("type")){
             case "welcome":
                 LOGGER.info("Connected to server: " + response.optString("message"));
@@ -383,6 +473,7 @@ public class MatchMakingModel implements AutoCloseable {
                 }
                 break;
             case "match_found":
+                recordWait("found");
                 if (onMatchFound != null) {
                     onMatchFound.accept(response);
                 }
@@ -398,6 +489,7 @@ public class MatchMakingModel implements AutoCloseable {
             case "queue_timeout":
                 String timeoutMessage = response.optString("message", "Queue timed out");
                 LOGGER.info("Queue timeout: " + timeoutMessage);
+                recordWait("timeout");
                 if (onQueueTimeout != null) {
                     onQueueTimeout.accept(timeoutMessage);
                 } else {
@@ -10,14 +10,20 @@ import javafx.scene.layout.AnchorPane;
 import javafx.util.Duration;
 import org.amalzen.app.Main;
 import org.amalzen.app.ResourcePath;
+import org.amalzen.app.ViewLifecycle;
+import org.amalzen.app.ViewScope;
 import org.amalzen.app.audio.AudioHandler;
+import org.amalzen.app.profile.ProfileService;
+import org.amalzen.app.game_room.GameRoomHandoff;
+import org.amalzen.app.rendering.PowerManager;
 import org.json.JSONObject;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-public class MatchmakingController {
+public class MatchmakingController implements ViewLifecycle {
     private static final Logger LOGGER = Logger.getLogger(MatchmakingController.class.getName());
 
     @FXML
@@ -28,6 +34,7 @@ public class MatchmakingController {
     public AnchorPane rootPane;
 
     private MatchMakingModel matchmakingModel;
+    private CompletableFuture<ProfileService.Profile> profile;
     private boolean matchFound = false;
 
     @FXML
@@ -35,14 +42,6 @@ public class MatchmakingController {
         startImageSpin();
         setupMatchmaking();
 
-        // Register cleanup handler on scene changes
-        rootPane.sceneProperty().addListener((obs, oldScene, newScene) -> {
-            if (oldScene != null && newScene == null) {
-                // Scene is being detached, perform cleanup
-                cleanup();
-            }
-        });
-
         cancelButton.setOnMouseClicked(event -> {
             matchmakingModel.cancelQueue();
             returnToMainMenu();
@@ -54,10 +53,8 @@ public class MatchmakingController {
     private void setupMatchmaking() {
         matchmakingModel = new MatchMakingModel();
 
-        // Default score or difficulty chosen by player
-        // TODO: This must be taken from the player's metadata not statically set
-        int playerScore = 300;
-        matchmakingModel.setPlayerScore(playerScore);
+        // Usually fetched already; the end of the last game started a refresh
+        profile = ProfileService.profile();
 
         // Configure callbacks
         // Enter matchmaking queue with player's score
@@ -88,6 +85,7 @@ public class MatchmakingController {
         rotate.setByAngle(360);
         rotate.setCycleCount(RotateTransition.INDEFINITE);
         rotate.play();
+        PowerManager.pauseWhenUnfocused(ViewScope.current().track(rotate));
     }
 
     private void returnToMainMenu() {
@@ -95,22 +93,39 @@ public class MatchmakingController {
         Main.showModals(ResourcePath.EXIT_MODAL.getPath(), rootPane);
     }
 
-    public void cleanup() {
+    // Closing waits for the socket and executors to finish, so it is kept off the FX thread
+    @Override
+    public void onDispose() {
+        CompletableFuture.runAsync(this::cleanup);
+    }
+
+    public synchronized void cleanup() {
         LOGGER.info("Performing matchmaking controller cleanup");
-        if (matchmakingModel != null && matchmakingModel.isConnected()) {
-            try {
-                matchmakingModel.disconnect();
-            } catch (Exception e) {
-                LOGGER.log(Level.WARNING, "Error during WebSocket disconnect", e);
+        if (matchmakingModel != null) {
+            if (matchmakingModel.isConnected()) {
+                try {
+                    matchmakingModel.disconnect();
+                } catch (Exception e) {
+                    LOGGER.log(Level.WARNING, "Error during WebSocket disconnect", e);
+                }
             }
+            // Also when the connection never came up, or its executor threads would be left running
             matchmakingModel.close();
             matchmakingModel = null;
         }
     }
 
     public Runnable handleOnConnected() {
+        MatchMakingModel model = matchmakingModel;
+        CompletableFuture<ProfileService.Profile> latest = profile;
         return () -> {
-            matchmakingModel.enterQueue();
+            // Queues straight away with what is known; a fresher score that arrives later is sent again
+            ProfileService.Profile known = ProfileService.cachedOrLastKnown(latest);
+            if (known != null) {
+                model.setPlayerScore(known.totalScore());
+            }
+            model.enterQueue();
+            latest.thenAccept(refreshed -> model.requeue(refreshed.totalScore()));
         };
     }
 
@@ -134,13 +149,16 @@ public class MatchmakingController {
             Main.opponent = opponent;
             LOGGER.info("Match found! Room ID: " + roomId + ", Opponent: " + opponent);
 
-            // Clean up BEFORE changing scene
-            cleanup();
+            // Connect to the game room and build the cards while the scene loads
+            GameRoomHandoff.prepare(roomId, Main.sessionId, Main.username, matchmakingModel.matchSpan());
 
             // Switch to game room on UI thread
             Platform.runLater(() -> {
                 Main.ChangeScene(ResourcePath.GAME_ROOM.getPath());
             });
+
+            // Release the matchmaking socket off this callback thread so it does not hold up the handoff
+            CompletableFuture.runAsync(this::cleanup);
         };
     }
 
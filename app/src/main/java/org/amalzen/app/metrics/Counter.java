@@ -0,0 +1,22 @@
+package org.amalzen.app.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A monotonically increasing count. Increments are lock-free and allocate nothing.
+ */
+public final class Counter {
+    private final LongAdder count = new LongAdder();
+
+    public void inc() {
+        count.increment();
+    }
+
+    public void add(long amount) {
+        count.add(amount);
+    }
+
+    public long value() {
+        return count.sum();
+    }
+}
@@ -0,0 +1,162 @@
+package org.amalzen.app.metrics;
+
+import javafx.application.Platform;
+import org.amalzen.app.logging.Log;
+import org.amalzen.app.telemetry.Telemetry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Detects when the JavaFX thread stops processing events. A background thread posts a
+ * heartbeat to the FX thread every HEARTBEAT_INTERVAL_MS; while a heartbeat is waiting longer
+ * than the stall threshold, the FX thread's stack is sampled every SAMPLE_INTERVAL_MS. When
+ * the heartbeat finally runs, the stall is reported with the stack seen most often, which
+ * names the blocking call and the app code that made it. A stall is timed from the heartbeat
+ * that ran into it, so its length is a lower bound, short by up to one heartbeat interval.
+ *
+ * <p>Stalls over -Dcache.fx.stall.ms (50 by default) are counted in Metrics and logged at
+ * INFO; stalls over -Dcache.fx.stall.warn.ms (250 by default) are logged as warnings and sent
+ * to telemetry. Turned off with -Dcache.fx.watchdog=false.
+ */
+public final class FxStallWatchdog {
+    private static final Logger LOGGER = Logger.getLogger(FxStallWatchdog.class.getName());
+    private static final String APP_PACKAGE = "org.amalzen.app.";
+    private static final long HEARTBEAT_INTERVAL_MS = 40;
+    private static final long SAMPLE_INTERVAL_MS = 10;
+    // Signatures kept for metrics; stalls beyond that are counted under "other"
+    private static final int MAX_SIGNATURES = 20;
+    private static final String OTHER = "other";
+
+    private static final long stallNanos = TimeUnit.MILLISECONDS.toNanos(Long.getLong("cache.fx.stall.ms", 50));
+    private static final long warnNanos = TimeUnit.MILLISECONDS.toNanos(Long.getLong("cache.fx.stall.warn.ms", 250));
+
+    // Stall count and total nanoseconds per signature, for metrics
+    private static final Map<String, long[]> signatures = new LinkedHashMap<>();
+
+    private static Thread fxThread;
+    private static volatile boolean answered;
+    private static volatile long answeredAt;
+
+    private FxStallWatchdog() {
+    }
+
+    // Call on the JavaFX thread
+    public static synchronized void start() {
+        if (fxThread != null || !Boolean.parseBoolean(System.getProperty("cache.fx.watchdog", "true"))) {
+            return;
+        }
+        fxThread = Thread.currentThread();
+        Thread watchdog = new Thread(FxStallWatchdog::watch, "FxStallWatchdog");
+        watchdog.setDaemon(true);
+        watchdog.start();
+    }
+
+    private static void watch() {
+        List<StackTraceElement[]> samples = new ArrayList<>();
+        try {
+            while (true) {
+                long postedAt = System.nanoTime();
+                answered = false;
+                Platform.runLater(() -> {
+                    answeredAt = System.nanoTime();
+                    answered = true;
+                });
+
+                while (!answered) {
+                    Thread.sleep(SAMPLE_INTERVAL_MS);
+                    if (!answered && System.nanoTime() - postedAt > stallNanos) {
+                        samples.add(fxThread.getStackTrace());
+                    }
+                }
+
+                long stalled = answeredAt - postedAt;
+                if (stalled > stallNanos) {
+                    report(stalled, samples);
+                }
+                samples.clear();
+                Thread.sleep(HEARTBEAT_INTERVAL_MS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IllegalStateException e) {
+            // The FX toolkit has exited
+        }
+    }
+
+    private static void report(long stalledNanos, List<StackTraceElement[]> samples) {
+        String signature = signature(samples);
+        long count;
+        synchronized (signatures) {
+            String key = signatures.containsKey(signature) || signatures.size() < MAX_SIGNATURES ? signature : OTHER;
+            long[] totals = signatures.computeIfAbsent(key, k -> new long[2]);
+            totals[0]++;
+            totals[1] += stalledNanos;
+            count = totals[0];
+        }
+        Metrics.FX_STALL.observeNanos(stalledNanos);
+
+        long stalledMs = TimeUnit.NANOSECONDS.toMillis(stalledNanos);
+        boolean warn = stalledNanos > warnNanos;
+        Log.log(LOGGER, warn ? Level.WARNING : Level.INFO, "FX thread stalled",
+                "ms", stalledMs, "at", signature, "samples", samples.size(), "seen", count);
+        if (warn) {
+            Telemetry.record("fx_stall", "ms", stalledMs, "at", signature);
+        }
+    }
+
+    /**
+     * The most often sampled pair of innermost frame and innermost app frame, e.g.
+     * "jdk.internal.misc.Unsafe.park &lt;- log_in.LogInController.handleLogin:87".
+     */
+    static String signature(List<StackTraceElement[]> samples) {
+        Map<String, Integer> seen = new HashMap<>();
+        String best = "unknown";
+        int bestCount = 0;
+        for (StackTraceElement[] stack : samples) {
+            if (stack.length == 0) {
+                continue;
+            }
+            String top = stack[0].getClassName() + "." + stack[0].getMethodName();
+            String app = null;
+            for (StackTraceElement frame : stack) {
+                if (frame.getClassName().startsWith(APP_PACKAGE)) {
+                    app = frame.getClassName().substring(APP_PACKAGE.length()) + "." + frame.getMethodName()
+                            + ":" + frame.getLineNumber();
+                    break;
+                }
+            }
+            String key = app != null && !stack[0].getClassName().startsWith(APP_PACKAGE) ? top + " <- " + app
+                    : app != null ? app : top;
+            int count = seen.merge(key, 1, Integer::sum);
+            if (count > bestCount) {
+                best = key;
+                bestCount = count;
+            }
+        }
+        return best;
+    }
+
+    static void render(StringBuilder out) {
+        out.append("# HELP cache_fx_stalls_total FX thread stalls by where the thread was stuck\n");
+        out.append("# TYPE cache_fx_stalls_total counter\n");
+        StringBuilder seconds = new StringBuilder();
+        seconds.append("# HELP cache_fx_stall_seconds_total Time the FX thread spent stalled by where it was stuck\n");
+        seconds.append("# TYPE cache_fx_stall_seconds_total counter\n");
+        synchronized (signatures) {
+            for (Map.Entry<String, long[]> entry : signatures.entrySet()) {
+                String label = "{at=\"" + entry.getKey().replace("\\", "\\\\").replace("\"", "\\\"") + "\"} ";
+                out.append("cache_fx_stalls_total").append(label).append(entry.getValue()[0]).append('\n');
+                seconds.append("cache_fx_stall_seconds_total").append(label)
+                        .append(entry.getValue()[1] / 1e9).append('\n');
+            }
+        }
+        out.append(seconds);
+    }
+}
@@ -0,0 +1,60 @@
+package org.amalzen.app.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Durations counted into fixed buckets, exported as a Prometheus histogram in seconds.
+ * Recording a duration is lock-free and allocates nothing.
+ */
+public final class Histogram {
+    // Bucket upper bounds in seconds, and the same bounds in nanoseconds for recording
+    private final double[] bounds;
+    private final long[] boundNanos;
+    private final LongAdder[] buckets;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+
+    Histogram(double... bounds) {
+        this.bounds = bounds.clone();
+        this.boundNanos = new long[bounds.length];
+        this.buckets = new LongAdder[bounds.length];
+        for (int i = 0; i < bounds.length; i++) {
+            boundNanos[i] = (long) (bounds[i] * TimeUnit.SECONDS.toNanos(1));
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void observeNanos(long nanos) {
+        for (int i = 0; i < boundNanos.length; i++) {
+            if (nanos <= boundNanos[i]) {
+                buckets[i].increment();
+                break;
+            }
+        }
+        count.increment();
+        sumNanos.add(nanos);
+    }
+
+    // Records the time since a System.nanoTime() reading
+    public void observeSince(long startNanos) {
+        observeNanos(System.nanoTime() - startNanos);
+    }
+
+    void render(StringBuilder out, String name, String labels) {
+        String separator = labels.isEmpty() ? "" : ",";
+        long cumulative = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            cumulative += buckets[i].sum();
+            out.append(name).append("_bucket{").append(labels).append(separator)
+                    .append("le=\"").append(bounds[i]).append("\"} ").append(cumulative).append('\n');
+        }
+        // Read separately from the buckets, so a concurrent record could leave it one behind
+        long total = Math.max(count.sum(), cumulative);
+        out.append(name).append("_bucket{").append(labels).append(separator)
+                .append("le=\"+Inf\"} ").append(total).append('\n');
+        String suffix = labels.isEmpty() ? " " : "{" + labels + "} ";
+        out.append(name).append("_sum").append(suffix).append(sumNanos.sum() / 1e9).append('\n');
+        out.append(name).append("_count").append(suffix).append(total).append('\n');
+    }
+}
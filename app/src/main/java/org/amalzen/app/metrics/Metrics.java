@@ -0,0 +1,133 @@
+package org.amalzen.app.metrics;
+
+import org.amalzen.app.APIs;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.Locale;
+
+/**
+ * The client's metrics, created up front so recording one is a field access and a lock-free
+ * add. They are only read when MetricsServer serves a scrape.
+ */
+public final class Metrics {
+    public enum Socket {
+        GAME_ROOM, MATCHMAKING
+    }
+
+    public enum SocketEvent {
+        CONNECT, RECONNECT, FAILURE
+    }
+
+    private static final double[] REST_BUCKETS = {0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+    private static final double[] SCENE_BUCKETS = {0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2};
+    // Around the 16.7ms frame of a 60Hz display
+    private static final double[] PULSE_BUCKETS = {0.008, 0.017, 0.025, 0.033, 0.05, 0.1, 0.25, 1};
+    private static final double[] STALL_BUCKETS = {0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+    private static final Counter[][] SOCKET_EVENTS = new Counter[Socket.values().length][SocketEvent.values().length];
+    private static final Histogram[] REST_LATENCY = new Histogram[APIs.values().length];
+    private static final Counter[] REST_FAILURES = new Counter[APIs.values().length];
+
+    public static final Histogram SCENE_SWITCH = new Histogram(SCENE_BUCKETS);
+    public static final Histogram FX_PULSE_INTERVAL = new Histogram(PULSE_BUCKETS);
+    public static final Histogram FX_STALL = new Histogram(STALL_BUCKETS);
+    public static final Counter AUDIO_FAILURES = new Counter();
+    public static final Counter TELEMETRY_DROPPED = new Counter();
+    public static final Counter MEMORY_TRIMS = new Counter();
+
+    static {
+        for (Counter[] events : SOCKET_EVENTS) {
+            for (int i = 0; i < events.length; i++) {
+                events[i] = new Counter();
+            }
+        }
+        for (int i = 0; i < REST_LATENCY.length; i++) {
+            REST_LATENCY[i] = new Histogram(REST_BUCKETS);
+            REST_FAILURES[i] = new Counter();
+        }
+    }
+
+    private Metrics() {
+    }
+
+    public static void socket(Socket socket, SocketEvent event) {
+        SOCKET_EVENTS[socket.ordinal()][event.ordinal()].inc();
+    }
+
+    public static void restLatency(APIs endpoint, long nanos) {
+        REST_LATENCY[endpoint.ordinal()].observeNanos(nanos);
+    }
+
+    // A request that got no response, or a server error
+    public static void restFailure(APIs endpoint) {
+        REST_FAILURES[endpoint.ordinal()].inc();
+    }
+
+    // Prometheus text exposition format, version 0.0.4
+    static String render() {
+        StringBuilder out = new StringBuilder(8192);
+
+        header(out, "cache_websocket_events_total", "counter", "WebSocket connects, reconnect attempts and failures");
+        for (Socket socket : Socket.values()) {
+            for (SocketEvent event : SocketEvent.values()) {
+                out.append("cache_websocket_events_total{socket=\"").append(label(socket))
+                        .append("\",event=\"").append(label(event)).append("\"} ")
+                        .append(SOCKET_EVENTS[socket.ordinal()][event.ordinal()].value()).append('\n');
+            }
+        }
+
+        header(out, "cache_rest_request_duration_seconds", "histogram", "REST request latency by endpoint");
+        for (APIs api : APIs.values()) {
+            if (isRest(api)) {
+                REST_LATENCY[api.ordinal()].render(out, "cache_rest_request_duration_seconds",
+                        "endpoint=\"" + label(api) + "\"");
+            }
+        }
+        header(out, "cache_rest_request_failures_total", "counter", "REST requests that failed or got a 5xx");
+        for (APIs api : APIs.values()) {
+            if (isRest(api)) {
+                out.append("cache_rest_request_failures_total{endpoint=\"").append(label(api)).append("\"} ")
+                        .append(REST_FAILURES[api.ordinal()].value()).append('\n');
+            }
+        }
+
+        header(out, "cache_scene_switch_duration_seconds", "histogram", "Time to load and show a scene");
+        SCENE_SWITCH.render(out, "cache_scene_switch_duration_seconds", "");
+        header(out, "cache_fx_pulse_interval_seconds", "histogram", "Time between JavaFX pulses, including the pulse itself");
+        FX_PULSE_INTERVAL.render(out, "cache_fx_pulse_interval_seconds", "");
+        header(out, "cache_fx_stall_duration_seconds", "histogram", "FX thread stalls found by FxStallWatchdog");
+        FX_STALL.render(out, "cache_fx_stall_duration_seconds", "");
+        FxStallWatchdog.render(out);
+        header(out, "cache_audio_failures_total", "counter", "Sounds and music that failed to load or play");
+        out.append("cache_audio_failures_total ").append(AUDIO_FAILURES.value()).append('\n');
+        header(out, "cache_telemetry_dropped_total", "counter", "Telemetry events dropped by a full queue or spool");
+        out.append("cache_telemetry_dropped_total ").append(TELEMETRY_DROPPED.value()).append('\n');
+
+        header(out, "cache_memory_trims_total", "counter", "Cache trims by MemoryManager under memory pressure");
+        out.append("cache_memory_trims_total ").append(MEMORY_TRIMS.value()).append('\n');
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        header(out, "cache_jvm_heap_used_bytes", "gauge", "Used heap");
+        out.append("cache_jvm_heap_used_bytes ").append(heap.getUsed()).append('\n');
+        header(out, "cache_jvm_heap_max_bytes", "gauge", "Maximum heap, -1 if undefined");
+        out.append("cache_jvm_heap_max_bytes ").append(heap.getMax()).append('\n');
+        header(out, "cache_jvm_threads", "gauge", "Live threads");
+        out.append("cache_jvm_threads ").append(ManagementFactory.getThreadMXBean().getThreadCount()).append('\n');
+        return out.toString();
+    }
+
+    private static boolean isRest(APIs api) {
+        return api != APIs.MM_URL && api != APIs.GR_URL;
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    // AUTH_URL becomes auth, GAME_ROOM becomes game_room
+    private static String label(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT).replace("_url", "");
+    }
+}
@@ -0,0 +1,92 @@
+package org.amalzen.app.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import javafx.animation.AnimationTimer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Serves the metrics in Prometheus format at http://127.0.0.1:&lt;port&gt;/metrics when the app is
+ * started with -Dcache.metrics.port=&lt;port&gt;. It only listens on the loopback interface, for a
+ * node exporter or agent running on the same machine to scrape.
+ */
+public final class MetricsServer {
+    private static final Logger LOGGER = Logger.getLogger(MetricsServer.class.getName());
+    private static final String PORT_PROPERTY = "cache.metrics.port";
+
+    private static HttpServer server;
+
+    private MetricsServer() {
+    }
+
+    public static boolean isEnabled() {
+        return System.getProperty(PORT_PROPERTY) != null;
+    }
+
+    public static synchronized void start() {
+        if (!isEnabled() || server != null) {
+            return;
+        }
+        try {
+            int port = Integer.parseInt(System.getProperty(PORT_PROPERTY));
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            server.createContext("/metrics", MetricsServer::serve);
+            server.setExecutor(Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "MetricsServer");
+                t.setDaemon(true);
+                return t;
+            }));
+            server.start();
+            LOGGER.info("Serving metrics on http://127.0.0.1:" + port + "/metrics");
+        } catch (IOException | NumberFormatException e) {
+            LOGGER.log(Level.WARNING, "Metrics endpoint not started", e);
+            server = null;
+        }
+    }
+
+    private static void serve(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = Metrics.render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    /**
+     * Times the gap between JavaFX pulses while metrics are enabled. A pulse that takes longer
+     * than a frame shows up as a longer gap before the next one. A running timer keeps pulses
+     * coming every frame even when nothing changes, so this is left off unless metrics are on.
+     * Call on the JavaFX thread.
+     */
+    public static void monitorPulses() {
+        if (!isEnabled()) {
+            return;
+        }
+        new AnimationTimer() {
+            private long last = -1;
+
+            @Override
+            public void handle(long now) {
+                if (last >= 0) {
+                    Metrics.FX_PULSE_INTERVAL.observeNanos(now - last);
+                }
+                last = now;
+            }
+        }.start();
+    }
+}
@@ -19,26 +19,19 @@ public class ExitModalController {
     private AnchorPane rootExitModalPane;
 
     public void initialize() {
-        cancelExitButton.setOnAction((ActionEvent event) -> rootExitModalPane.setVisible(false));
+        cancelExitButton.setOnAction((ActionEvent event) -> ModalManager.hide(rootExitModalPane));
 
         confirmExitButton.setOnAction(event -> {
             // Find the parent controller (MatchmakingController) to cancel matchmaking
-            AnchorPane parentPane = (AnchorPane) rootExitModalPane.getParent();
-            if (parentPane != null) {
-
-                // Get the controller from the scene
-
-                Object controller = parentPane.getProperties().get("controller");
-
-                if (controller instanceof org.amalzen.app.match_making.MatchmakingController) {
-                    // Call cleanup to properly close WebSocket connections
-                    ((org.amalzen.app.match_making.MatchmakingController) controller).cleanup();
-                }
+            Object controller = ModalManager.owner(rootExitModalPane);
+            if (controller instanceof org.amalzen.app.match_making.MatchmakingController) {
+                // Call cleanup to properly close WebSocket connections
+                ((org.amalzen.app.match_making.MatchmakingController) controller).cleanup();
+            }
 
-                if (controller instanceof org.amalzen.app.game_room.GameRoomController) {
-                    // Call shutdown to properly close WebSocket connections
-                    ((org.amalzen.app.game_room.GameRoomController) controller).shutdown();
-                }
+            if (controller instanceof org.amalzen.app.game_room.GameRoomController) {
+                // Call shutdown to properly close WebSocket connections
+                ((org.amalzen.app.game_room.GameRoomController) controller).shutdown();
             }
 
             // Then change scene to main menu
@@ -4,13 +4,13 @@ import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.effect.ColorAdjust;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import org.amalzen.app.ResourcePath;
 import org.amalzen.app.audio.AudioHandler;
+import org.amalzen.app.rendering.TextureAtlas;
 
 public class GameOverModalController {
 
@@ -47,7 +47,7 @@ public class GameOverModalController {
                 resultLabel.setTextFill(Color.valueOf("#024d16"));  // Green
                 subTitleLabel1.setText("From the Undercity to the top—");
                 subTitleLabel2.setText("you reign supreme!");
-                playAgainImageView.setImage(new Image(getClass().getResourceAsStream("/org/amalzen/app/images/victory-playagain.png")));
+                TextureAtlas.show(playAgainImageView, "/org/amalzen/app/images/victory-playagain.png");
                 break;
 
             case LOSE:
@@ -55,7 +55,7 @@ public class GameOverModalController {
                 resultLabel.setTextFill(Color.valueOf("#860C0C"));  // Red
                 subTitleLabel1.setText("You lost this battle, but the war");
                 subTitleLabel2.setText("is never over.");
-                playAgainImageView.setImage(new Image(getClass().getResourceAsStream("/org/amalzen/app/images/defeat-playagain.png")));
+                TextureAtlas.show(playAgainImageView, "/org/amalzen/app/images/defeat-playagain.png");
                 break;
 
             case TIE:
@@ -63,7 +63,7 @@ public class GameOverModalController {
                 resultLabel.setTextFill(Color.valueOf("#644C00"));  // Gold
                 subTitleLabel1.setText("Equally matched in skill and wit—");
                 subTitleLabel2.setText("another round to settle it?");
-                playAgainImageView.setImage(new Image(getClass().getResourceAsStream("/org/amalzen/app/images/victory-playagain.png")));
+                TextureAtlas.show(playAgainImageView, "/org/amalzen/app/images/victory-playagain.png");
                 break;
         }
     }
@@ -86,13 +86,9 @@ public class GameOverModalController {
     @FXML
     public void handleBack() {
         // Find the parent GameRoomController to properly clean up resources
-        AnchorPane parentPane = (AnchorPane) rootGameOverModalPane.getParent();
-        if (parentPane != null) {
-            Object controller = parentPane.getProperties().get("controller");
-
-            if (controller instanceof org.amalzen.app.game_room.GameRoomController) {
-                ((org.amalzen.app.game_room.GameRoomController) controller).shutdown();
-            }
+        Object controller = ModalManager.owner(rootGameOverModalPane);
+        if (controller instanceof org.amalzen.app.game_room.GameRoomController) {
+            ((org.amalzen.app.game_room.GameRoomController) controller).shutdown();
         }
 
         // Return to main menu
@@ -101,14 +97,27 @@ public class GameOverModalController {
 
     @FXML
     public void handlePlayAgain() {
+        boolean practice = org.amalzen.app.game_room.PracticeEngine.isPracticeRoom(org.amalzen.app.Main.roomId);
+        boolean replay = false;
+
         // Find the parent GameRoomController to properly clean up resources
-        AnchorPane parentPane = (AnchorPane) rootGameOverModalPane.getParent();
-        if (parentPane != null) {
-            Object controller = parentPane.getProperties().get("controller");
+        Object controller = ModalManager.owner(rootGameOverModalPane);
+        if (controller instanceof org.amalzen.app.game_room.GameRoomController) {
+            replay = ((org.amalzen.app.game_room.GameRoomController) controller).isReplay();
+            ((org.amalzen.app.game_room.GameRoomController) controller).shutdown();
+        }
 
-            if (controller instanceof org.amalzen.app.game_room.GameRoomController) {
-                ((org.amalzen.app.game_room.GameRoomController) controller).shutdown();
-            }
+        if (replay) {
+            // Back to the list the replay was picked from
+            org.amalzen.app.Main.ChangeScene(org.amalzen.app.ResourcePath.HISTORY.getPath());
+            return;
+        }
+        if (practice) {
+            // Another offline game against the same bot
+            org.amalzen.app.game_room.PracticeEngine.prepare(org.amalzen.app.Main.username,
+                    org.amalzen.app.game_room.PracticeEngine.lastLevel());
+            org.amalzen.app.Main.ChangeScene(org.amalzen.app.ResourcePath.GAME_ROOM.getPath());
+            return;
         }
 
         // Go back to matchmaking screen
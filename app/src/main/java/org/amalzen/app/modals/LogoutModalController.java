@@ -5,22 +5,21 @@ import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.layout.AnchorPane;
 import org.amalzen.app.APIs;
+import org.amalzen.app.ApiClient;
 import org.amalzen.app.Main;
 import org.amalzen.app.ResourcePath;
 import org.amalzen.app.audio.AudioHandler;
+import org.amalzen.app.log_in.SessionRefresher;
+import org.amalzen.app.match_history.MatchHistoryModel;
+import org.amalzen.app.profile.ProfileService;
 
 import java.io.IOException;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.time.Duration;
 
 public class LogoutModalController {
     private static final String AUTH_API_URL = APIs.AUTH_URL.getValue() + "/logout";
-    private static final HttpClient httpClient = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(10))
-            .build();
 
     @FXML
     private Button cancelLogoutButton;
@@ -32,6 +31,10 @@ public class LogoutModalController {
     private AnchorPane rootLogoutModalPane;
 
     private static void handle(ActionEvent event) {
+        SessionRefresher.forget();
+        ApiClient.clearPrefetched();
+        ProfileService.clear();
+        MatchHistoryModel.closeCurrent();
         try {
             String sessionId = Main.sessionId;
 
@@ -42,7 +45,7 @@ public class LogoutModalController {
                     .POST(HttpRequest.BodyPublishers.noBody())
                     .build();
 
-            HttpResponse<String> response = httpClient.send(request,
+            HttpResponse<String> response = ApiClient.send(APIs.AUTH_URL, request,
                     HttpResponse.BodyHandlers.ofString());
 
             if (response.statusCode() == 200) {
@@ -63,7 +66,7 @@ public class LogoutModalController {
     }
 
     public void initialize() {
-        cancelLogoutButton.setOnAction(event -> rootLogoutModalPane.setVisible(false));
+        cancelLogoutButton.setOnAction(event -> ModalManager.hide(rootLogoutModalPane));
         confirmLogoutButton.setOnAction(LogoutModalController::handle);
     }
 }
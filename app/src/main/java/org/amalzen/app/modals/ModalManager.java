@@ -0,0 +1,126 @@
+package org.amalzen.app.modals;
+
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.layout.Pane;
+import org.amalzen.app.ViewLoader;
+import org.amalzen.app.ViewScope;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Shows modals on a single overlay layer per view. Each modal is loaded once and kept with its
+ * controller; opening it again moves the same node onto the layer and calls
+ * {@link Reusable#reset} so the controller can refresh what it shows. Only one modal is on the
+ * layer at a time, and a closed modal is taken off it, so hidden modals cost nothing in layout
+ * or CSS passes. Only used on the JavaFX thread.
+ */
+public final class ModalManager {
+    private static final String LAYER = "modal-layer";
+    // Views store their controller under this key on their root pane for the modal to find
+    private static final String OWNER = "controller";
+
+    // A modal controller that is prepared again each time its cached modal is shown
+    public interface Reusable {
+        void reset();
+    }
+
+    private record Modal(Parent root, Object controller) {
+    }
+
+    private static final Map<String, Modal> modals = new HashMap<>();
+
+    private ModalManager() {
+    }
+
+    /**
+     * Shows the modal at path over host, replacing any modal already showing there.
+     *
+     * @return the modal's controller
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T show(String path, Pane host) throws IOException {
+        Modal modal = modals.get(path);
+        if (modal == null) {
+            ViewLoader.View<Object> view = ViewLoader.load(path);
+            modal = new Modal(view.root(), view.controller());
+            modals.put(path, modal);
+        }
+
+        Pane layer = layer(host);
+        // Taking the node out of the layer it was last shown on, possibly in another scene
+        layer.getChildren().setAll(modal.root());
+        modal.root().setVisible(true);
+        if (modal.controller() instanceof Reusable reusable) {
+            reusable.reset();
+        }
+        layer.setVisible(true);
+        layer.toFront();
+        return (T) modal.controller();
+    }
+
+    // Closes the modal that node is part of
+    public static void hide(Node node) {
+        Pane layer = layerOf(node);
+        if (layer != null) {
+            layer.getChildren().clear();
+            layer.setVisible(false);
+        }
+    }
+
+    // The pane the modal that node is part of is shown over, to open another modal in its place
+    public static Pane host(Node node) {
+        Pane layer = layerOf(node);
+        return layer != null ? (Pane) layer.getParent() : null;
+    }
+
+    // The controller of the view the modal that node is part of is shown over
+    public static Object owner(Node node) {
+        Pane host = host(node);
+        return host != null ? host.getProperties().get(OWNER) : null;
+    }
+
+    /**
+     * Drops the cached modals that are not showing, to be loaded again when next opened.
+     *
+     * @return how many were dropped
+     */
+    public static int releaseHidden() {
+        int released = 0;
+        for (Iterator<Modal> it = modals.values().iterator(); it.hasNext(); ) {
+            if (it.next().root().getParent() == null) {
+                it.remove();
+                released++;
+            }
+        }
+        return released;
+    }
+
+    private static Pane layer(Pane host) {
+        for (Node child : host.getChildren()) {
+            if (child instanceof Pane pane && child.getProperties().containsKey(LAYER)) {
+                return pane;
+            }
+        }
+        Pane layer = new Pane();
+        layer.getProperties().put(LAYER, Boolean.TRUE);
+        layer.setPickOnBounds(false);
+        layer.setVisible(false);
+        host.getChildren().add(layer);
+        // A modal still on the layer would otherwise keep the old view reachable from the cache
+        ViewScope.current().onDispose(() -> layer.getChildren().clear());
+        return layer;
+    }
+
+    private static Pane layerOf(Node node) {
+        for (Node n = node; n != null; n = n.getParent()) {
+            if (n instanceof Pane pane && n.getProperties().containsKey(LAYER)) {
+                return pane;
+            }
+        }
+        return null;
+    }
+}
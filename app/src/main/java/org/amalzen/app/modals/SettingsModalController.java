@@ -2,14 +2,16 @@ package org.amalzen.app.modals;
 
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
-import javafx.scene.image.Image;
+import javafx.scene.control.CheckBox;
 import javafx.scene.layout.AnchorPane;
 import org.amalzen.app.Main;
 import org.amalzen.app.ResourcePath;
 import org.amalzen.app.audio.AudioHandler;
+import org.amalzen.app.rendering.RenderSettings;
+import org.amalzen.app.rendering.TextureAtlas;
 import javafx.scene.image.ImageView;
 
-public class SettingsModalController {
+public class SettingsModalController implements ModalManager.Reusable {
 
     @FXML
     private Button quitButton;
@@ -23,23 +25,11 @@ public class SettingsModalController {
     @FXML
     private ImageView musicImageView;
 
-    private Image musicOnIcon;
-    private Image musicOffIcon;
-    private Image effectsOnIcon;
-    private Image effectsOffIcon;
+    @FXML
+    private CheckBox lowPowerCheckBox;
 
     @FXML
     private void initialize() {
-        try {
-            musicOnIcon = new Image(getClass().getResourceAsStream(ResourcePath.SOUND_ON_ICON.getPath()));
-            musicOffIcon = new Image(getClass().getResourceAsStream(ResourcePath.SOUND_OFF_ICON.getPath()));
-            effectsOnIcon = new Image(getClass().getResourceAsStream(ResourcePath.SOUND_ON_ICON.getPath()));
-            effectsOffIcon = new Image(getClass().getResourceAsStream(ResourcePath.SOUND_OFF_ICON.getPath()));
-        } catch (Exception e) {
-            System.err.println("Error loading images: " + e.getMessage());
-            e.printStackTrace();
-        }
-
         musicImageView.setOnMouseClicked(event -> {
             AudioHandler.setMusicMuted(!AudioHandler.isMusicMuted());
             updateMusicIconState();
@@ -50,31 +40,41 @@ public class SettingsModalController {
             updateEffectsIconState();
         });
 
-        updateMusicIconState();
-        updateEffectsIconState();
+        reset();
+
+        // Applies to views built from now on; the frame rate cap takes effect on next launch
+        lowPowerCheckBox.setOnAction(event -> RenderSettings.setLowPower(lowPowerCheckBox.isSelected()));
 
         quitButton.setOnAction(event -> {
-            Main.showModals(ResourcePath.EXIT_MODAL.getPath(), (AnchorPane) rootSettingsModalPane.getParent());
-            rootSettingsModalPane.setVisible(false);
+            // Takes the place of this modal on the same layer
+            Main.showModals(ResourcePath.EXIT_MODAL.getPath(), (AnchorPane) ModalManager.host(rootSettingsModalPane));
         });
 
         rootSettingsModalPane.setOnMouseClicked(event -> {
             if (event.getTarget() == rootSettingsModalPane) {
-                rootSettingsModalPane.setVisible(false);
+                ModalManager.hide(rootSettingsModalPane);
             }
         });
     }
 
+    // Sound and power settings can be changed elsewhere while the modal is closed
+    @Override
+    public void reset() {
+        updateMusicIconState();
+        updateEffectsIconState();
+        lowPowerCheckBox.setSelected(RenderSettings.isLowPower());
+    }
+
     private void updateMusicIconState() {
-        if (musicOnIcon != null && musicOffIcon != null) {
-            musicImageView.setImage(AudioHandler.isMusicMuted() ? musicOffIcon : musicOnIcon);
-        }
+        TextureAtlas.show(musicImageView, icon(AudioHandler.isMusicMuted()));
     }
 
     private void updateEffectsIconState() {
-        if (effectsOnIcon != null && effectsOffIcon != null) {
-            effectsImageView.setImage(AudioHandler.isEffectsMuted() ? effectsOffIcon : effectsOnIcon);
-        }
+        TextureAtlas.show(effectsImageView, icon(AudioHandler.isEffectsMuted()));
+    }
+
+    private static String icon(boolean muted) {
+        return (muted ? ResourcePath.SOUND_OFF_ICON : ResourcePath.SOUND_ON_ICON).getPath();
     }
 
 }
@@ -0,0 +1,64 @@
+package org.amalzen.app.preload;
+
+import javafx.application.Preloader;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.stage.Stage;
+import javafx.stage.StageStyle;
+import org.amalzen.app.ResourcePath;
+
+import java.util.Objects;
+
+/**
+ * Splash window shown while Main.init() warms up the login screen. Enabled through the
+ * javafx.preloader system property in Main.main().
+ */
+public class SplashPreloader extends Preloader {
+    private static final double WIDTH = 480;
+
+    private Stage stage;
+    private ProgressBar progressBar;
+
+    @Override
+    public void start(Stage stage) {
+        this.stage = stage;
+
+        ImageView logo = new ImageView(new Image(Objects.requireNonNull(
+                SplashPreloader.class.getResourceAsStream("/org/amalzen/app/images/game-logo-transparent.png")),
+                WIDTH, 0, true, true));
+        progressBar = new ProgressBar(0);
+        progressBar.setPrefWidth(WIDTH);
+
+        VBox root = new VBox(16, logo, progressBar);
+        root.setAlignment(Pos.CENTER);
+        root.setStyle("-fx-background-color: transparent;");
+
+        Scene scene = new Scene(root);
+        scene.setFill(Color.TRANSPARENT);
+        stage.initStyle(StageStyle.TRANSPARENT);
+        stage.getIcons().add(new Image(Objects.requireNonNull(
+                SplashPreloader.class.getResourceAsStream(ResourcePath.GAME_ICON.getPath()))));
+        stage.setScene(scene);
+        stage.show();
+    }
+
+    @Override
+    public void handleApplicationNotification(PreloaderNotification info) {
+        // Progress sent by Main.init() through notifyPreloader
+        if (info instanceof ProgressNotification progress) {
+            progressBar.setProgress(progress.getProgress());
+        }
+    }
+
+    @Override
+    public void handleStateChangeNotification(StateChangeNotification info) {
+        if (info.getType() == StateChangeNotification.Type.BEFORE_START) {
+            stage.hide();
+        }
+    }
+}
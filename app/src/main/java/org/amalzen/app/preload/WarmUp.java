@@ -0,0 +1,139 @@
+package org.amalzen.app.preload;
+
+import javafx.scene.text.Font;
+import org.amalzen.app.Main;
+import org.amalzen.app.ResourcePath;
+import org.amalzen.app.ViewLoader;
+import org.amalzen.app.audio.AudioHandler;
+import org.amalzen.app.components.CardComponent;
+import org.amalzen.app.game_room.GameRoomModel;
+import org.amalzen.app.rendering.ImageCache;
+import org.amalzen.app.rendering.RenderSettings;
+import org.amalzen.app.rendering.TextureAtlas;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Background work started before the login screen is shown: decoding images, registering
+ * fonts, parsing views and exercising the game event parser. Tasks run in parallel on the
+ * fork-join pool; only the ones the login screen depends on are waited for.
+ */
+public class WarmUp {
+    private static final Logger LOGGER = Logger.getLogger(WarmUp.class.getName());
+    private static final String IMAGES = "/org/amalzen/app/images/";
+    private static final String FONTS = "/org/amalzen/app/fonts/";
+    private static final int PARSER_ITERATIONS = 1_000;
+
+    private static final String[] LOGIN_IMAGES = {
+            "login-bg.png", "game-logo-transparent.png", "username-textfield.png",
+            "password-textfield.png", "login-button.png"
+    };
+    private static final String[] LOGIN_FONTS = {"GloriaHallelujah-Regular.ttf"};
+
+    private static final String[] IMAGES_AFTER_LOGIN = {
+            "loading-background.png", "game-room-bg.png", "card-easy.png", "cardFront.png",
+            "scoreboard.png", "round-indicator.png", "status-paper.png", "loading-ball.png",
+            "play-button.png", "leaderboards-button.png", "logout-button-image.png",
+            "how-to-play-icon.png", "settings-icon.png", "back-button.png", "match-victory.png",
+            "match-defeat.png", "victory-playagain.png", "defeat-playagain.png"
+    };
+    private static final String[] FONTS_AFTER_LOGIN = {
+            "Girassol-Regular.ttf", "Gloock-Regular.ttf", "Glory-Regular.ttf"
+    };
+    // Views whose controllers have no side effects (no music, no connections) when loaded
+    private static final ResourcePath[] VIEWS = {
+            ResourcePath.CARD, ResourcePath.GAME_OVER_MODAL, ResourcePath.SETTINGS_MODAL,
+            ResourcePath.EXIT_MODAL, ResourcePath.LOGOUT_MODAL
+    };
+
+    private final List<CompletableFuture<Void>> loginTasks = new ArrayList<>();
+    private final AtomicInteger completed = new AtomicInteger();
+    private final DoubleConsumer progress;
+    private final int total = LOGIN_IMAGES.length + LOGIN_FONTS.length;
+
+    private WarmUp(DoubleConsumer progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * Starts all warm-up tasks.
+     *
+     * @param progress receives the fraction of login tasks done, from any thread
+     */
+    public static WarmUp start(DoubleConsumer progress) {
+        WarmUp warmUp = new WarmUp(progress);
+        warmUp.submitAll();
+        return warmUp;
+    }
+
+    private void submitAll() {
+        for (String image : LOGIN_IMAGES) {
+            loginTasks.add(run("image " + image, () -> decode(image)).thenRun(this::reportProgress));
+        }
+        for (String font : LOGIN_FONTS) {
+            loginTasks.add(run("font " + font, () -> loadFont(font)).thenRun(this::reportProgress));
+        }
+
+        for (String image : IMAGES_AFTER_LOGIN) {
+            run("image " + image, () -> decode(image));
+        }
+        for (String font : FONTS_AFTER_LOGIN) {
+            run("font " + font, () -> loadFont(font));
+        }
+        for (ResourcePath view : VIEWS) {
+            run("view " + view, () -> ViewLoader.load(view.getPath()));
+        }
+        run("audio", () -> {
+            AudioHandler.isAudioOutputAvailable();
+            CardComponent.preloadSound();
+        });
+        run("event parser", () -> GameRoomModel.warmUp(PARSER_ITERATIONS));
+    }
+
+    // Blocks until everything the login screen needs is ready
+    public void awaitLogin() {
+        CompletableFuture.allOf(loginTasks.toArray(CompletableFuture<?>[]::new)).join();
+        LOGGER.info("Login warm-up done, " + ImageCache.size() + " images cached");
+    }
+
+    private CompletableFuture<Void> run(String name, Task task) {
+        return CompletableFuture.runAsync(() -> {
+            long start = System.nanoTime();
+            try {
+                task.run();
+            } catch (Exception e) {
+                // A failed warm-up only means the view does the work itself later
+                LOGGER.log(Level.WARNING, "Warm-up of " + name + " failed", e);
+            }
+            LOGGER.fine(() -> "Warmed up " + name + " in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+        }, ForkJoinPool.commonPool());
+    }
+
+    private void reportProgress() {
+        progress.accept((double) completed.incrementAndGet() / total);
+    }
+
+    private static void decode(String image) {
+        String url = ViewLoader.url(IMAGES + image);
+        // A packed image is decoded with its atlas page, which region loads the first time
+        if (TextureAtlas.region(url) == null) {
+            RenderSettings.loadImage(url, 0, 0, false, false, false);
+        }
+    }
+
+    private static void loadFont(String font) {
+        Font.loadFont(Main.class.getResource(FONTS + font).toExternalForm(), 12);
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        void run() throws Exception;
+    }
+}
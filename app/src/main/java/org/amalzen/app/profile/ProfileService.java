@@ -0,0 +1,124 @@
+package org.amalzen.app.profile;
+
+import org.amalzen.app.APIs;
+import org.amalzen.app.ApiClient;
+import org.amalzen.app.Main;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The logged-in player's score and standing, fetched once per session and cached. When a game
+ * ends the server updates the score from its result, so the profile is fetched again straight
+ * away and is usually ready before the player is back in matchmaking.
+ */
+public class ProfileService {
+    private static final Logger LOGGER = Logger.getLogger(ProfileService.class.getName());
+    private static final String USERS_URL = APIs.USER_URL.getValue() + "/getUsers";
+
+    private static CompletableFuture<Profile> profile;
+    private static volatile Profile lastKnown;
+    // Bumped on logout, so a fetch still running for the previous player is not kept
+    private static int generation;
+
+    /**
+     * @param rank        1 for the highest total score
+     * @param playerCount number of registered players
+     */
+    public record Profile(String username, int totalScore, int rank, int playerCount) {
+    }
+
+    // Cached profile, or a fetch started in the background if there is none
+    public static synchronized CompletableFuture<Profile> profile() {
+        if (profile == null || profile.isCompletedExceptionally()) {
+            String username = Main.username;
+            int fetchGeneration = generation;
+            profile = CompletableFuture.supplyAsync(() -> fetch(username));
+            profile.whenComplete((result, error) -> {
+                if (error != null) {
+                    LOGGER.log(Level.WARNING, "Could not load profile for " + username, error);
+                } else {
+                    remember(result, fetchGeneration);
+                }
+            });
+        }
+        return profile;
+    }
+
+    public static void prefetch() {
+        profile();
+    }
+
+    // The most recent profile without waiting, possibly from before the last game
+    public static Profile lastKnown() {
+        return lastKnown;
+    }
+
+    // The profile of a fetch that finished, or the last known one, without waiting
+    public static Profile cachedOrLastKnown(CompletableFuture<Profile> fetch) {
+        return fetch.isDone() && !fetch.isCompletedExceptionally() ? fetch.join() : lastKnown;
+    }
+
+    // Called when a game ends; starts fetching the updated score right away
+    public static synchronized void invalidate() {
+        profile = null;
+        if (Main.username != null) {
+            profile();
+        }
+    }
+
+    // Called on logout so the next player starts from nothing
+    public static synchronized void clear() {
+        generation++;
+        profile = null;
+        lastKnown = null;
+    }
+
+    private static synchronized void remember(Profile result, int fetchGeneration) {
+        if (fetchGeneration == generation) {
+            lastKnown = result;
+        }
+    }
+
+    private static Profile fetch(String username) {
+        HttpResponse<String> response;
+        try {
+            response = ApiClient.get(USERS_URL);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading profile", e);
+        }
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Profile request failed with status " + response.statusCode());
+        }
+
+        JSONArray users = new JSONArray(response.body());
+        int totalScore = -1;
+        for (int i = 0; i < users.length(); i++) {
+            JSONObject user = users.getJSONObject(i);
+            if (user.getString("username").equals(username)) {
+                totalScore = user.optInt("total_score", 0);
+                break;
+            }
+        }
+        if (totalScore < 0) {
+            throw new IllegalStateException("User " + username + " not found");
+        }
+
+        int rank = 1;
+        for (int i = 0; i < users.length(); i++) {
+            if (users.getJSONObject(i).optInt("total_score", 0) > totalScore) {
+                rank++;
+            }
+        }
+        return new Profile(username, totalScore, rank, users.length());
+    }
+}
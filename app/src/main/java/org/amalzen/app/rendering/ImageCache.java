@@ -0,0 +1,132 @@
+package org.amalzen.app.rendering;
+
+import javafx.scene.image.Image;
+
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Decoded images shared between views, keyed by URL and decode size. Lets images decoded
+ * during start-up warm-up be reused by the views that load them later. Images are held
+ * softly, so the collector can take back the ones no view shows, and at most
+ * -Dcache.images.max of them (256 by default) are kept.
+ */
+public class ImageCache {
+    private static final int MAX_ENTRIES = Math.max(1, Integer.getInteger("cache.images.max", 256));
+    // An image being decoded completes once it is; callers after the same image wait for it
+    private static final Map<String, CompletableFuture<SoftReference<Image>>> images = new ConcurrentHashMap<>();
+
+    public static Image get(String url, double requestedWidth, double requestedHeight,
+                            boolean preserveRatio, boolean smooth, Supplier<Image> decoder) {
+        String key = normalize(url) + "#" + requestedWidth + "x" + requestedHeight
+                + (preserveRatio ? "p" : "") + (smooth ? "s" : "");
+        while (true) {
+            CompletableFuture<SoftReference<Image>> cached = images.get(key);
+            if (cached == null) {
+                // Decoded outside the map, so loads of other images never wait on this one
+                CompletableFuture<SoftReference<Image>> decoding = new CompletableFuture<>();
+                cached = images.putIfAbsent(key, decoding);
+                if (cached == null) {
+                    return decode(key, decoding, decoder);
+                }
+            }
+            try {
+                Image image = cached.join().get();
+                if (image != null) {
+                    return image;
+                }
+                // Collected since, decode it again
+                images.remove(key, cached);
+            } catch (CompletionException e) {
+                // The decode failed and was removed; try it once more here
+            }
+        }
+    }
+
+    private static Image decode(String key, CompletableFuture<SoftReference<Image>> decoding, Supplier<Image> decoder) {
+        Image image;
+        try {
+            image = decoder.get();
+        } catch (RuntimeException | Error e) {
+            images.remove(key, decoding);
+            decoding.completeExceptionally(e);
+            throw e;
+        }
+        decoding.complete(new SoftReference<>(image));
+        if (images.size() > MAX_ENTRIES) {
+            evict(key);
+        }
+        return image;
+    }
+
+    // Drops collected images, then others until the cache is back under its limit
+    private static void evict(String keep) {
+        images.values().removeIf(cached -> cached.isDone() && image(cached) == null);
+        Iterator<Map.Entry<String, CompletableFuture<SoftReference<Image>>>> entries = images.entrySet().iterator();
+        while (images.size() > MAX_ENTRIES && entries.hasNext()) {
+            Map.Entry<String, CompletableFuture<SoftReference<Image>>> entry = entries.next();
+            if (entry.getValue().isDone() && !entry.getKey().equals(keep)) {
+                entries.remove();
+            }
+        }
+    }
+
+    // The image of a finished decode, or null if it failed or was collected
+    private static Image image(CompletableFuture<SoftReference<Image>> cached) {
+        if (!cached.isDone() || cached.isCompletedExceptionally()) {
+            return null;
+        }
+        return cached.join().get();
+    }
+
+    public static int size() {
+        return images.size();
+    }
+
+    public static void clear() {
+        images.clear();
+    }
+
+    /**
+     * Empties the cache under memory pressure. Images still shown by a view stay alive through
+     * the view; the rest can be collected. Images still being decoded are left in place.
+     *
+     * @return estimated bytes of decoded pixels the cache let go of
+     */
+    public static long trim() {
+        long bytes = 0;
+        for (Map.Entry<String, CompletableFuture<SoftReference<Image>>> entry : images.entrySet()) {
+            CompletableFuture<SoftReference<Image>> cached = entry.getValue();
+            if (cached.isDone() && images.remove(entry.getKey(), cached)) {
+                Image image = image(cached);
+                if (image != null) {
+                    bytes += decodedBytes(image);
+                }
+            }
+        }
+        return bytes;
+    }
+
+    // Four bytes a pixel once decoded; zero for an image still loading in the background
+    static long decodedBytes(Image image) {
+        return image.getProgress() < 1 ? 0 : (long) image.getWidth() * (long) image.getHeight() * 4;
+    }
+
+    // FXML resolves "@../images/x.png" against the view's URL, leaving "view/../images" in it
+    static String normalize(String url) {
+        String normalized = url;
+        while (normalized.contains("/../")) {
+            String next = normalized.replaceFirst("/[^/!]+/\\.\\./", "/");
+            if (next.equals(normalized)) {
+                break;
+            }
+            normalized = next;
+        }
+        return normalized;
+    }
+}
@@ -0,0 +1,135 @@
+package org.amalzen.app.rendering;
+
+import javafx.application.Platform;
+import org.amalzen.app.audio.AudioHandler;
+import org.amalzen.app.logging.Log;
+import org.amalzen.app.metrics.Metrics;
+import org.amalzen.app.modals.ModalManager;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the client within a heap budget over long sessions. The budget is -Dcache.heap.budget.mb,
+ * or three quarters of the maximum heap. When the heap is still over PRESSURE_FRACTION of the
+ * budget after a garbage collection, caches are trimmed on the JavaFX thread: the decoded image
+ * cache is emptied, idle media players are disposed, cached modals that are closed are
+ * dropped, and anything registered with {@link #register} is trimmed. What was freed is logged.
+ *
+ * <p>Pressure is picked up from the collection usage threshold of the heap pools that support
+ * one, and from GC notifications, after which the heap in use is compared to the budget.
+ */
+public class MemoryManager {
+    private static final Logger LOGGER = Logger.getLogger(MemoryManager.class.getName());
+    private static final double PRESSURE_FRACTION = 0.7;
+    // Trimming more often than this would not give the collector time to reclaim anything
+    private static final long MIN_TRIM_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    // A cache that can give up memory on request, returning the estimated bytes released
+    public interface Trimmable {
+        long trim();
+    }
+
+    private static final Map<String, Trimmable> trimmables = new LinkedHashMap<>();
+    private static final AtomicLong lastTrim = new AtomicLong(System.nanoTime() - MIN_TRIM_INTERVAL_NANOS);
+    private static long budgetBytes;
+    private static boolean started = false;
+
+    public static synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        long maxHeap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getMax();
+        long configured = Long.getLong("cache.heap.budget.mb", -1);
+        budgetBytes = configured > 0 ? configured << 20 : maxHeap > 0 ? maxHeap / 4 * 3 : 512L << 20;
+        long pressureBytes = (long) (budgetBytes * PRESSURE_FRACTION);
+
+        boolean thresholdSet = false;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported()) {
+                long poolMax = pool.getUsage().getMax();
+                pool.setCollectionUsageThreshold(poolMax > 0 ? Math.min(pressureBytes, poolMax / 10 * 9) : pressureBytes);
+                thresholdSet = true;
+            }
+        }
+        ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).addNotificationListener(
+                (notification, handback) -> onPressure("threshold"), MemoryManager::isThreshold, null);
+
+        // A pool threshold only fires on crossing it, so the heap is also checked after every collection
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener((notification, handback) -> afterCollection(pressureBytes), null, null);
+            }
+        }
+        Log.info(LOGGER, "Memory manager started", "budgetMb", budgetBytes >> 20, "pressureMb", pressureBytes >> 20,
+                "maxHeapMb", maxHeap >> 20, "poolThresholds", thresholdSet);
+    }
+
+    // Registers a cache to trim under pressure, replacing any registered under the same name
+    public static synchronized void register(String name, Trimmable trimmable) {
+        trimmables.put(name, trimmable);
+    }
+
+    private static boolean isThreshold(Notification notification) {
+        return MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(notification.getType());
+    }
+
+    private static void afterCollection(long pressureBytes) {
+        long used = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        if (used > pressureBytes) {
+            onPressure("gc");
+        }
+    }
+
+    private static void onPressure(String source) {
+        long now = System.nanoTime();
+        long last = lastTrim.get();
+        if (now - last < MIN_TRIM_INTERVAL_NANOS || !lastTrim.compareAndSet(last, now)) {
+            return;
+        }
+        Platform.runLater(() -> trim(source));
+    }
+
+    /**
+     * Trims every cache now. Call on the JavaFX thread.
+     *
+     * @param reason why, for the log
+     */
+    public static void trim(String reason) {
+        long heapBefore = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        long imageBytes = ImageCache.trim();
+        int players = AudioHandler.releaseIdlePlayers();
+        int removedModals = ModalManager.releaseHidden();
+
+        List<Object> fields = new ArrayList<>(List.of(
+                "reason", reason,
+                "heapMb", heapBefore >> 20,
+                "budgetMb", budgetBytes >> 20,
+                "imageKb", imageBytes >> 10,
+                "mediaPlayers", players,
+                "modals", removedModals));
+        Map<String, Trimmable> registered;
+        synchronized (MemoryManager.class) {
+            registered = new LinkedHashMap<>(trimmables);
+        }
+        registered.forEach((name, trimmable) -> {
+            fields.add(name + "Kb");
+            fields.add(trimmable.trim() >> 10);
+        });
+        Metrics.MEMORY_TRIMS.inc();
+        Log.warning(LOGGER, "Memory pressure, trimmed caches", fields.toArray());
+    }
+}
@@ -0,0 +1,134 @@
+package org.amalzen.app.rendering;
+
+import javafx.animation.Animation;
+import javafx.stage.Stage;
+import org.amalzen.app.audio.AudioHandler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Suspends work nobody can see. Decorative animations pause while the window is unfocused;
+ * when it is iconified or hidden, animations that only drive visible state and the music
+ * player pause as well. Everything resumes where it left off once the window is back.
+ */
+public class PowerManager {
+    private static final Logger LOGGER = Logger.getLogger(PowerManager.class.getName());
+
+    public enum State {
+        ACTIVE, UNFOCUSED, HIDDEN
+    }
+
+    // Work that is not an Animation but can stop and pick up again, such as an AnimationTimer
+    public interface Suspendable {
+        void suspend();
+
+        void resume();
+    }
+
+    private static final Set<Animation> idleAnimations = Collections.newSetFromMap(new WeakHashMap<>());
+    private static final Set<Animation> visibleAnimations = Collections.newSetFromMap(new WeakHashMap<>());
+    private static final Set<Suspendable> visibleTasks = Collections.newSetFromMap(new WeakHashMap<>());
+    private static final List<Animation> pausedAnimations = new ArrayList<>();
+    private static State state = State.ACTIVE;
+    private static Stage stage;
+
+    public static void init(Stage primaryStage) {
+        stage = primaryStage;
+        stage.focusedProperty().addListener((obs, oldValue, newValue) -> update());
+        stage.iconifiedProperty().addListener((obs, oldValue, newValue) -> update());
+        stage.showingProperty().addListener((obs, oldValue, newValue) -> update());
+    }
+
+    // Looping decorative animation, such as the matchmaking spinner
+    public static void pauseWhenUnfocused(Animation animation) {
+        idleAnimations.add(animation);
+        if (state != State.ACTIVE) {
+            pause(animation);
+        }
+    }
+
+    // Animation that only updates what is on screen, such as a countdown label
+    public static void pauseWhenHidden(Animation animation) {
+        visibleAnimations.add(animation);
+        if (state == State.HIDDEN) {
+            pause(animation);
+        }
+    }
+
+    public static void pauseWhenHidden(Suspendable task) {
+        visibleTasks.add(task);
+        if (state == State.HIDDEN) {
+            task.suspend();
+        }
+    }
+
+    public static State getState() {
+        return state;
+    }
+
+    private static void update() {
+        State newState;
+        if (stage.isIconified() || !stage.isShowing()) {
+            newState = State.HIDDEN;
+        } else if (!stage.isFocused()) {
+            newState = State.UNFOCUSED;
+        } else {
+            newState = State.ACTIVE;
+        }
+
+        if (newState == state) {
+            return;
+        }
+        LOGGER.fine("Window state " + state + " -> " + newState);
+        State oldState = state;
+        state = newState;
+
+        if (newState == State.ACTIVE) {
+            resumeAll();
+            return;
+        }
+
+        if (oldState == State.HIDDEN) {
+            // Back on screen but not focused: only the idle animations stay paused
+            resumeAll();
+        }
+        for (Animation animation : idleAnimations) {
+            pause(animation);
+        }
+        if (newState == State.HIDDEN) {
+            for (Animation animation : visibleAnimations) {
+                pause(animation);
+            }
+            for (Suspendable task : visibleTasks) {
+                task.suspend();
+            }
+            AudioHandler.pauseMusic();
+        }
+    }
+
+    private static void pause(Animation animation) {
+        if (animation.getStatus() == Animation.Status.RUNNING) {
+            animation.pause();
+            pausedAnimations.add(animation);
+        }
+    }
+
+    private static void resumeAll() {
+        for (Animation animation : pausedAnimations) {
+            // Skip animations stopped by their owner while we had them paused
+            if (animation.getStatus() == Animation.Status.PAUSED) {
+                animation.play();
+            }
+        }
+        pausedAnimations.clear();
+        for (Suspendable task : visibleTasks) {
+            task.resume();
+        }
+        AudioHandler.resumeMusic();
+    }
+}
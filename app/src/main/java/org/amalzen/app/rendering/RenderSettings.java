@@ -0,0 +1,107 @@
+package org.amalzen.app.rendering;
+
+import javafx.application.ConditionalFeature;
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+
+import java.util.logging.Logger;
+import java.util.prefs.Preferences;
+
+/**
+ * Low-power rendering mode for machines running on the software (sw) pipeline.
+ * When enabled, cards flip with a 2D scale instead of a 3D rotation, full-screen backgrounds
+ * and texture atlas pages are decoded at reduced size and the animation frame rate is capped.
+ *
+ * <p>Also chooses how the game board is drawn: a node per card by default, or every card on
+ * one canvas with -Dcache.board.renderer=canvas. Boards too large for the node layout always
+ * use the canvas.
+ */
+public class RenderSettings {
+    private static final Logger LOGGER = Logger.getLogger(RenderSettings.class.getName());
+    private static final Preferences PREFS = Preferences.userNodeForPackage(RenderSettings.class);
+    private static final String LOW_POWER_KEY = "lowPowerRendering";
+    private static final String SOFTWARE_PIPELINE_KEY = "softwarePipeline";
+    private static final String FRAMERATE_PROPERTY = "javafx.animation.framerate";
+    private static final String BOARD_RENDERER_PROPERTY = "cache.board.renderer";
+
+    public static final int LOW_POWER_FRAMERATE = 30;
+    private static final double LOW_POWER_BACKGROUND_WIDTH = 960;
+    private static final double LOW_POWER_ATLAS_SCALE = 0.5;
+
+    private static boolean lowPower = PREFS.getBoolean(LOW_POWER_KEY, false);
+
+    // Must run before the JavaFX toolkit starts, the pulse rate is fixed after that
+    public static void applyStartupOptions() {
+        // The pipeline is only known once the toolkit runs, so without a saved choice low power
+        // follows the pipeline of the last start, or one forced with -Dprism.order=sw
+        if (PREFS.get(LOW_POWER_KEY, null) == null && (PREFS.getBoolean(SOFTWARE_PIPELINE_KEY, false)
+                || System.getProperty("prism.order", "").startsWith("sw"))) {
+            lowPower = true;
+        }
+        if (lowPower && System.getProperty(FRAMERATE_PROPERTY) == null) {
+            System.setProperty(FRAMERATE_PROPERTY, String.valueOf(LOW_POWER_FRAMERATE));
+        }
+    }
+
+    public static void init() {
+        boolean software = !Platform.isSupported(ConditionalFeature.SCENE3D);
+        PREFS.putBoolean(SOFTWARE_PIPELINE_KEY, software);
+        // Without a saved choice, fall back to low power when there is no hardware pipeline
+        if (PREFS.get(LOW_POWER_KEY, null) == null && software && !lowPower) {
+            LOGGER.info("Software rendering pipeline detected, using low-power rendering;"
+                    + " the frame rate is capped from the next start");
+            lowPower = true;
+        } else if (PREFS.get(LOW_POWER_KEY, null) == null && !software && lowPower) {
+            // Ran on software last time; only the frame rate cap is left for this run
+            LOGGER.info("Hardware rendering pipeline detected, using full rendering;"
+                    + " the frame rate is uncapped from the next start");
+            lowPower = false;
+        }
+    }
+
+    public static boolean isLowPower() {
+        return lowPower;
+    }
+
+    public static void setLowPower(boolean enabled) {
+        lowPower = enabled;
+        PREFS.putBoolean(LOW_POWER_KEY, enabled);
+        LOGGER.info("Low-power rendering " + (enabled ? "enabled" : "disabled"));
+    }
+
+    public static boolean isCanvasBoard() {
+        return "canvas".equalsIgnoreCase(System.getProperty(BOARD_RENDERER_PROPERTY, "nodes"));
+    }
+
+    public static Image loadImage(String url, double requestedWidth, double requestedHeight,
+                                  boolean preserveRatio, boolean smooth, boolean backgroundLoading) {
+        if (lowPower && requestedWidth == 0 && requestedHeight == 0 && isBackground(url)) {
+            requestedWidth = LOW_POWER_BACKGROUND_WIDTH;
+            preserveRatio = true;
+            smooth = true;
+        }
+
+        if (backgroundLoading) {
+            return new Image(url, requestedWidth, requestedHeight, preserveRatio, smooth, true);
+        }
+
+        double width = requestedWidth;
+        double height = requestedHeight;
+        boolean ratio = preserveRatio;
+        boolean smoothing = smooth;
+        return ImageCache.get(url, width, height, ratio, smoothing,
+                () -> new Image(url, width, height, ratio, smoothing, false));
+    }
+
+    // An atlas page of the given size, decoded at half of it in low-power mode
+    public static Image loadAtlasPage(String url, int width, int height) {
+        if (!lowPower) {
+            return loadImage(url, 0, 0, false, false, false);
+        }
+        return loadImage(url, width * LOW_POWER_ATLAS_SCALE, height * LOW_POWER_ATLAS_SCALE, false, true, false);
+    }
+
+    private static boolean isBackground(String url) {
+        return url.endsWith("-bg.png") || url.endsWith("-background.png");
+    }
+}
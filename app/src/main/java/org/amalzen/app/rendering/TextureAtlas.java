@@ -0,0 +1,227 @@
+package org.amalzen.app.rendering;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.control.Labeled;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.WritableImage;
+import org.amalzen.app.Main;
+import org.amalzen.app.logging.Log;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Serves the packed images (buttons, icons, card art) as regions of a few atlas pages built by
+ * AtlasPacker under src/build, so they share one texture instead of uploading one each. Views
+ * get a placeholder from {@link #image} while they are built and {@link #resolve} swaps it for
+ * the page and its viewport; code showing an image itself uses {@link #show}. Images that were
+ * not packed, and all of them with -Dcache.atlas=false or when the index is missing, are
+ * decoded on their own as before. Pages are decoded through {@link RenderSettings}, at half
+ * size in low-power mode, and the packed images are shown at their own size either way.
+ */
+public final class TextureAtlas {
+    private static final Logger LOGGER = Logger.getLogger(TextureAtlas.class.getName());
+    private static final String IMAGES = "/org/amalzen/app/images/";
+    private static final String INDEX = IMAGES + "atlas/atlas.properties";
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("cache.atlas", "true"));
+
+    private static final String FITTED = TextureAtlas.class.getName() + ".fitted";
+
+    // A packed image: the page it is on, where, and page pixels per pixel of the image
+    public record Region(Image page, Rectangle2D viewport, double scale) {
+    }
+
+    private record Entry(int page, Rectangle2D viewport) {
+    }
+
+    private record Page(Image image, double scale) {
+    }
+
+    // Stands in for a packed image until the view it is in is resolved
+    private static final class Placeholder extends WritableImage {
+        private final Region region;
+
+        Placeholder(Region region) {
+            super(1, 1);
+            this.region = region;
+        }
+    }
+
+    private static Map<String, Entry> entries;
+    private static final Map<Integer, int[]> pageSizes = new HashMap<>();
+    private static final Map<Integer, Page> pages = new HashMap<>();
+    // Whether the packed images are in the bundle on their own as well
+    private static boolean originals = true;
+
+    private TextureAtlas() {
+    }
+
+    /**
+     * The region of the image at a URL or resource path, loading its page the first time, or
+     * null if the image was not packed.
+     */
+    public static synchronized Region region(String url) {
+        String name = name(url);
+        Entry entry = name != null ? entries().get(name) : null;
+        if (entry == null) {
+            return null;
+        }
+        Page page = pages.computeIfAbsent(entry.page(), TextureAtlas::loadPage);
+        return new Region(page.image(), scale(entry.viewport(), 0, 0, page.scale()), page.scale());
+    }
+
+    // Image for a view being built; packed images at their own size, or not bundled on their own, become placeholders
+    public static Image image(String url, double requestedWidth, double requestedHeight,
+                              boolean preserveRatio, boolean smooth, boolean backgroundLoading) {
+        Region region = requestedWidth == 0 && requestedHeight == 0 || !hasOriginals() ? region(url) : null;
+        return region != null ? new Placeholder(region)
+                : RenderSettings.loadImage(url, requestedWidth, requestedHeight, preserveRatio, smooth, backgroundLoading);
+    }
+
+    // Shows the image at a resource path in view, from its page if it was packed
+    public static void show(ImageView view, String path) {
+        Region region = region(path);
+        if (region != null) {
+            display(view, region, region.viewport());
+        } else {
+            fit(view, 0, 0);
+            view.setViewport(null);
+            view.setImage(RenderSettings.loadImage(Main.class.getResource(path).toExternalForm(), 0, 0,
+                    false, false, false));
+        }
+    }
+
+    // Replaces the placeholders in a view that was just built with their pages
+    public static void resolve(Node node) {
+        if (node instanceof ImageView view && view.getImage() instanceof Placeholder placeholder) {
+            Region region = placeholder.region;
+            Rectangle2D viewport = view.getViewport();
+            // A viewport set in the view is relative to the original image
+            display(view, region, viewport == null ? region.viewport() : scale(viewport,
+                    region.viewport().getMinX(), region.viewport().getMinY(), region.scale()));
+        }
+        // Graphics and content are not children until the control has a skin
+        if (node instanceof Labeled labeled && labeled.getGraphic() != null) {
+            resolve(labeled.getGraphic());
+        }
+        if (node instanceof ScrollPane scrollPane && scrollPane.getContent() != null) {
+            resolve(scrollPane.getContent());
+        }
+        if (node instanceof Parent parent) {
+            for (Node child : parent.getChildrenUnmodifiable()) {
+                resolve(child);
+            }
+        }
+    }
+
+    private static void display(ImageView view, Region region, Rectangle2D viewport) {
+        view.setImage(region.page());
+        view.setViewport(viewport);
+        if (region.scale() != 1) {
+            fit(view, viewport.getWidth() / region.scale(), viewport.getHeight() / region.scale());
+        } else {
+            fit(view, 0, 0);
+        }
+    }
+
+    // Sizes a view without a fit size of its own, 0 by 0 undoes it
+    private static void fit(ImageView view, double width, double height) {
+        boolean fitted = view.getProperties().containsKey(FITTED);
+        if (!fitted && (view.getFitWidth() > 0 || view.getFitHeight() > 0)) {
+            return;
+        }
+        if (width == 0 && height == 0) {
+            view.getProperties().remove(FITTED);
+        } else {
+            view.getProperties().put(FITTED, Boolean.TRUE);
+        }
+        view.setFitWidth(width);
+        view.setFitHeight(height);
+    }
+
+    private static Rectangle2D scale(Rectangle2D viewport, double x, double y, double scale) {
+        return new Rectangle2D(x + viewport.getMinX() * scale, y + viewport.getMinY() * scale,
+                viewport.getWidth() * scale, viewport.getHeight() * scale);
+    }
+
+    private static synchronized boolean hasOriginals() {
+        entries();
+        return originals;
+    }
+
+    // "file:/.../view/../images/play-button.png", "/org/amalzen/app/images/play-button.png" or
+    // "images/play-button.png", relative to Main like ResourcePath's paths -> "play-button.png"
+    private static String name(String url) {
+        String normalized = ImageCache.normalize(url);
+        if (!normalized.startsWith("/") && !normalized.contains(":")) {
+            normalized = "/" + Main.class.getPackageName().replace('.', '/') + "/" + normalized;
+        }
+        int start = normalized.lastIndexOf(IMAGES);
+        return start >= 0 ? normalized.substring(start + IMAGES.length()) : null;
+    }
+
+    private static Map<String, Entry> entries() {
+        if (entries != null) {
+            return entries;
+        }
+        entries = new HashMap<>();
+        try (InputStream in = TextureAtlas.class.getResourceAsStream(INDEX)) {
+            if (in == null) {
+                // Built without the process-resources step, for instance by an IDE
+                LOGGER.info("No texture atlas, decoding images one by one");
+                return entries;
+            }
+            Properties index = new Properties();
+            index.load(in);
+            for (String name : index.stringPropertyNames()) {
+                String[] fields = index.getProperty(name).split(",");
+                if (name.startsWith("page.")) {
+                    pageSizes.put(Integer.parseInt(name.substring("page.".length())),
+                            new int[]{Integer.parseInt(fields[0].trim()), Integer.parseInt(fields[1].trim())});
+                    continue;
+                }
+                entries.put(name, new Entry(Integer.parseInt(fields[0].trim()), new Rectangle2D(
+                        Double.parseDouble(fields[1].trim()), Double.parseDouble(fields[2].trim()),
+                        Double.parseDouble(fields[3].trim()), Double.parseDouble(fields[4].trim()))));
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Unreadable texture atlas index, decoding images one by one", e);
+            entries.clear();
+            return entries;
+        }
+        // The build leaves packed images out of the jar unless -Datlas.keepOriginals=true
+        originals = entries.isEmpty()
+                || TextureAtlas.class.getResource(IMAGES + entries.keySet().iterator().next()) != null;
+        if (!ENABLED && originals) {
+            LOGGER.info("Texture atlas turned off, decoding images one by one");
+            entries.clear();
+        } else if (!ENABLED) {
+            LOGGER.warning("Packed images are only bundled in the texture atlas, ignoring -Dcache.atlas=false");
+        }
+        return entries;
+    }
+
+    private static Page loadPage(int page) {
+        long start = System.nanoTime();
+        String url = Main.class.getResource(IMAGES + "atlas/atlas-" + page + ".png").toExternalForm();
+        int[] size = pageSizes.get(page);
+        // An index without page sizes predates low-power pages
+        Image image = size != null ? RenderSettings.loadAtlasPage(url, size[0], size[1])
+                : RenderSettings.loadImage(url, 0, 0, false, false, false);
+        double scale = size != null && image.getWidth() > 0 ? image.getWidth() / size[0] : 1;
+        Log.info(LOGGER, "Atlas page loaded", "page", page, "width", (int) image.getWidth(),
+                "height", (int) image.getHeight(), "scale", scale,
+                "decodedKb", ImageCache.decodedBytes(image) >> 10,
+                "ms", (System.nanoTime() - start) / 1_000_000);
+        return new Page(image, scale);
+    }
+}
@@ -0,0 +1,48 @@
+package org.amalzen.app.rendering;
+
+import javafx.scene.image.Image;
+import javafx.util.Builder;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds the {@code <Image>} elements of FXML views through {@link TextureAtlas#image}, so views
+ * pick up the reduced assets of the low-power mode and draw packed images from the atlas.
+ */
+public class ViewImageBuilder extends AbstractMap<String, Object> implements Builder<Image> {
+    private final Map<String, Object> properties = new HashMap<>();
+
+    @Override
+    public Object put(String key, Object value) {
+        return properties.put(key, value);
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return properties.entrySet();
+    }
+
+    @Override
+    public Image build() {
+        return TextureAtlas.image(
+                String.valueOf(properties.getOrDefault("url", "")),
+                number("requestedWidth"),
+                number("requestedHeight"),
+                flag("preserveRatio"),
+                flag("smooth"),
+                flag("backgroundLoading"));
+    }
+
+    private double number(String key) {
+        Object value = properties.get(key);
+        return value != null ? Double.parseDouble(value.toString()) : 0;
+    }
+
+    private boolean flag(String key) {
+        Object value = properties.get(key);
+        return value != null && Boolean.parseBoolean(value.toString());
+    }
+}
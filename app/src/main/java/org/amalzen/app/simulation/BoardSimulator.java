@@ -0,0 +1,260 @@
+package org.amalzen.app.simulation;
+
+import org.amalzen.app.game_room.PracticeBot;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays bot-vs-bot memory games with the game service's rules, for tuning the turn timer and
+ * board size. A board of up to 64 cards is one partner array plus 64-bit masks for the cards
+ * still on the board and the cards each bot remembers, and the bots follow PracticeBot's
+ * strategy, so a game allocates nothing. Batches of games are split across a fork-join pool.
+ */
+public final class BoardSimulator {
+    public static final int MAX_CARDS = Long.SIZE;
+    static final int MATCH_POINTS = 10;
+    private static final long GAMES_PER_TASK = 20_000;
+
+    /**
+     * How a bot remembers cards, as in PracticeBot: the {@code capacity} most recently seen
+     * cards, each recalled with probability {@code recall} whenever the bot picks a card.
+     */
+    public record Bot(int capacity, double recall) {
+        public Bot {
+            if (capacity < 0 || recall < 0 || recall > 1) {
+                throw new IllegalArgumentException("capacity must be >= 0 and recall in [0, 1]");
+            }
+        }
+
+        public static Bot of(PracticeBot.Level level) {
+            return new Bot(level.capacity(), level.recall());
+        }
+    }
+
+    /**
+     * @param flipSeconds      time a player takes to turn one card over
+     * @param missPauseSeconds time a missed pair stays face up before the turn passes
+     */
+    public record Rules(int cards, int timerSeconds, double flipSeconds, double missPauseSeconds) {
+        public Rules {
+            if (cards < 2 || cards > MAX_CARDS || cards % 2 != 0) {
+                throw new IllegalArgumentException("cards must be even and between 2 and " + MAX_CARDS);
+            }
+        }
+
+        // The game service's timer, with the game room's flip and flip-back delays
+        public static Rules standard(int cards) {
+            return new Rules(cards, 180, 2.5, 2.0);
+        }
+
+        int pairs() {
+            return cards / 2;
+        }
+    }
+
+    private final Rules rules;
+    private final Bot[] bots;
+
+    // Scratch state reused from game to game
+    private final int[] deal;
+    private final int[] partner;
+    private final long[] known = new long[2];
+    private final int[] scores = new int[2];
+    // Remembered cards of each bot, oldest sighting first
+    private final int[][] recency = new int[2][];
+    private final int[] recencySize = new int[2];
+
+    public BoardSimulator(Rules rules, Bot first, Bot second) {
+        this.rules = rules;
+        this.bots = new Bot[]{first, second};
+        this.deal = new int[rules.cards()];
+        this.partner = new int[rules.cards()];
+        for (int p = 0; p < 2; p++) {
+            recency[p] = new int[Math.min(bots[p].capacity(), rules.cards())];
+        }
+    }
+
+    // Plays one game and adds its result to stats
+    public void play(SplittableRandom random, SimulationStats stats) {
+        shuffle(random);
+        known[0] = known[1] = 0;
+        recencySize[0] = recencySize[1] = 0;
+        scores[0] = scores[1] = 0;
+
+        long open = rules.cards() == MAX_CARDS ? -1L : (1L << rules.cards()) - 1;
+        int player = random.nextInt(2);
+        int turns = 0;
+        double elapsed = 0;
+        double turnSeconds = 2 * rules.flipSeconds();
+        boolean timedOut = false;
+
+        while (open != 0) {
+            if (elapsed + turnSeconds > rules.timerSeconds()) {
+                timedOut = true;
+                break;
+            }
+            turns++;
+            int first = chooseFirst(player, open, random);
+            saw(first);
+            int second = chooseSecond(player, open, first, random);
+            saw(second);
+            elapsed += turnSeconds;
+
+            if (partner[first] == second) {
+                open &= ~(1L << first | 1L << second);
+                paired(first);
+                paired(second);
+                scores[player] += MATCH_POINTS;
+            } else {
+                elapsed += rules.missPauseSeconds();
+                player = 1 - player;
+            }
+        }
+        stats.record(scores[0], scores[1], turns, Math.min(elapsed, rules.timerSeconds()), timedOut);
+    }
+
+    // Lays the pairs out on random positions
+    private void shuffle(SplittableRandom random) {
+        for (int i = 0; i < deal.length; i++) {
+            int j = random.nextInt(i + 1);
+            deal[i] = deal[j];
+            deal[j] = i;
+        }
+        for (int i = 0; i < deal.length; i += 2) {
+            partner[deal[i]] = deal[i + 1];
+            partner[deal[i + 1]] = deal[i];
+        }
+    }
+
+    private int chooseFirst(int player, long open, SplittableRandom random) {
+        long recalled = recall(player, random);
+        for (long cards = recalled; cards != 0; cards &= cards - 1) {
+            int card = Long.numberOfTrailingZeros(cards);
+            if ((recalled & 1L << partner[card]) != 0) {
+                return card;
+            }
+        }
+        return pick(open & ~recalled, open, random);
+    }
+
+    private int chooseSecond(int player, long open, int first, SplittableRandom random) {
+        long recalled = recall(player, random);
+        if ((recalled & 1L << partner[first]) != 0) {
+            return partner[first];
+        }
+        long rest = open & ~(1L << first);
+        return pick(rest & ~recalled, rest, random);
+    }
+
+    // What the bot manages to remember this time
+    private long recall(int player, SplittableRandom random) {
+        double recall = bots[player].recall();
+        if (recall >= 1) {
+            return known[player];
+        }
+        long recalled = 0;
+        for (long cards = known[player]; cards != 0; cards &= cards - 1) {
+            if (random.nextDouble() < recall) {
+                recalled |= Long.lowestOneBit(cards);
+            }
+        }
+        return recalled;
+    }
+
+    // A random card from preferred, or from fallback when preferred is empty
+    private static int pick(long preferred, long fallback, SplittableRandom random) {
+        long cards = preferred != 0 ? preferred : fallback;
+        for (int skip = random.nextInt(Long.bitCount(cards)); skip > 0; skip--) {
+            cards &= cards - 1;
+        }
+        return Long.numberOfTrailingZeros(cards);
+    }
+
+    // Both bots see every card turned over
+    private void saw(int card) {
+        for (int p = 0; p < 2; p++) {
+            int[] order = recency[p];
+            if (order.length == 0) {
+                continue;
+            }
+            if ((known[p] & 1L << card) != 0) {
+                remove(p, card);
+            } else if (recencySize[p] == order.length) {
+                known[p] &= ~(1L << order[0]);
+                System.arraycopy(order, 1, order, 0, --recencySize[p]);
+            }
+            order[recencySize[p]++] = card;
+            known[p] |= 1L << card;
+        }
+    }
+
+    private void paired(int card) {
+        for (int p = 0; p < 2; p++) {
+            if ((known[p] & 1L << card) != 0) {
+                remove(p, card);
+                known[p] &= ~(1L << card);
+            }
+        }
+    }
+
+    private void remove(int player, int card) {
+        int[] order = recency[player];
+        for (int i = 0; i < recencySize[player]; i++) {
+            if (order[i] == card) {
+                System.arraycopy(order, i + 1, order, i, recencySize[player] - i - 1);
+                recencySize[player]--;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Plays {@code games} games on the common fork-join pool. The same seed gives the same
+     * result whatever the number of cores, because every batch gets its own split random.
+     */
+    public static SimulationStats run(Rules rules, Bot first, Bot second, long games, long seed) {
+        return run(ForkJoinPool.commonPool(), rules, first, second, games, seed);
+    }
+
+    public static SimulationStats run(ForkJoinPool pool, Rules rules, Bot first, Bot second, long games, long seed) {
+        return pool.invoke(new Batch(rules, first, second, games, new SplittableRandom(seed)));
+    }
+
+    private static final class Batch extends RecursiveTask<SimulationStats> {
+        private static final long serialVersionUID = 1L;
+
+        // Serializable only through ForkJoinTask, batches never leave the pool
+        private final transient Rules rules;
+        private final transient Bot first;
+        private final transient Bot second;
+        private final long games;
+        private final transient SplittableRandom random;
+
+        Batch(Rules rules, Bot first, Bot second, long games, SplittableRandom random) {
+            this.rules = rules;
+            this.first = first;
+            this.second = second;
+            this.games = games;
+            this.random = random;
+        }
+
+        @Override
+        protected SimulationStats compute() {
+            if (games <= GAMES_PER_TASK) {
+                BoardSimulator simulator = new BoardSimulator(rules, first, second);
+                SimulationStats stats = new SimulationStats(rules);
+                for (long i = 0; i < games; i++) {
+                    simulator.play(random, stats);
+                }
+                return stats;
+            }
+            long half = games / 2;
+            Batch left = new Batch(rules, first, second, half, random.split());
+            left.fork();
+            SimulationStats right = new Batch(rules, first, second, games - half, random).compute();
+            return right.merge(left.join());
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package org.amalzen.app.simulation;
+
+/**
+ * Results of a batch of simulated games, kept as counters and histograms so batches played
+ * on different threads can be merged. Histograms count pairs found; scores are reported in points.
+ */
+public final class SimulationStats {
+    private final BoardSimulator.Rules rules;
+
+    private long games;
+    private final long[] wins = new long[2];
+    private long ties;
+    private long timeouts;
+    private long turns;
+    private double seconds;
+    // Indexed by pairs found, per player
+    private final long[][] scoreHistogram;
+    // Indexed by the first player's lead in pairs, offset by the number of pairs
+    private final long[] marginHistogram;
+    // Indexed by turns played, the last bucket holding any longer game
+    private final long[] turnHistogram;
+
+    SimulationStats(BoardSimulator.Rules rules) {
+        this.rules = rules;
+        int pairs = rules.pairs();
+        this.scoreHistogram = new long[2][pairs + 1];
+        this.marginHistogram = new long[2 * pairs + 1];
+        // Every turn takes two flips, so the timer bounds the length of a game
+        this.turnHistogram = new long[(int) (rules.timerSeconds() / (2 * rules.flipSeconds())) + 2];
+    }
+
+    void record(int firstScore, int secondScore, int gameTurns, double gameSeconds, boolean timedOut) {
+        games++;
+        if (firstScore > secondScore) {
+            wins[0]++;
+        } else if (secondScore > firstScore) {
+            wins[1]++;
+        } else {
+            ties++;
+        }
+        if (timedOut) {
+            timeouts++;
+        }
+        turns += gameTurns;
+        seconds += gameSeconds;
+
+        int first = firstScore / BoardSimulator.MATCH_POINTS;
+        int second = secondScore / BoardSimulator.MATCH_POINTS;
+        scoreHistogram[0][first]++;
+        scoreHistogram[1][second]++;
+        marginHistogram[first - second + rules.pairs()]++;
+        turnHistogram[Math.min(gameTurns, turnHistogram.length - 1)]++;
+    }
+
+    SimulationStats merge(SimulationStats other) {
+        games += other.games;
+        wins[0] += other.wins[0];
+        wins[1] += other.wins[1];
+        ties += other.ties;
+        timeouts += other.timeouts;
+        turns += other.turns;
+        seconds += other.seconds;
+        for (int p = 0; p < 2; p++) {
+            add(scoreHistogram[p], other.scoreHistogram[p]);
+        }
+        add(marginHistogram, other.marginHistogram);
+        add(turnHistogram, other.turnHistogram);
+        return this;
+    }
+
+    private static void add(long[] into, long[] from) {
+        for (int i = 0; i < into.length; i++) {
+            into[i] += from[i];
+        }
+    }
+
+    public long games() {
+        return games;
+    }
+
+    public double winRate(int player) {
+        return (double) wins[player] / games;
+    }
+
+    public double tieRate() {
+        return (double) ties / games;
+    }
+
+    // Share of games stopped by the timer before every pair was found
+    public double timeoutRate() {
+        return (double) timeouts / games;
+    }
+
+    public double meanTurns() {
+        return (double) turns / games;
+    }
+
+    public double meanSeconds() {
+        return seconds / games;
+    }
+
+    // Mean score in points
+    public double meanScore(int player) {
+        return mean(scoreHistogram[player], 0) * BoardSimulator.MATCH_POINTS;
+    }
+
+    public double scoreStdDev(int player) {
+        long[] histogram = scoreHistogram[player];
+        double mean = mean(histogram, 0);
+        double squares = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            squares += histogram[i] * (i - mean) * (i - mean);
+        }
+        return Math.sqrt(squares / games) * BoardSimulator.MATCH_POINTS;
+    }
+
+    // The turn count that the given fraction of games finish within
+    public int turnsPercentile(double fraction) {
+        return percentile(turnHistogram, fraction, 0);
+    }
+
+    // The first player's lead in points at the given fraction of games
+    public int marginPercentile(double fraction) {
+        return percentile(marginHistogram, fraction, -rules.pairs()) * BoardSimulator.MATCH_POINTS;
+    }
+
+    private double mean(long[] histogram, int offset) {
+        double sum = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            sum += histogram[i] * (double) (i + offset);
+        }
+        return sum / games;
+    }
+
+    private int percentile(long[] histogram, double fraction, int offset) {
+        long target = (long) Math.ceil(fraction * games);
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= target && seen > 0) {
+                return i + offset;
+            }
+        }
+        return histogram.length - 1 + offset;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,d games: wins %.1f%% / %.1f%%, ties %.1f%%, timed out %.1f%%, "
+                        + "turns %.1f (p50 %d, p90 %d), %.0fs, scores %.0f (sd %.0f) / %.0f (sd %.0f), lead p10 %d p90 %d",
+                games, 100 * winRate(0), 100 * winRate(1), 100 * tieRate(), 100 * timeoutRate(),
+                meanTurns(), turnsPercentile(0.5), turnsPercentile(0.9), meanSeconds(),
+                meanScore(0), scoreStdDev(0), meanScore(1), scoreStdDev(1),
+                marginPercentile(0.1), marginPercentile(0.9));
+    }
+}
@@ -0,0 +1,44 @@
+package org.amalzen.app.simulation;
+
+import org.amalzen.app.game_room.PracticeBot;
+
+/**
+ * Runs the board simulator from the command line and prints how games turn out.
+ *
+ * <pre>
+ * SimulationTool [games] [timer seconds]    compare board sizes and bot levels, 200000 games each by default
+ * </pre>
+ *
+ * Games per second are measured by BoardSimulatorBenchmark under src/test, see {@code mvn -Pbench test}.
+ */
+public class SimulationTool {
+    private static final int[] BOARD_SIZES = {16, 24, 32, 48, 64};
+    private static final long SEED = 0x5eed;
+
+    private static void compare(long games, int timerSeconds) {
+        PracticeBot.Level[][] matchups = {
+                {PracticeBot.Level.EASY, PracticeBot.Level.EASY},
+                {PracticeBot.Level.NORMAL, PracticeBot.Level.NORMAL},
+                {PracticeBot.Level.HARD, PracticeBot.Level.HARD},
+                {PracticeBot.Level.EASY, PracticeBot.Level.HARD},
+        };
+        for (int cards : BOARD_SIZES) {
+            BoardSimulator.Rules standard = BoardSimulator.Rules.standard(cards);
+            BoardSimulator.Rules rules = new BoardSimulator.Rules(cards, timerSeconds,
+                    standard.flipSeconds(), standard.missPauseSeconds());
+            for (PracticeBot.Level[] matchup : matchups) {
+                long start = System.nanoTime();
+                SimulationStats stats = BoardSimulator.run(rules,
+                        BoardSimulator.Bot.of(matchup[0]), BoardSimulator.Bot.of(matchup[1]), games, SEED);
+                System.out.printf("%2d cards, %ds, %-6s vs %-6s %s (%.2fs)%n", cards, timerSeconds,
+                        matchup[0], matchup[1], stats, (System.nanoTime() - start) / 1e9);
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 200_000;
+        int timerSeconds = args.length > 1 ? Integer.parseInt(args[1]) : 180;
+        compare(games, timerSeconds);
+    }
+}
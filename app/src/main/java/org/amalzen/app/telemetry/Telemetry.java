@@ -0,0 +1,102 @@
+package org.amalzen.app.telemetry;
+
+import org.amalzen.app.metrics.Metrics;
+
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.prefs.Preferences;
+
+/**
+ * Gameplay and performance events shipped to the REST API in the background. Recording an event
+ * only puts it in a bounded queue, so it never blocks the caller; when the queue is full the
+ * event is dropped and counted in Metrics. TelemetryUploader batches, compresses and sends the queue.
+ * Turned off with -Dcache.telemetry=false.
+ *
+ * <pre>
+ * Telemetry.record("match_wait", "waitMs", waitMs);
+ * </pre>
+ */
+public final class Telemetry {
+    private static final Logger LOGGER = Logger.getLogger(Telemetry.class.getName());
+    private static final Preferences PREFS = Preferences.userNodeForPackage(Telemetry.class);
+    private static final String CLIENT_ID_KEY = "clientId";
+    private static final int QUEUE_CAPACITY = 5000;
+
+    /**
+     * @param fields alternating keys and values; values should be strings, numbers or booleans
+     */
+    record Event(String type, long time, Object[] fields) {
+    }
+
+    static final BlockingQueue<Event> QUEUE = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    private static volatile TelemetryUploader uploader;
+
+    private Telemetry() {
+    }
+
+    public static void record(String type, Object... fields) {
+        TelemetryUploader active = uploader;
+        if (active == null) {
+            return;
+        }
+        if (!QUEUE.offer(new Event(type, System.currentTimeMillis(), fields))) {
+            Metrics.TELEMETRY_DROPPED.inc();
+            return;
+        }
+        if (QUEUE.size() >= TelemetryUploader.BATCH_SIZE) {
+            active.wake();
+        }
+    }
+
+    public static synchronized void start() {
+        if (uploader != null || !Boolean.parseBoolean(System.getProperty("cache.telemetry", "true"))) {
+            return;
+        }
+        uploader = new TelemetryUploader(clientId());
+        uploader.start();
+        // Errors logged anywhere in the app are reported as well
+        Logger.getLogger("").addHandler(new TelemetryLogHandler());
+        LOGGER.fine("Telemetry started");
+    }
+
+    // A random id that tells this installation's batches apart, without identifying the player
+    private static String clientId() {
+        String id = PREFS.get(CLIENT_ID_KEY, null);
+        if (id == null) {
+            id = UUID.randomUUID().toString();
+            PREFS.put(CLIENT_ID_KEY, id);
+        }
+        return id;
+    }
+
+    // Events logged at SEVERE, by logger and exception type only
+    private static final class TelemetryLogHandler extends java.util.logging.Handler {
+        TelemetryLogHandler() {
+            setLevel(Level.SEVERE);
+        }
+
+        @Override
+        public void publish(java.util.logging.LogRecord record) {
+            if (!isLoggable(record)) {
+                return;
+            }
+            Throwable thrown = record.getThrown();
+            record("error",
+                    "logger", String.valueOf(record.getLoggerName()),
+                    "message", String.valueOf(record.getMessage()),
+                    "exception", thrown != null ? thrown.getClass().getName() : "");
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.amalzen.app.telemetry;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A local stand-in for the telemetry endpoint, for watching what the client sends and how it
+ * retries without a REST API running. Prints a summary of every batch it receives and fails
+ * the given share of requests with a 503.
+ *
+ * <pre>
+ * TelemetryStandIn [port] [failureRate]
+ * </pre>
+ * Start the app with TELEMETRY_URL=http://127.0.0.1:&lt;port&gt;/telemetry to send to it.
+ */
+public final class TelemetryStandIn {
+    private static final int DEFAULT_PORT = 8099;
+
+    private TelemetryStandIn() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        double failureRate = args.length > 1 ? Double.parseDouble(args[1]) : 0;
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/", exchange -> receive(exchange, failureRate));
+        server.start();
+        System.out.printf("Listening on http://127.0.0.1:%d/telemetry, failing %.0f%% of requests%n",
+                port, 100 * failureRate);
+    }
+
+    private static void receive(HttpExchange exchange, double failureRate) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+                System.out.printf("%d bytes, failed on purpose%n", body.length);
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+
+            try {
+                System.out.println(summary(exchange, body));
+            } catch (IOException | RuntimeException e) {
+                System.out.println("Bad batch: " + e);
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(204, -1);
+        }
+    }
+
+    private static String summary(HttpExchange exchange, byte[] body) throws IOException {
+        byte[] json = body;
+        if ("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+                json = in.readAllBytes();
+            }
+        }
+        JSONObject batch = new JSONObject(new String(json, StandardCharsets.UTF_8));
+        JSONArray events = batch.getJSONArray("events");
+        Map<String, Integer> types = new TreeMap<>();
+        for (int i = 0; i < events.length(); i++) {
+            types.merge(events.getJSONObject(i).optString("type"), 1, Integer::sum);
+        }
+        return String.format("%d bytes (%d raw) from %s: %d events %s", body.length, json.length,
+                batch.optString("clientId"), events.length(), types);
+    }
+}
@@ -0,0 +1,289 @@
+package org.amalzen.app.telemetry;
+
+import org.amalzen.app.APIs;
+import org.amalzen.app.ApiClient;
+import org.amalzen.app.Main;
+import org.amalzen.app.logging.Log;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Sends queued telemetry events in gzip compressed JSON batches from a background thread,
+ * every FLUSH_INTERVAL_SECONDS or as soon as a full batch is waiting.
+ *
+ * <p>Uploads need a session, so events recorded before login wait in the queue. A batch that
+ * fails with a server error, a 401, a 429 or no response is spooled to ~/.cache-game/telemetry
+ * and retried with exponential backoff; spooled batches go out before anything newer. A batch
+ * the server finds too large (413) is split in two and spooled. While waiting, a queue that
+ * grows past HIGH_WATER is spilled to the spool as well, and what is left in memory when the
+ * app exits is spooled by a shutdown hook. The spool keeps at most MAX_SPOOLED batches and
+ * deletes the oldest beyond that. Batches the server rejects with any other 4xx are dropped,
+ * since sending them again would not help.
+ */
+final class TelemetryUploader {
+    private static final Logger LOGGER = Logger.getLogger(TelemetryUploader.class.getName());
+    static final Path SPOOL_DIRECTORY = Path.of(System.getProperty("user.home"), ".cache-game", "telemetry");
+    private static final String EXTENSION = ".json.gz";
+
+    static final int BATCH_SIZE = 500;
+    private static final int HIGH_WATER = 2000;
+    private static final int MAX_SPOOLED = 100;
+    private static final int MAX_STRING_LENGTH = 1024;
+    private static final long FLUSH_INTERVAL_SECONDS = 15;
+    private static final long MIN_BACKOFF_MILLIS = 1000;
+    private static final long MAX_BACKOFF_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    private enum Outcome {SENT, REJECTED, RETRY, TOO_LARGE}
+
+    private final String clientId;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "TelemetryUploader");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean woken = new AtomicBoolean();
+    private final AtomicInteger spoolSequence = new AtomicInteger();
+
+    // Only touched on the scheduler thread
+    private long backoffMillis = 0;
+    private long retryAt = 0;
+
+    TelemetryUploader(String clientId) {
+        this.clientId = clientId;
+    }
+
+    void start() {
+        scheduler.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        // Send what earlier runs left behind
+        scheduler.execute(this::flush);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::spillToDisk, "TelemetryUploader-Shutdown"));
+    }
+
+    // Flushes soon instead of waiting for the next interval
+    void wake() {
+        if (woken.compareAndSet(false, true)) {
+            scheduler.execute(this::flush);
+        }
+    }
+
+    private void flush() {
+        woken.set(false);
+        try {
+            boolean waiting = retryAt != 0 && System.nanoTime() - retryAt < 0;
+            if (waiting || Main.sessionId == null) {
+                if (Telemetry.QUEUE.size() >= HIGH_WATER) {
+                    spillToDisk();
+                }
+                return;
+            }
+            for (Path file : spooled()) {
+                byte[] batch = Files.readAllBytes(file);
+                Outcome outcome = post(batch);
+                if (outcome == Outcome.RETRY) {
+                    backOff();
+                    return;
+                }
+                if (outcome == Outcome.TOO_LARGE) {
+                    split(batch);
+                }
+                Files.deleteIfExists(file);
+            }
+            while (!Telemetry.QUEUE.isEmpty()) {
+                byte[] batch = encode(drain());
+                Outcome outcome = post(batch);
+                if (outcome == Outcome.RETRY) {
+                    spool(batch);
+                    backOff();
+                    return;
+                }
+                if (outcome == Outcome.TOO_LARGE) {
+                    split(batch);
+                }
+            }
+            backoffMillis = 0;
+            retryAt = 0;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Telemetry flush failed", e);
+        }
+    }
+
+    private Outcome post(byte[] batch) {
+        String sessionId = Main.sessionId;
+        if (sessionId == null) {
+            // Logged out since the flush started
+            return Outcome.RETRY;
+        }
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(APIs.TELEMETRY_URL.getValue()))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .header("Content-Encoding", "gzip")
+                .header("Authorization", sessionId)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(batch))
+                .build();
+        int status;
+        try {
+            status = ApiClient.send(APIs.TELEMETRY_URL, request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            Log.fine(LOGGER, "Telemetry upload failed", "error", e);
+            return Outcome.RETRY;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Outcome.RETRY;
+        }
+        if (status >= 200 && status < 300) {
+            return Outcome.SENT;
+        }
+        if (status == 413) {
+            return Outcome.TOO_LARGE;
+        }
+        // A 401 means the session expired; the batch waits for the next one
+        if (status == 401 || status == 429 || status >= 500) {
+            Log.fine(LOGGER, "Telemetry upload refused", "status", status);
+            return Outcome.RETRY;
+        }
+        Log.warning(LOGGER, "Telemetry batch rejected, dropping it", "status", status, "bytes", batch.length);
+        return Outcome.REJECTED;
+    }
+
+    // Doubles the wait before the next attempt, with jitter so clients do not retry in step
+    private void backOff() {
+        backoffMillis = backoffMillis == 0 ? MIN_BACKOFF_MILLIS : Math.min(MAX_BACKOFF_MILLIS, backoffMillis * 2);
+        long delay = backoffMillis / 2 + ThreadLocalRandom.current().nextLong(backoffMillis / 2 + 1);
+        retryAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+        scheduler.schedule(this::flush, delay, TimeUnit.MILLISECONDS);
+        Log.info(LOGGER, "Telemetry upload failed, retrying later", "retryInMs", delay,
+                "queued", Telemetry.QUEUE.size());
+    }
+
+    private static List<Telemetry.Event> drain() {
+        List<Telemetry.Event> events = new ArrayList<>(BATCH_SIZE);
+        Telemetry.QUEUE.drainTo(events, BATCH_SIZE);
+        return events;
+    }
+
+    // Spools the two halves of a batch to be sent on the next pass, or drops a single event
+    private void split(byte[] batch) throws IOException {
+        JSONObject json;
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(batch))) {
+            json = new JSONObject(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        JSONArray events = json.getJSONArray("events");
+        if (events.length() <= 1) {
+            Log.warning(LOGGER, "Telemetry event too large, dropping it", "bytes", batch.length);
+            return;
+        }
+        int half = events.length() / 2;
+        JSONArray first = new JSONArray();
+        JSONArray second = new JSONArray();
+        for (int i = 0; i < events.length(); i++) {
+            (i < half ? first : second).put(events.get(i));
+        }
+        spool(gzip(json.put("events", first)));
+        spool(gzip(json.put("events", second)));
+        Log.info(LOGGER, "Telemetry batch too large, split in two", "events", events.length());
+        wake();
+    }
+
+    private byte[] encode(List<Telemetry.Event> events) throws IOException {
+        JSONArray array = new JSONArray();
+        for (Telemetry.Event event : events) {
+            JSONObject json = new JSONObject();
+            json.put("type", event.type());
+            json.put("time", event.time());
+            Object[] fields = event.fields();
+            for (int i = 0; i + 1 < fields.length; i += 2) {
+                json.put(String.valueOf(fields[i]), value(fields[i + 1]));
+            }
+            array.put(json);
+        }
+        JSONObject batch = new JSONObject();
+        batch.put("clientId", clientId);
+        batch.put("sentAt", System.currentTimeMillis());
+        batch.put("events", array);
+        return gzip(batch);
+    }
+
+    // The server takes strings, numbers, booleans and null, with strings of up to MAX_STRING_LENGTH
+    private static Object value(Object value) {
+        if (value == null) {
+            return JSONObject.NULL;
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return value;
+        }
+        String text = value.toString();
+        return text.length() > MAX_STRING_LENGTH ? text.substring(0, MAX_STRING_LENGTH) : text;
+    }
+
+    private static byte[] gzip(JSONObject batch) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        try (OutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(batch.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    // Moves everything still in memory to the spool; also runs from the shutdown hook
+    private void spillToDisk() {
+        try {
+            while (!Telemetry.QUEUE.isEmpty()) {
+                spool(encode(drain()));
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to spool telemetry", e);
+        }
+    }
+
+    private void spool(byte[] batch) throws IOException {
+        Files.createDirectories(SPOOL_DIRECTORY);
+        // Named by time so the spool sorts oldest first
+        String name = String.format("%013d-%05d%s", System.currentTimeMillis(),
+                spoolSequence.getAndIncrement() % 100_000, EXTENSION);
+        Files.write(SPOOL_DIRECTORY.resolve(name), batch);
+
+        List<Path> files = spooled();
+        for (Path old : files.subList(0, Math.max(0, files.size() - MAX_SPOOLED))) {
+            Files.deleteIfExists(old);
+            Log.warning(LOGGER, "Telemetry spool full, dropped a batch", "file", old.getFileName());
+        }
+    }
+
+    private static List<Path> spooled() throws IOException {
+        if (!Files.isDirectory(SPOOL_DIRECTORY)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(SPOOL_DIRECTORY)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(EXTENSION))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
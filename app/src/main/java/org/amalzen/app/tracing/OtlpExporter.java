@@ -0,0 +1,150 @@
+package org.amalzen.app.tracing;
+
+import org.amalzen.app.ApiClient;
+import org.amalzen.app.logging.Log;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Sends ended spans to an OpenTelemetry collector using the OTLP/HTTP JSON encoding, in batches
+ * from a background thread. Spans are kept in a bounded queue and dropped when it is full or
+ * when the collector cannot be reached; traces are for looking into problems, not a record
+ * that has to be complete.
+ */
+final class OtlpExporter {
+    private static final Logger LOGGER = Logger.getLogger(OtlpExporter.class.getName());
+    private static final String SERVICE_NAME = "cache-client";
+    private static final int QUEUE_CAPACITY = 2048;
+    private static final int BATCH_SIZE = 256;
+    private static final long FLUSH_INTERVAL_SECONDS = 5;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(5);
+
+    // OTLP span kinds and status codes
+    private static final int KIND_INTERNAL = 1;
+    private static final int KIND_CLIENT = 3;
+    private static final int STATUS_OK = 1;
+    private static final int STATUS_ERROR = 2;
+
+    private final URI endpoint;
+    private final BlockingQueue<Span> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicLong dropped = new AtomicLong();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "OtlpExporter");
+        t.setDaemon(true);
+        return t;
+    });
+
+    OtlpExporter(String endpoint) {
+        this.endpoint = URI.create(endpoint);
+        scheduler.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        // Send the last spans on the way out, waiting at most a request timeout
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "OtlpExporter-Shutdown"));
+        Log.info(LOGGER, "Exporting traces", "endpoint", endpoint);
+    }
+
+    void export(Span span) {
+        if (!queue.offer(span)) {
+            dropped.incrementAndGet();
+        } else if (queue.size() == BATCH_SIZE) {
+            scheduler.execute(this::flush);
+        }
+    }
+
+    private synchronized void flush() {
+        List<Span> batch = new ArrayList<>(BATCH_SIZE);
+        while (queue.drainTo(batch, BATCH_SIZE) > 0) {
+            send(batch);
+            batch.clear();
+        }
+        long lost = dropped.getAndSet(0);
+        if (lost > 0) {
+            Log.warning(LOGGER, "Span queue full", "dropped", lost);
+        }
+    }
+
+    private void send(List<Span> spans) {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(endpoint)
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(encode(spans).toString()))
+                .build();
+        try {
+            int status = ApiClient.client().send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            if (status >= 300) {
+                Log.warning(LOGGER, "Collector refused spans", "status", status, "spans", spans.size());
+            }
+        } catch (IOException e) {
+            Log.warning(LOGGER, "Collector unreachable, spans dropped", "spans", spans.size(), "error", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // An ExportTraceServiceRequest: resourceSpans, then scopeSpans, then spans
+    static JSONObject encode(List<Span> spans) {
+        JSONArray encoded = new JSONArray();
+        for (Span span : spans) {
+            JSONObject json = new JSONObject()
+                    .put("traceId", span.traceId())
+                    .put("spanId", span.spanId())
+                    .put("name", span.name())
+                    .put("kind", span.kind() == Span.Kind.CLIENT ? KIND_CLIENT : KIND_INTERNAL)
+                    // 64-bit integers are strings in OTLP JSON
+                    .put("startTimeUnixNano", Long.toString(span.startEpochNanos()))
+                    .put("endTimeUnixNano", Long.toString(span.endEpochNanos()))
+                    .put("attributes", attributes(span.attributes()));
+            if (span.parentSpanId() != null) {
+                json.put("parentSpanId", span.parentSpanId());
+            }
+            String error = span.error();
+            json.put("status", error != null
+                    ? new JSONObject().put("code", STATUS_ERROR).put("message", error)
+                    : new JSONObject().put("code", STATUS_OK));
+            encoded.put(json);
+        }
+
+        JSONObject resource = new JSONObject()
+                .put("attributes", attributes(Map.of("service.name", SERVICE_NAME)));
+        JSONObject scope = new JSONObject().put("name", "org.amalzen.app");
+        JSONObject scopeSpans = new JSONObject().put("scope", scope).put("spans", encoded);
+        JSONObject resourceSpans = new JSONObject()
+                .put("resource", resource)
+                .put("scopeSpans", new JSONArray().put(scopeSpans));
+        return new JSONObject().put("resourceSpans", new JSONArray().put(resourceSpans));
+    }
+
+    private static JSONArray attributes(Map<String, ?> attributes) {
+        JSONArray encoded = new JSONArray();
+        attributes.forEach((key, value) -> {
+            JSONObject any = new JSONObject();
+            if (value instanceof Boolean flag) {
+                any.put("boolValue", flag);
+            } else if (value instanceof Integer || value instanceof Long) {
+                any.put("intValue", value.toString());
+            } else if (value instanceof Number number) {
+                any.put("doubleValue", number.doubleValue());
+            } else {
+                any.put("stringValue", String.valueOf(value));
+            }
+            encoded.put(new JSONObject().put("key", key).put("value", any));
+        });
+        return encoded;
+    }
+}
@@ -0,0 +1,103 @@
+package org.amalzen.app.tracing;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A timed operation within a trace, identified the same way as in W3C Trace Context. Started by
+ * {@link Tracing#start}, given attributes while it runs and ended exactly once; changes after
+ * the first end() are ignored. Spans are cheap, so they are created whether or not they get exported.
+ */
+public final class Span {
+    public enum Kind {INTERNAL, CLIENT}
+
+    private final String traceId;
+    private final String spanId;
+    private final String parentSpanId;
+    private final String name;
+    private final Kind kind;
+    private final long startEpochNanos;
+    private final long startNanos;
+    private final Map<String, Object> attributes = new LinkedHashMap<>();
+    private long endEpochNanos = -1;
+    private String error;
+
+    Span(String traceId, String spanId, String parentSpanId, String name, Kind kind) {
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.name = name;
+        this.kind = kind;
+        Instant now = Instant.now();
+        this.startEpochNanos = TimeUnit.SECONDS.toNanos(now.getEpochSecond()) + now.getNano();
+        this.startNanos = System.nanoTime();
+    }
+
+    public String traceId() {
+        return traceId;
+    }
+
+    public String spanId() {
+        return spanId;
+    }
+
+    // The traceparent header value that makes the receiving side a child of this span
+    public String traceparent() {
+        return "00-" + traceId + "-" + spanId + "-01";
+    }
+
+    public synchronized Span attribute(String key, Object value) {
+        if (endEpochNanos < 0) {
+            attributes.put(key, value);
+        }
+        return this;
+    }
+
+    // Marks the span as failed; it still has to be ended
+    public synchronized Span fail(String message) {
+        if (endEpochNanos < 0) {
+            error = message != null ? message : "error";
+        }
+        return this;
+    }
+
+    public void end() {
+        synchronized (this) {
+            if (endEpochNanos >= 0) {
+                return;
+            }
+            endEpochNanos = startEpochNanos + (System.nanoTime() - startNanos);
+        }
+        Tracing.ended(this);
+    }
+
+    String name() {
+        return name;
+    }
+
+    String parentSpanId() {
+        return parentSpanId;
+    }
+
+    Kind kind() {
+        return kind;
+    }
+
+    long startEpochNanos() {
+        return startEpochNanos;
+    }
+
+    synchronized long endEpochNanos() {
+        return endEpochNanos;
+    }
+
+    synchronized Map<String, Object> attributes() {
+        return new LinkedHashMap<>(attributes);
+    }
+
+    synchronized String error() {
+        return error;
+    }
+}
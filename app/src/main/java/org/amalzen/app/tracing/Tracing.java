@@ -0,0 +1,63 @@
+package org.amalzen.app.tracing;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Client-side tracing, so a slow login, queue or flip seen by a player can be lined up with
+ * the services' logs. Spans carry their ids to the services in a W3C traceparent header (or a
+ * traceparent field in WebSocket messages), and ended spans are exported as OTLP JSON to the
+ * collector given by -Dcache.tracing.endpoint, e.g. http://127.0.0.1:4318/v1/traces.
+ * Without that property spans are still created and propagated, just not exported.
+ *
+ * <pre>
+ * Span span = Tracing.start("game_room.flip", Span.Kind.CLIENT).attribute("cardIndex", 3);
+ * message.put(Tracing.HEADER, span.traceparent());
+ * ...
+ * span.end();
+ * </pre>
+ */
+public final class Tracing {
+    public static final String HEADER = "traceparent";
+    private static final String ENDPOINT_PROPERTY = "cache.tracing.endpoint";
+
+    private static final OtlpExporter exporter = System.getProperty(ENDPOINT_PROPERTY) != null
+            ? new OtlpExporter(System.getProperty(ENDPOINT_PROPERTY))
+            : null;
+
+    private Tracing() {
+    }
+
+    // Starts the root span of a new trace
+    public static Span start(String name, Span.Kind kind) {
+        return new Span(randomHex(2), randomHex(1), null, name, kind);
+    }
+
+    // Starts a span within the parent's trace, or a new trace if the parent is null
+    public static Span start(String name, Span.Kind kind, Span parent) {
+        if (parent == null) {
+            return start(name, kind);
+        }
+        return new Span(parent.traceId(), randomHex(1), parent.spanId(), name, kind);
+    }
+
+    static void ended(Span span) {
+        if (exporter != null) {
+            exporter.export(span);
+        }
+    }
+
+    // 16 hex digits per long; ids of all zeros are invalid in trace context
+    private static String randomHex(int longs) {
+        StringBuilder hex = new StringBuilder(16 * longs);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < longs; i++) {
+            long value;
+            do {
+                value = random.nextLong();
+            } while (value == 0);
+            String digits = Long.toHexString(value);
+            hex.append("0".repeat(16 - digits.length())).append(digits);
+        }
+        return hex.toString();
+    }
+}
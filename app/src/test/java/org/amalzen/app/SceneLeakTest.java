@@ -0,0 +1,178 @@
+package org.amalzen.app;
+
+import javafx.application.Platform;
+import javafx.scene.Parent;
+import javafx.stage.Stage;
+import org.amalzen.app.game_room.PracticeBot;
+import org.amalzen.app.game_room.PracticeEngine;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cycles through the login, main menu, instructions and a practice game room and checks that
+ * every replaced view, with its controller, can be collected, and that heap, threads and open
+ * files settle back to what they were after warm-up. Views that need a server, such as
+ * matchmaking, are left out so the test runs anywhere.
+ */
+class SceneLeakTest {
+    private static final List<ResourcePath> CYCLE = List.of(ResourcePath.LOGIN, ResourcePath.MAIN_MENU,
+            ResourcePath.INSTRUCTION, ResourcePath.MAIN_MENU, ResourcePath.GAME_ROOM);
+    private static final int WARM_UP = 2 * CYCLE.size();
+    private static final int TRANSITIONS = 500;
+    private static final long COLLECT_TIMEOUT_MILLIS = 10_000;
+    // Allowed growth over the warm-up baseline, for caches that fill late and pooled threads
+    private static final long HEAP_TOLERANCE_BYTES = 32L * 1024 * 1024;
+    private static final int THREAD_TOLERANCE = 8;
+    private static final int FD_TOLERANCE = 16;
+
+    private record Tracked(String view, WeakReference<Parent> root, WeakReference<Object> controller) {
+    }
+
+    // fds is -1 where /proc/self/fd is not available
+    private record Usage(long heapBytes, int threads, long fds) {
+        static Usage now() throws InterruptedException {
+            System.gc();
+            Thread.sleep(200);
+            return new Usage(ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed(),
+                    ManagementFactory.getThreadMXBean().getThreadCount(), openFiles());
+        }
+
+        boolean within(Usage baseline) {
+            return heapBytes <= baseline.heapBytes + HEAP_TOLERANCE_BYTES
+                    && threads <= baseline.threads + THREAD_TOLERANCE
+                    && fds <= baseline.fds + FD_TOLERANCE;
+        }
+
+        private static long openFiles() {
+            try (Stream<Path> fds = Files.list(Path.of("/proc/self/fd"))) {
+                return fds.count();
+            } catch (IOException e) {
+                return -1;
+            }
+        }
+    }
+
+    @BeforeAll
+    static void startFx() throws Exception {
+        // Per-scene info logging would only slow the test down
+        Logger.getLogger("org.amalzen.app").setLevel(Level.WARNING);
+        CompletableFuture<Void> started = new CompletableFuture<>();
+        Platform.startup(() -> started.complete(null));
+        started.get(10, TimeUnit.SECONDS);
+        onFxThread(() -> {
+            Main.primaryStage = new Stage();
+            Main.primaryStage.show();
+            return null;
+        });
+        Main.username = "leak-check";
+        Main.sessionId = "leak-check";
+    }
+
+    @AfterAll
+    static void stopFx() {
+        Platform.exit();
+    }
+
+    @Test
+    void replacedViewsAreCollected() throws Exception {
+        for (int i = 0; i < WARM_UP; i++) {
+            show(CYCLE.get(i % CYCLE.size()));
+        }
+        show(ResourcePath.LOGIN);
+        Usage baseline = Usage.now();
+
+        List<Tracked> tracked = new ArrayList<>();
+        for (int i = 0; i < TRANSITIONS; i++) {
+            ResourcePath view = CYCLE.get(i % CYCLE.size());
+            show(view);
+            tracked.add(onFxThread(() -> new Tracked(view.name(),
+                    new WeakReference<>(Main.scene.getRoot()), new WeakReference<>(Main.controller))));
+        }
+        // Replaces the last tracked view too
+        show(ResourcePath.LOGIN);
+
+        List<String> leaked = collect(tracked);
+        assertEquals(List.of(), leaked, "Views still reachable after they were replaced");
+
+        Usage after = settle(baseline);
+        assertTrue(after.within(baseline), "Resources grew over " + TRANSITIONS + " transitions: "
+                + baseline + " after warm-up, " + after + " at the end");
+    }
+
+    // Usage once closed game rooms have stopped their threads, or as it is when the timeout runs out
+    private static Usage settle(Usage baseline) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(COLLECT_TIMEOUT_MILLIS);
+        Usage usage = Usage.now();
+        while (!usage.within(baseline) && System.nanoTime() < deadline) {
+            usage = Usage.now();
+        }
+        return usage;
+    }
+
+    // Changes scene and lets the work the view queued while loading run before it is replaced
+    private static void show(ResourcePath view) throws Exception {
+        Parent previous = onFxThread(() -> Main.scene != null ? Main.scene.getRoot() : null);
+        Parent shown = onFxThread(() -> {
+            if (view == ResourcePath.GAME_ROOM) {
+                PracticeEngine.prepare(Main.username, PracticeBot.Level.NORMAL);
+            }
+            Main.ChangeScene(view.getPath());
+            return Main.scene.getRoot();
+        });
+        // ChangeScene keeps the old scene when a view fails to load
+        assertNotSame(previous, shown, view + " did not load");
+        onFxThread(() -> null);
+    }
+
+    // The views of tracked still reachable once collection has had its chance
+    private static List<String> collect(List<Tracked> tracked) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(COLLECT_TIMEOUT_MILLIS);
+        List<String> leaked;
+        do {
+            // Closed models stop their executor threads in the background
+            System.gc();
+            Thread.sleep(200);
+            leaked = new ArrayList<>();
+            for (Tracked view : tracked) {
+                if (view.root().get() != null) {
+                    leaked.add(view.view() + " root");
+                }
+                if (view.controller().get() != null) {
+                    leaked.add(view.view() + " controller");
+                }
+            }
+        } while (!leaked.isEmpty() && System.nanoTime() < deadline);
+        return leaked;
+    }
+
+    private static <T> T onFxThread(Supplier<T> task) throws Exception {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                result.complete(task.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result.get(30, TimeUnit.SECONDS);
+    }
+}
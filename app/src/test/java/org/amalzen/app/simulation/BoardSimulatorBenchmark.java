@@ -0,0 +1,54 @@
+package org.amalzen.app.simulation;
+
+import org.amalzen.app.game_room.PracticeBot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Games per second of one simulator on one thread, run with {@code mvn -Pbench test}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardSimulatorBenchmark {
+    @Param({"16", "32", "64"})
+    int cards;
+
+    @Param({"NORMAL"})
+    PracticeBot.Level level;
+
+    BoardSimulator simulator;
+    SplittableRandom random;
+    SimulationStats stats;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BoardSimulator.Rules rules = BoardSimulator.Rules.standard(cards);
+        BoardSimulator.Bot bot = BoardSimulator.Bot.of(level);
+        simulator = new BoardSimulator(rules, bot, bot);
+        random = new SplittableRandom(0x5eed);
+        stats = new SimulationStats(rules);
+    }
+
+    // Played games land in stats, which the state keeps reachable, so none are optimized away
+    @Benchmark
+    public void play() {
+        simulator.play(random, stats);
+    }
+}
@@ -31,6 +31,7 @@ type Game struct {
 	Scores        []int             // tracks the scores of both players
 	CurrentPlayer int               // indicates the current player's turn
 	Timer         int               // tracks the time left in a game
+	Deadline      time.Time         // when the game timer runs out
 	Round         int               // tracks the number of rounds in a game
 	LoopRunning   bool              // indicates if the game loop is running
 	Cards         [16]string        // stores the questions and answers
@@ -133,6 +134,7 @@ func startGame(gameID string) {
 
 	// Set the timer to 3 minutes
 	game.Timer = 180
+	game.Deadline = time.Now().Add(time.Duration(game.Timer) * time.Second)
 	game.LoopRunning = true
 
 	fmt.Printf("[GAME START] Game ID: %s | Timer: %d seconds | %s starts (Round %d)\n", gameID, game.Timer, game.Usernames[game.CurrentPlayer], game.Round)
@@ -265,7 +267,7 @@ func handleConnection(w http.ResponseWriter, r *http.Request) {
 
 	// Connect or reconnect the player
 	game.Players[playerIdx] = conn
-	fmt.Printf("[CONNECTED] %s joined Game ID: %s\n", username, gameID)
+	fmt.Printf("[CONNECTED] %s joined Game ID: %s | traceparent=%s\n", username, gameID, r.Header.Get("traceparent"))
 
 	// Start the game when both players are connected
 	if game.Players[0] != nil && game.Players[1] != nil && game.GameStatus == "game_ready" {
@@ -361,9 +363,11 @@ func listenForMessages(conn *websocket.Conn, game *Game, playerIdx int, username
 		}
 
 		var payload struct {
-			Action    string `json:"action"`
-			Matched   bool   `json:"matched"`
-			CardIndex int    `json:"cardIndex"`
+			Action      string `json:"action"`
+			Matched     bool   `json:"matched"`
+			CardIndex   int    `json:"cardIndex"`
+			ClientTime  int64  `json:"clientTime"`
+			Traceparent string `json:"traceparent"` // W3C trace context of the client's span, if any
 		}
 		if err := json.Unmarshal(message, &payload); err == nil {
 			switch payload.Action {
@@ -372,12 +376,36 @@ func listenForMessages(conn *websocket.Conn, game *Game, playerIdx int, username
 			case "quit":
 				handleQuit(gameID, playerIdx)
 			case "flip":
+				if payload.Traceparent != "" {
+					fmt.Printf("[TRACE] %s flip of card %d | traceparent=%s | Game ID: %s\n", username, payload.CardIndex, payload.Traceparent, gameID)
+				}
 				handleFlip(gameID, playerIdx, payload.CardIndex)
+			case "ping":
+				handlePing(game, conn, payload.ClientTime)
 			}
 		}
 	}
 }
 
+// Function to answer a clock sync ping, echoing the client's send time alongside the server time
+func handlePing(game *Game, conn *websocket.Conn, clientTime int64) {
+	game.Mutex.Lock()
+	defer game.Mutex.Unlock()
+
+	event := map[string]interface{}{
+		"event":      "pong",
+		"clientTime": clientTime,
+		"serverTime": time.Now().UnixMilli(),
+	}
+
+	message, err := json.Marshal(event)
+	if err != nil {
+		fmt.Printf("[ERROR] Failed to serialize pong event | Error: %v\n", err)
+		return
+	}
+	conn.WriteMessage(websocket.TextMessage, message)
+}
+
 // Function to handle a player's move
 func handleMove(gameID string, playerIndex int, matched bool) {
 	gamesMux.Lock()
@@ -566,6 +594,8 @@ func sendGameReadyEvent(game *Game, gameID string) {
 				"opponentName": opponentName,
 				"yourName":     yourName,
 				"timeDuration": game.Timer,
+				"serverTime":   time.Now().UnixMilli(),
+				"deadline":     game.Deadline.UnixMilli(),
 			}
 
 			message, err := json.Marshal(event)
@@ -583,10 +613,12 @@ func sendPlayersReadyEvent(game *Game, gameID string) {
 	for i, player := range game.Players {
 		if player != nil {
 			event := map[string]interface{}{
-				"event":     "players_ready",
-				"yourScore": game.Scores[i],
-				"oppScore":  game.Scores[1-i],
-				"whoseTurn": game.Usernames[game.CurrentPlayer],
+				"event":      "players_ready",
+				"yourScore":  game.Scores[i],
+				"oppScore":   game.Scores[1-i],
+				"whoseTurn":  game.Usernames[game.CurrentPlayer],
+				"serverTime": time.Now().UnixMilli(),
+				"deadline":   game.Deadline.UnixMilli(),
 			}
 
 			message, err := json.Marshal(event)
@@ -604,10 +636,11 @@ func sendCardFlipEvent(game *Game, gameID string, playerIndex int, cardIndex int
 	for i, player := range game.Players {
 		if player != nil {
 			event := map[string]interface{}{
-				"event":     "card_flip",
-				"flippedBy": game.Usernames[playerIndex],
-				"cardIndex": cardIndex,
+				"event":      "card_flip",
+				"flippedBy":  game.Usernames[playerIndex],
+				"cardIndex":  cardIndex,
 				//"cardValue": game.Cards[cardIndex],
+				"serverTime": time.Now().UnixMilli(),
 			}
 
 			message, err := json.Marshal(event)
@@ -625,11 +658,13 @@ func sendMatchEvent(game *Game, gameID string, playerIndex int) {
 	for i, player := range game.Players {
 		if player != nil {
 			event := map[string]interface{}{
-				"event":     "cards_matched",
-				"yourScore": game.Scores[i],
-				"oppScore":  game.Scores[1-i],
-				"paired":    game.Paired,
-				"whoseTurn": game.Usernames[game.CurrentPlayer],
+				"event":      "cards_matched",
+				"yourScore":  game.Scores[i],
+				"oppScore":   game.Scores[1-i],
+				"paired":     game.Paired,
+				"whoseTurn":  game.Usernames[game.CurrentPlayer],
+				"serverTime": time.Now().UnixMilli(),
+				"deadline":   game.Deadline.UnixMilli(),
 			}
 
 			message, err := json.Marshal(event)
@@ -649,9 +684,11 @@ func sendTurnSwitchEvent(game *Game, gameID string) {
 			whoseTurn := game.Usernames[game.CurrentPlayer]
 
 			event := map[string]interface{}{
-				"event":     "turn_switch",
-				"round":     game.Round,
-				"whoseTurn": whoseTurn,
+				"event":      "turn_switch",
+				"round":      game.Round,
+				"whoseTurn":  whoseTurn,
+				"serverTime": time.Now().UnixMilli(),
+				"deadline":   game.Deadline.UnixMilli(),
 			}
 
 			message, err := json.Marshal(event)
@@ -676,10 +713,11 @@ func sendGameEndEvent(game *Game, gameID string) {
 			}
 
 			event := map[string]interface{}{
-				"event":  "game_end",
-				"winner": winnerUsername,
-				"yourScore": game.Scores[i],
-				"oppScore":  game.Scores[1-i],
+				"event":      "game_end",
+				"winner":     winnerUsername,
+				"yourScore":  game.Scores[i],
+				"oppScore":   game.Scores[1-i],
+				"serverTime": time.Now().UnixMilli(),
 			}
 
 			message, err := json.Marshal(event)
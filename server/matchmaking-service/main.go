@@ -123,6 +123,10 @@ func main() {
             id:   clientID,
         }
 
+        if traceparent := r.Header.Get("traceparent"); traceparent != "" {
+            log.Printf("Client %s traceparent=%s", clientID, traceparent)
+        }
+
         // Add client to manager
         manager.addClient(client)
 
@@ -217,6 +221,9 @@ func processMessage(client *Client, msgType string, jsonMsg map[string]interface
 // Handle queue request
 func handleQueueRequest(client *Client, jsonMsg map[string]interface{}) {
     log.Printf("Client %s is queuing", client.id)
+    if traceparent, ok := jsonMsg["traceparent"].(string); ok {
+        log.Printf("Client %s queue traceparent=%s", client.id, traceparent)
+    }
     
     if !checkValidUser(jsonMsg) {
         log.Printf("Invalid JSON")
@@ -7,10 +7,10 @@ const {authRouter, authMiddleware} = require('./services/auth-service/auth');
 const userRoutes = require("./services/dal-service/routes/userRoutes");
 const cardsRoutes = require("./services/dal-service/routes/cardsRoutes");
 const gameHistoryRoutes = require("./services/dal-service/routes/gameHistoryRoutes");
+const telemetryRoutes = require("./services/dal-service/routes/telemetryRoutes");
 const seedDatabase = require("./services/dal-service/scripts/seed");
 
 const app = express();
-app.use(express.json());
 
 app.get("/health", (req, res) => {
     res.send({message: "Server is up and running"});
@@ -24,6 +24,10 @@ const startServer = async () => {
 
             const PORT = process.env.PORT || 8080;
 
+            // Parses its own larger batches, so it goes ahead of the default 100kb JSON limit
+            app.use("/telemetry", authMiddleware, telemetryRoutes);
+            app.use(express.json());
+
             app.use("/auth", authRouter);
             app.use("/users", authMiddleware,userRoutes);
             app.use("/cards", authMiddleware, cardsRoutes);
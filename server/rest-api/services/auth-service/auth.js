@@ -40,6 +40,32 @@ authRouter.post("/login", async (req, res) => {
     }
 });
 
+/**
+ * Refresh Route
+ * Request Type: POST
+ * Full route: http://localhost:8080/auth/refresh
+ *
+ * Checks a stored session and extends it, so clients can skip logging in again.
+ * The request must have the sessionId in the authorization header.
+ * Responds with { sessionId, expiresAt }, 401 if the session is no longer valid, or 500 if it
+ * could not be checked.
+ */
+authRouter.post("/refresh", async (req, res) => {
+    const sessionId = req.headers["authorization"];
+    if (!sessionId) return res.status(401).json({ error: "Unauthorized" });
+
+    try {
+        const expiresAt = await sessionService.refreshSession(sessionId);
+        if (!expiresAt) return res.status(401).json({ error: "Invalid session" });
+
+        res.json({ sessionId, expiresAt });
+    } catch (error) {
+        // Clients keep their session and retry on anything but a 401
+        console.error("Error refreshing session:", error);
+        res.status(500).json({ error: "Internal Server Error" });
+    }
+});
+
 //Testing middleware
 authRouter.get("/protected", async (req, res) => {
     const sessionId = req.headers["authorization"];
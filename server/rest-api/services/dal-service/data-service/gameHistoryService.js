@@ -60,8 +60,38 @@ const getAllGameHistories = async () => {
     return await GameHistory.find();
 };
 
+// One player's games, newest first. _id grows with insertion time so it doubles as the page cursor
+const getGameHistoriesPage = async ({ player, before, after, limit }) => {
+    const filter = { $or: [{ player_1: player }, { player_2: player }] };
+    if (before || after) {
+        filter._id = {};
+        if (before) filter._id.$lt = before;
+        if (after) filter._id.$gt = after;
+    }
+    return await GameHistory.find(filter).sort({ _id: -1 }).limit(limit);
+};
+
+/**
+ * One player's games inserted or updated after a cursor, oldest change first. updated_at is
+ * set on every save, so a game saved again moves past the cursor even though its _id does not;
+ * the _id breaks ties between games saved in the same millisecond.
+ */
+const getGameHistoriesUpdatedSince = async ({ player, updatedAfter, afterId, limit }) => {
+    const filter = { $or: [{ player_1: player }, { player_2: player }] };
+    if (updatedAfter) {
+        const since = new Date(updatedAfter);
+        const later = [{ updated_at: { $gt: since } }];
+        if (afterId) later.push({ updated_at: since, _id: { $gt: afterId } });
+        filter.$and = [{ $or: later }];
+    } else {
+        // Games saved before updated_at existed have none, and were never changed since
+        filter.updated_at = { $exists: true };
+    }
+    return await GameHistory.find(filter).sort({ updated_at: 1, _id: 1 }).limit(limit);
+};
+
 const getGameHistoryById = async (id) => {
     return await GameHistory.findById(id).exec();
 };
 
-module.exports = { upsertGameHistory, getAllGameHistories, getGameHistoryById, updateGameHistoryJSON };
\ No newline at end of file
+module.exports = { upsertGameHistory, getAllGameHistories, getGameHistoriesPage, getGameHistoriesUpdatedSince, getGameHistoryById, updateGameHistoryJSON };
\ No newline at end of file
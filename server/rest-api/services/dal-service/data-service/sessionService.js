@@ -1,5 +1,8 @@
+const mongoose = require("mongoose");
 const Session = require("../models/Session");
 
+const SESSION_TTL_MS = 24 * 60 * 60 * 1000;
+
 // Create new sesh
 const createSession = async (userId) => {
     const session = new Session({ user_id: userId });
@@ -32,10 +35,25 @@ const validateSession = async (sessionId) => {
     }
 };
 
+// Push back the expiry of a live sesh, returns the new expiry or null if it is gone
+// Database errors are thrown, so a server problem is not mistaken for a bad session
+const refreshSession = async (sessionId) => {
+    // Not an id we could have handed out
+    if (!mongoose.isValidObjectId(sessionId)) return null;
+
+    const now = new Date();
+    const session = await Session.findOneAndUpdate(
+        { _id: sessionId, expires_at: { $gt: now } },
+        { last_active_at: now, expires_at: new Date(now.getTime() + SESSION_TTL_MS) },
+        { new: true }
+    );
+    return session ? session.expires_at : null;
+};
+
 //delete a sesh by id
 const deleteSession = async (sessionId) => {
     const result = await Session.deleteOne({ _id: sessionId });
     return result.deletedCount > 0;
 };
 
-module.exports = { createSession, getSession, validateSession, deleteSession};
+module.exports = { createSession, getSession, validateSession, refreshSession, deleteSession};
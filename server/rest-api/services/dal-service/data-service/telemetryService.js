@@ -0,0 +1,53 @@
+const TelemetryBatch = require("../models/Telemetry");
+
+const MAX_EVENTS_PER_BATCH = 1000;
+const MAX_FIELDS_PER_EVENT = 32;
+const MAX_NAME_LENGTH = 64;
+const MAX_STRING_LENGTH = 1024;
+
+const isField = (value) => value === null
+    || typeof value === "boolean"
+    || (typeof value === "number" && Number.isFinite(value))
+    || (typeof value === "string" && value.length <= MAX_STRING_LENGTH);
+
+// The reason a batch is malformed, or null if it can be stored
+const validateTelemetryBatch = ({ clientId, sentAt, events }) => {
+    if (typeof clientId !== "string" || !clientId || clientId.length > MAX_NAME_LENGTH) {
+        return "clientId must be a string of at most " + MAX_NAME_LENGTH + " characters";
+    }
+    if (sentAt !== undefined && !Number.isFinite(sentAt)) {
+        return "sentAt must be a time in milliseconds";
+    }
+    if (!Array.isArray(events)) {
+        return "events are required";
+    }
+    for (const event of events) {
+        if (!event || typeof event !== "object" || Array.isArray(event)) {
+            return "events must be objects";
+        }
+        const keys = Object.keys(event);
+        if (keys.length > MAX_FIELDS_PER_EVENT) {
+            return "events have at most " + MAX_FIELDS_PER_EVENT + " fields";
+        }
+        if (typeof event.type !== "string" || !event.type || event.type.length > MAX_NAME_LENGTH
+            || !Number.isFinite(event.time)) {
+            return "events need a type and a time";
+        }
+        for (const key of keys) {
+            if (key.length > MAX_NAME_LENGTH || key.startsWith("$") || key.includes(".") || !isField(event[key])) {
+                return "event field " + key.slice(0, MAX_NAME_LENGTH) + " is not a string, number, boolean or null";
+            }
+        }
+    }
+    return null;
+};
+
+const saveTelemetryBatch = async ({ clientId, sentAt, events }) => {
+    await TelemetryBatch.create({
+        client_id: clientId,
+        sent_at: sentAt ? new Date(sentAt) : undefined,
+        events: events
+    });
+};
+
+module.exports = { saveTelemetryBatch, validateTelemetryBatch, MAX_EVENTS_PER_BATCH };
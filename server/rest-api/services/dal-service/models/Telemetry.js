@@ -0,0 +1,13 @@
+const mongoose = require("mongoose");
+
+// One uploaded batch of client telemetry events, kept for 30 days
+const TelemetryBatchSchema = new mongoose.Schema({
+    client_id: { type: String, required: true },
+    sent_at: { type: Date },
+    received_at: { type: Date, default: Date.now },
+    events: { type: [mongoose.Schema.Types.Mixed], default: [] }
+}, {collection: "telemetry"});
+
+TelemetryBatchSchema.index({ received_at: 1 }, { expireAfterSeconds: 30 * 24 * 60 * 60 });
+
+module.exports = mongoose.models.TelemetryBatch || mongoose.model("TelemetryBatch", TelemetryBatchSchema);
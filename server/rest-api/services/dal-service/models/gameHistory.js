@@ -6,6 +6,13 @@ const GameHistorySchema = new mongoose.Schema({
     player_1_score: { type: Number, required: true },
     player_2: { type: String, required: true },
     player_2_score: { type: Number, required: true }
-}, {collection: "game_history"}); 
+}, {collection: "game_history", timestamps: { createdAt: false, updatedAt: "updated_at" }});
+
+// Per-player history pages, see getGameHistoriesPage
+GameHistorySchema.index({ player_1: 1, _id: -1 });
+GameHistorySchema.index({ player_2: 1, _id: -1 });
+// Per-player changes in the order they were saved, see getGameHistoriesUpdatedSince
+GameHistorySchema.index({ player_1: 1, updated_at: 1, _id: 1 });
+GameHistorySchema.index({ player_2: 1, updated_at: 1, _id: 1 });
 
 module.exports = mongoose.models.GameHistory || mongoose.model("GameHistory", GameHistorySchema);
\ No newline at end of file
@@ -1,6 +1,6 @@
 const express = require('express');
 const router = express.Router();
-const { getAllGameHistories, getGameHistoryById, upsertGameHistory, updateGameHistoryJSON } = require('../data-service/gameHistoryService');
+const { getAllGameHistories, getGameHistoriesPage, getGameHistoriesUpdatedSince, getGameHistoryById, upsertGameHistory, updateGameHistoryJSON } = require('../data-service/gameHistoryService');
 const { upsertUser, verifyUser } = require('../data-service/userService');
 
 router.get('/getAllGameHistories', async (req, res) => {
@@ -12,6 +12,32 @@ router.get('/getAllGameHistories', async (req, res) => {
     }
 });
 
+/**
+ * Paged game histories of one player, newest first
+ * Query: player (required), before / after (an _id to page older / newer than), limit (default 50, max 200)
+ * With updatedAfter (milliseconds) and afterId instead, the games inserted or updated after that
+ * cursor, oldest change first, for syncing a local copy
+ */
+router.get('/getGameHistoriesPage', async (req, res) => {
+    const { player, before, after, updatedAfter, afterId } = req.query;
+    if (!player) return res.status(400).json({ message: 'player is required' });
+    const limit = Math.min(parseInt(req.query.limit, 10) || 50, 200);
+    if (updatedAfter !== undefined && !Number.isFinite(Number(updatedAfter))) {
+        return res.status(400).json({ message: 'updatedAfter must be a time in milliseconds' });
+    }
+
+    try {
+        const gameHistories = updatedAfter !== undefined
+            ? await getGameHistoriesUpdatedSince({ player, updatedAfter: Number(updatedAfter), afterId, limit })
+            : await getGameHistoriesPage({ player, before, after, limit });
+        res.json(gameHistories);
+    } catch (err) {
+        // Malformed cursors fail to cast to an ObjectId
+        const status = err.name === 'CastError' ? 400 : 500;
+        res.status(status).json({ message: err.message });
+    }
+});
+
 router.get('/getGameHistoryById/:id', getGameHistory, (req, res) => {
     res.json(res.gameHistory);
 });
@@ -0,0 +1,49 @@
+const express = require('express');
+const router = express.Router();
+const { saveTelemetryBatch, validateTelemetryBatch, MAX_EVENTS_PER_BATCH } = require('../data-service/telemetryService');
+
+// Batches hold up to 500 events, well over express.json's default 100kb once inflated
+const MAX_BODY = '1mb';
+const RATE_WINDOW_MS = 60 * 1000;
+const MAX_BATCHES_PER_WINDOW = 30;
+
+// Batches per session in the current window; clients flush every 15s, so this only stops floods
+const batchCounts = new Map();
+setInterval(() => batchCounts.clear(), RATE_WINDOW_MS).unref();
+
+const rateLimit = (req, res, next) => {
+    const sessionId = req.headers['authorization'];
+    const count = (batchCounts.get(sessionId) || 0) + 1;
+    batchCounts.set(sessionId, count);
+    if (count > MAX_BATCHES_PER_WINDOW) {
+        res.set('Retry-After', String(RATE_WINDOW_MS / 1000));
+        return res.status(429).json({ message: 'Too many telemetry batches' });
+    }
+    next();
+};
+
+/**
+ * A batch of client telemetry events, usually sent gzip-compressed (Content-Encoding: gzip)
+ * Requires a session (mounted behind authMiddleware)
+ * Body: { clientId, sentAt, events: [{ type, time, ...fields }] }, at most 1000 events whose
+ * fields are strings, numbers, booleans or null
+ */
+router.post('/', rateLimit, express.json({ limit: MAX_BODY }), async (req, res) => {
+    const { clientId, sentAt, events } = req.body || {};
+    if (Array.isArray(events) && events.length > MAX_EVENTS_PER_BATCH) {
+        return res.status(413).json({ message: `At most ${MAX_EVENTS_PER_BATCH} events per batch` });
+    }
+    const error = validateTelemetryBatch({ clientId, sentAt, events });
+    if (error) {
+        return res.status(400).json({ message: error });
+    }
+
+    try {
+        await saveTelemetryBatch({ clientId, sentAt, events });
+        res.status(204).end();
+    } catch (err) {
+        res.status(500).json({ message: err.message });
+    }
+});
+
+module.exports = router;
@@ -91,10 +91,11 @@ const seedGameHistory = async () => {
 
     for (const gameHistoryData of gameHistorySeedData) {
         try {
+            // Reseeding on every start must not look like a change to syncing clients
             await GameHistory.findOneAndUpdate(
                 {gameroom_id: gameHistoryData.gameroom_id},
                 gameHistoryData,
-                {upsert: true, new: true, setDefaultsOnInsert: true}
+                {upsert: true, new: true, setDefaultsOnInsert: true, timestamps: false}
             );
         } catch (err) {
             console.error("Error seeding game history data:", err);